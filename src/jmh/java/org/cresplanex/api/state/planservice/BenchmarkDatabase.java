@@ -0,0 +1,134 @@
+package org.cresplanex.api.state.planservice;
+
+import org.postgresql.ds.PGSimpleDataSource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * PostgreSQLを利用するベンチマークの作業用スキーマ.
+ * 接続先はアプリケーションと同じ環境変数(DB_URL, DB_USERNAME, DB_PASSWORD)で指定する.
+ * 作業用のスキーマは作成時に作り直し, dropで削除する. 接続の既定のスキーマ(search_path)は作業用のスキーマとなる.
+ */
+public final class BenchmarkDatabase {
+
+    private static final String MIGRATION_LOCATION = "/db/migration/ddl/";
+
+    private final String schema;
+
+    private BenchmarkDatabase(String schema) {
+        this.schema = schema;
+    }
+
+    /**
+     * 作業用のスキーマを作成する. 前回の実行で残ったものは削除する.
+     */
+    public static BenchmarkDatabase create(String schema) throws SQLException {
+        BenchmarkDatabase database = new BenchmarkDatabase(schema);
+        database.drop();
+        database.execute("CREATE SCHEMA " + schema);
+        return database;
+    }
+
+    /**
+     * 作業用のスキーマを既定とした接続. アプリケーションの接続と同じくreWriteBatchedInsertsを有効にする.
+     */
+    public DataSource dataSource() {
+        PGSimpleDataSource dataSource = new PGSimpleDataSource();
+        dataSource.setUrl(env("DB_URL", "jdbc:postgresql://localhost:5438/plan"));
+        dataSource.setUser(env("DB_USERNAME", "postgres"));
+        dataSource.setPassword(env("DB_PASSWORD", "postgres"));
+        dataSource.setReWriteBatchedInserts(true);
+        dataSource.setCurrentSchema(schema);
+        return dataSource;
+    }
+
+    public Connection connect() throws SQLException {
+        return dataSource().getConnection();
+    }
+
+    /**
+     * 自動コミットで各文を実行する.
+     */
+    public void execute(String... statements) throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    /**
+     * アプリケーションのマイグレーション(db/migration/ddl)を指定した順に作業用のスキーマに適用する.
+     * Flywayでは後続のマイグレーション(スキーマ外のpublicationを作成するものなど)も適用されるため,
+     * 必要なファイルのみ内容をそのまま実行する. 文は行末の;で区切り, 1文ずつ自動コミットで実行する.
+     */
+    public void migrate(String... migrations) throws SQLException {
+        for (String migration : migrations) {
+            execute(Arrays.stream(read(migration).split(";\\s*(\\R|$)"))
+                    .filter(sql -> !sql.replaceAll("(?m)^\\s*--.*$", "").isBlank())
+                    .toArray(String[]::new));
+        }
+    }
+
+    /**
+     * tasks, task_attachmentsとそのインデックスをアプリケーションのマイグレーションで作成する.
+     */
+    public void migrateTasks() throws SQLException {
+        migrate(
+                "V20241118_231134__create_tasks_table.sql",
+                "V20241118_231232__create_task_attachments_table.sql",
+                "V20241201_100000__create_tasks_sort_indexes.sql"
+        );
+    }
+
+    /**
+     * migrateTasksを適用したスキーマにTaskを作成する. task_idは"task-"と8桁の連番となる.
+     * 半数の行をteamIdのチームに, 残りを他の1000チームに割り当てる.
+     * 期限は重複させ, ソートでcreated_at, task_idによる順序付けも必要となるようにする.
+     */
+    public void insertTasks(int rows, String teamId) throws SQLException {
+        execute("INSERT INTO tasks (task_id, team_id, charge_user_id, title, description, status,"
+                        + " start_datetime, due_datetime, created_at, created_by)"
+                        + " SELECT 'task-' || lpad(i::text, 8, '0'),"
+                        + " CASE WHEN i % 2 = 0 THEN '" + teamId + "' ELSE 'other-team-' || (i % 1000) END,"
+                        + " 'user-' || (i % 100), 'title ' || i, 'description ' || i,"
+                        + " (ARRAY['TODO', 'IN_PROGRESS', 'DONE'])[i % 3 + 1],"
+                        + " TIMESTAMP '2024-01-01' + (i * 7919 % 20000) * INTERVAL '1 minute',"
+                        + " TIMESTAMP '2024-01-01' + (i * 7919 % 20000 + 60) * INTERVAL '1 minute',"
+                        + " TIMESTAMP '2023-01-01' + (i % 50000) * INTERVAL '1 second', 'user-0'"
+                        + " FROM generate_series(1, " + rows + ") AS i",
+                "ANALYZE tasks");
+    }
+
+    public void drop() throws SQLException {
+        execute("DROP SCHEMA IF EXISTS " + schema + " CASCADE");
+    }
+
+    public String getSchema() {
+        return schema;
+    }
+
+    private static String read(String migration) {
+        try (InputStream input = BenchmarkDatabase.class.getResourceAsStream(MIGRATION_LOCATION + migration)) {
+            if (input == null) {
+                throw new IllegalArgumentException("Migration not found: " + migration);
+            }
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+}
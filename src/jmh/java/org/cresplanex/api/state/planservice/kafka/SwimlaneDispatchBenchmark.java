@@ -0,0 +1,133 @@
+package org.cresplanex.api.state.planservice.kafka;
+
+import org.apache.kafka.common.TopicPartition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 1つのパーティションのメッセージを, KeyHashSwimlaneMappingのスイムレーンに振り分けて処理する場合のスループット.
+ * スイムレーンはKafkaのコンシューマーと同じく, スイムレーンごとに到着順に1つずつ処理する.
+ * 一部のメッセージのハンドラはsleepで遅くし(データベースの待ちを想定), 残りは短いCPU処理とする.
+ * スイムレーンが1つの場合は, 遅いメッセージの後ろの全てのメッセージが待たされる.
+ * ブローカーは使わず, 振り分けと処理のみを計測する. 結果はメッセージあたりのスループット(ops/ms)となる.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SwimlaneDispatchBenchmark {
+
+    private static final int MESSAGES = 2000;
+    private static final int KEYS = 200;
+    private static final long SLOW_MILLIS = 2;
+    private static final long FAST_TOKENS = 1000;
+
+    @Param({"1", "4", "16"})
+    public int swimlanesPerPartition;
+
+    // 遅いハンドラの割合(%)
+    @Param({"0", "1", "5"})
+    public int slowPercent;
+
+    private final TopicPartition partition = new TopicPartition("plan-service-command", 0);
+    private KeyHashSwimlaneMapping mapping;
+    private ExecutorService executor;
+    private String[] keys;
+    private boolean[] slow;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        mapping = new KeyHashSwimlaneMapping(swimlanesPerPartition);
+        executor = Executors.newCachedThreadPool();
+        Random random = new Random(42);
+        keys = new String[MESSAGES];
+        slow = new boolean[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            keys[i] = "saga-" + random.nextInt(KEYS);
+            slow[i] = random.nextInt(100) < slowPercent;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void dispatch() throws InterruptedException {
+        Map<Integer, Swimlane> swimlanes = new HashMap<>();
+        CountDownLatch done = new CountDownLatch(MESSAGES);
+        for (int i = 0; i < MESSAGES; i++) {
+            boolean slowHandler = slow[i];
+            swimlanes.computeIfAbsent(mapping.toSwimlane(partition, keys[i]), swimlane -> new Swimlane())
+                    .dispatch(() -> {
+                        handle(slowHandler);
+                        done.countDown();
+                    });
+        }
+        done.await();
+    }
+
+    private static void handle(boolean slowHandler) {
+        if (!slowHandler) {
+            Blackhole.consumeCPU(FAST_TOKENS);
+            return;
+        }
+        try {
+            Thread.sleep(SLOW_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 受け付けた順に1つずつ処理するスイムレーン. 処理中でない場合のみexecutorに処理を依頼する.
+     */
+    private class Swimlane {
+
+        private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean running = new AtomicBoolean();
+
+        void dispatch(Runnable handler) {
+            queue.add(handler);
+            if (running.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Runnable handler;
+                while ((handler = queue.poll()) != null) {
+                    handler.run();
+                }
+                running.set(false);
+                // 終了の直前に受け付けたものを取りこぼさない
+                if (queue.isEmpty() || !running.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+    }
+}
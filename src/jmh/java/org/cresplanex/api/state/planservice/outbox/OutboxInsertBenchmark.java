@@ -0,0 +1,151 @@
+package org.cresplanex.api.state.planservice.outbox;
+
+import org.cresplanex.api.state.planservice.BenchmarkDatabase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 1つのトランザクションで送信するメッセージをoutbox(message)に書き込む時間の比較.
+ * <ul>
+ *     <li>single: MessageProducerJdbcImplementationと同じく, メッセージごとにINSERTを実行する.</li>
+ *     <li>batch: OutboxBatchWriterと同じく, JDBCのバッチで書き込む. reWriteBatchedInsertsにより1つのINSERTとなる.</li>
+ * </ul>
+ * テーブルの構成(layout)は, パーティションなし(plain)と, OutboxPartitionMaintainerと同じく
+ * 作成時刻の範囲パーティションをidのハッシュで分割したもの(partitioned)を比較する.
+ * 接続先と作業用のスキーマはBenchmarkDatabaseを参照.
+ * 結果はトランザクションあたりの時間で, メッセージあたりの時間はmessagesで割って求める.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(8)
+public class OutboxInsertBenchmark {
+
+    private static final String HEADERS = "{\"ID\":\"%s\",\"DESTINATION\":\"plan-service-reply\","
+            + "\"command_type\":\"org.cresplanex.api.state.common.saga.command.task.ValidateTasksCommand\","
+            + "\"command_saga_type\":\"org.cresplanex.api.state.planservice.saga.model.task.CreateTaskSaga\","
+            + "\"command_saga_id\":\"0000019372a4b1c2-0242ac1200020000\"}";
+    private static final String PAYLOAD = "{\"taskId\":\"" + "0".repeat(36) + "\",\"teamId\":\"" + "0".repeat(36)
+            + "\",\"title\":\"" + "x".repeat(200) + "\",\"description\":\"" + "x".repeat(200) + "\"}";
+
+    @Param({"single", "batch"})
+    public String mode;
+
+    @Param({"plain", "partitioned"})
+    public String layout;
+
+    // partitionedの場合の範囲パーティションごとのハッシュパーティションの数
+    @Param({"4"})
+    public int hashPartitions;
+
+    // 1つのトランザクションで送信するメッセージの数
+    @Param({"1", "10", "50"})
+    public int messages;
+
+    private final AtomicInteger sessions = new AtomicInteger();
+    private BenchmarkDatabase database;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        database = BenchmarkDatabase.create("outbox_benchmark");
+        database.execute("CREATE TABLE message ("
+                + "id VARCHAR(1000) NOT NULL, destination TEXT NOT NULL, headers TEXT NOT NULL, payload TEXT NOT NULL,"
+                + " published SMALLINT DEFAULT 0, message_partition SMALLINT,"
+                + " creation_time BIGINT NOT NULL, PRIMARY KEY (id, creation_time))"
+                + ("partitioned".equals(layout) ? " PARTITION BY RANGE (creation_time)" : ""),
+                "CREATE INDEX message_published_idx ON message (published, id)");
+        if ("partitioned".equals(layout)) {
+            // 計測中の行が全て入る範囲パーティションを1つ用意する
+            long now = System.currentTimeMillis();
+            long day = TimeUnit.DAYS.toMillis(1);
+            database.execute("CREATE TABLE message_p PARTITION OF message"
+                    + " FOR VALUES FROM (" + (now - day) + ") TO (" + (now + day) + ") PARTITION BY HASH (id)");
+            for (int remainder = 0; remainder < hashPartitions; remainder++) {
+                database.execute("CREATE TABLE message_p_h" + remainder + " PARTITION OF message_p"
+                        + " FOR VALUES WITH (MODULUS " + hashPartitions + ", REMAINDER " + remainder + ")");
+            }
+            database.execute("CREATE TABLE message_default PARTITION OF message DEFAULT");
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() throws SQLException {
+        // 行数の増加による差が出ないよう, 繰り返しごとに空にする
+        database.execute("TRUNCATE message");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        database.drop();
+    }
+
+    @Benchmark
+    public void insert(Session session) throws SQLException {
+        Connection connection = session.connection;
+        try (PreparedStatement ps = connection.prepareStatement("INSERT INTO message"
+                + " (id, destination, headers, payload, creation_time)"
+                + " VALUES (?, ?, ?, ?, ROUND(EXTRACT(EPOCH FROM CURRENT_TIMESTAMP) * 1000))")) {
+            for (int i = 0; i < messages; i++) {
+                String id = session.nextId();
+                ps.setString(1, id);
+                ps.setString(2, "plan-service-reply");
+                ps.setString(3, HEADERS.formatted(id));
+                ps.setString(4, PAYLOAD);
+                if ("batch".equals(mode)) {
+                    ps.addBatch();
+                } else {
+                    ps.executeUpdate();
+                }
+            }
+            if ("batch".equals(mode)) {
+                ps.executeBatch();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        }
+    }
+
+    /**
+     * スレッドごとの接続.
+     */
+    @State(Scope.Thread)
+    public static class Session {
+
+        private Connection connection;
+        private String prefix;
+        private long sequence;
+
+        @Setup(Level.Trial)
+        public void open(OutboxInsertBenchmark benchmark) throws SQLException {
+            connection = benchmark.database.connect();
+            connection.setAutoCommit(false);
+            prefix = "bench-" + benchmark.sessions.incrementAndGet() + "-" + System.nanoTime() + "-";
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws SQLException {
+            connection.close();
+        }
+
+        String nextId() {
+            return prefix + sequence++;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.cresplanex.api.state.planservice.pagination;
+
+import org.cresplanex.api.state.planservice.BenchmarkDatabase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * チームで絞り込んだTaskの一覧(DUE_DATETIME_ASC, DUE_DATETIME_DESC)のN番目のページの取得時間を, OFFSETとキーセットで比較する.
+ * キーセットの条件はKeyset.afterと同じくORの展開で表現し, ソートはTaskServiceのキーセットと同じ全順序とする.
+ * テーブルとインデックスはアプリケーションのマイグレーションで作成する.
+ * キーセットではページの位置によらず同じ時間となり, OFFSETでは位置に比例して増加する.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class KeysetPaginationBenchmark {
+
+    private static final int ROWS = 200_000;
+    private static final int PAGE_SIZE = 50;
+    private static final String TEAM_ID = "team-1";
+    private static final String SELECT = "SELECT task_id, team_id, charge_user_id, title, status,"
+            + " start_datetime, due_datetime, created_at FROM tasks WHERE team_id = ?";
+
+    @Param({"offset", "keyset"})
+    public String mode;
+
+    // 期限の方向. created_at, task_idは常にDESC
+    @Param({"ASC", "DESC"})
+    public String direction;
+
+    // 1から数えたページの位置
+    @Param({"1", "10", "100", "1000"})
+    public int page;
+
+    private BenchmarkDatabase database;
+    private String orderBy;
+    private Connection connection;
+    private PreparedStatement query;
+
+    @Setup
+    public void setup() throws SQLException {
+        database = BenchmarkDatabase.create("pagination_benchmark");
+        database.migrateTasks();
+        database.insertTasks(ROWS, TEAM_ID);
+
+        orderBy = " ORDER BY due_datetime " + direction + ", created_at DESC, task_id DESC LIMIT ?";
+        connection = database.connect();
+        if ("offset".equals(mode)) {
+            query = connection.prepareStatement(SELECT + orderBy + " OFFSET ?");
+            query.setString(1, TEAM_ID);
+            query.setInt(2, PAGE_SIZE);
+            query.setInt(3, (page - 1) * PAGE_SIZE);
+        } else if (page == 1) {
+            query = connection.prepareStatement(SELECT + orderBy);
+            query.setString(1, TEAM_ID);
+            query.setInt(2, PAGE_SIZE);
+        } else {
+            query = connection.prepareStatement(SELECT
+                    + " AND (due_datetime " + ("ASC".equals(direction) ? ">" : "<") + " ?"
+                    + " OR (due_datetime = ? AND created_at < ?)"
+                    + " OR (due_datetime = ? AND created_at = ? AND task_id < ?))"
+                    + orderBy);
+            bindCursor(query);
+        }
+    }
+
+    /**
+     * 前のページの最後の行(カーソルに含まれる値)を, 計測の前にOFFSETで取得して条件に設定する.
+     */
+    private void bindCursor(PreparedStatement query) throws SQLException {
+        try (PreparedStatement last = connection.prepareStatement(SELECT + orderBy + " OFFSET ?")) {
+            last.setString(1, TEAM_ID);
+            last.setInt(2, 1);
+            last.setInt(3, (page - 1) * PAGE_SIZE - 1);
+            try (ResultSet resultSet = last.executeQuery()) {
+                if (!resultSet.next()) {
+                    throw new IllegalStateException("Not enough rows for page " + page);
+                }
+                Timestamp dueDatetime = resultSet.getTimestamp("due_datetime");
+                Timestamp createdAt = resultSet.getTimestamp("created_at");
+                query.setString(1, TEAM_ID);
+                query.setTimestamp(2, dueDatetime);
+                query.setTimestamp(3, dueDatetime);
+                query.setTimestamp(4, createdAt);
+                query.setTimestamp(5, dueDatetime);
+                query.setTimestamp(6, createdAt);
+                query.setString(7, resultSet.getString("task_id"));
+                query.setInt(8, PAGE_SIZE);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+        database.drop();
+    }
+
+    @Benchmark
+    public void fetchPage(Blackhole blackhole) throws SQLException {
+        try (ResultSet resultSet = query.executeQuery()) {
+            while (resultSet.next()) {
+                blackhole.consume(resultSet.getString(1));
+                blackhole.consume(resultSet.getTimestamp(7));
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.cresplanex.api.state.planservice.projection;
+
+import build.buf.gen.plan.v1.Task;
+import org.cresplanex.api.state.planservice.BenchmarkDatabase;
+import org.cresplanex.api.state.planservice.entity.TaskAttachmentEntity;
+import org.cresplanex.api.state.planservice.entity.TaskEntity;
+import org.cresplanex.api.state.planservice.mapper.proto.ProtoMapper;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * GetTasksの1リクエスト分(取得からprotobufへの変換まで)を, エンティティと射影(TaskView)の読み取りで比較する.
+ * どちらも@Transactional(readOnly = true)と同じく読み取り専用のセッションで実行する.
+ * リクエストあたりのメモリの割り当て量はgcのプロファイラの結果(gc.alloc.rate.norm)で比較する.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReadPathBenchmark {
+
+    private static final String TEAM_ID = "team-1";
+    private static final String WHERE = " FROM TaskEntity t WHERE t.teamId = :teamId"
+            + " ORDER BY t.dueDatetime ASC, t.createdAt DESC, t.taskId DESC";
+    private static final String ENTITY_QUERY = "SELECT t" + WHERE;
+    // BaseRepository.projectingと同じく, TaskViewのコンストラクタで必要な列のみを取得する
+    private static final String PROJECTION_QUERY = "SELECT new " + TaskView.class.getName() + "("
+            + TaskView.ATTRIBUTES.stream().map(attribute -> "t." + attribute).collect(Collectors.joining(", "))
+            + ")" + WHERE;
+
+    // 1リクエストで返すTaskの数
+    @Param({"10", "100", "1000"})
+    public int limit;
+
+    private BenchmarkDatabase database;
+    private SessionFactory sessionFactory;
+
+    @Setup
+    public void setup() throws SQLException {
+        database = BenchmarkDatabase.create("read_path_benchmark");
+        database.migrateTasks();
+        database.insertTasks(20_000, TEAM_ID);
+
+        Configuration configuration = new Configuration()
+                .addAnnotatedClass(TaskEntity.class)
+                .addAnnotatedClass(TaskAttachmentEntity.class);
+        configuration.getProperties().put(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, database.dataSource());
+        sessionFactory = configuration.buildSessionFactory();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        sessionFactory.close();
+        database.drop();
+    }
+
+    @Benchmark
+    public List<Task> entity() {
+        return read(session -> session.createQuery(ENTITY_QUERY, TaskEntity.class)
+                .setParameter("teamId", TEAM_ID)
+                .setMaxResults(limit)
+                .getResultList()
+                .stream()
+                .map(ProtoMapper::convert)
+                .toList());
+    }
+
+    @Benchmark
+    public List<Task> projection() {
+        return read(session -> session.createQuery(PROJECTION_QUERY, TaskView.class)
+                .setParameter("teamId", TEAM_ID)
+                .setMaxResults(limit)
+                .getResultList()
+                .stream()
+                .map(ProtoMapper::convert)
+                .toList());
+    }
+
+    private List<Task> read(Function<Session, List<Task>> query) {
+        try (Session session = sessionFactory.openSession()) {
+            // SpringのreadOnlyのトランザクションと同じく, スナップショットを保持せずフラッシュしない
+            session.setDefaultReadOnly(true);
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+            Transaction transaction = session.beginTransaction();
+            try {
+                return query.apply(session);
+            } finally {
+                transaction.commit();
+            }
+        }
+    }
+}
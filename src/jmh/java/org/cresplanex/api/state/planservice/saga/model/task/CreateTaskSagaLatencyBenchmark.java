@@ -0,0 +1,205 @@
+package org.cresplanex.api.state.planservice.saga.model.task;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.cresplanex.api.state.common.saga.command.plan.CreateTaskAndAttachInitialFIleObjectsCommand;
+import org.cresplanex.api.state.common.saga.reply.storage.FileObjectExistValidateReply;
+import org.cresplanex.api.state.common.saga.reply.team.TeamExistValidateReply;
+import org.cresplanex.api.state.common.saga.reply.userprofile.UserExistValidateReply;
+import org.cresplanex.api.state.common.saga.validate.storage.FileObjectExistValidateCommand;
+import org.cresplanex.api.state.common.saga.validate.team.TeamExistValidateCommand;
+import org.cresplanex.api.state.common.saga.validate.userprofile.UserExistValidateCommand;
+import org.cresplanex.api.state.planservice.cache.ExistenceCache;
+import org.cresplanex.api.state.planservice.cache.ExistenceKind;
+import org.cresplanex.api.state.planservice.event.publisher.TaskDomainEventPublisher;
+import org.cresplanex.api.state.planservice.saga.batch.ValidationBatcher;
+import org.cresplanex.api.state.planservice.saga.proxy.PlanServiceProxy;
+import org.cresplanex.api.state.planservice.saga.proxy.StorageServiceProxy;
+import org.cresplanex.api.state.planservice.saga.proxy.TeamServiceProxy;
+import org.cresplanex.api.state.planservice.saga.proxy.UserProfileServiceProxy;
+import org.cresplanex.api.state.planservice.saga.state.task.CreateTaskSagaState;
+import org.cresplanex.api.state.planservice.service.TaskLocalValidateService;
+import org.cresplanex.core.commands.common.CommandReplyOutcome;
+import org.cresplanex.core.commands.common.ReplyMessageHeaders;
+import org.cresplanex.core.messaging.common.Message;
+import org.cresplanex.core.messaging.producer.MessageBuilder;
+import org.cresplanex.core.saga.orchestration.CommandWithDestinationAndType;
+import org.cresplanex.core.saga.orchestration.SagaActions;
+import org.cresplanex.core.saga.orchestration.SagaDefinition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * CreateTaskSagaの開始から, Taskの作成のコマンドを送信するまでの時間.
+ * 参加者はメモリ上の代役とし, 送信されたコマンドに対してhopMillis後に成功の返信を返す.
+ * 返信はSagaManagerと同じく1つずつ順に処理する.
+ * 存在検証は並列に送信されるため, 検証の数(validations)によらず往復は1回となり, 時間はほぼhopMillisとなる.
+ * 順次の送信の場合は検証の数だけ往復するため, validations * hopMillisとなる.
+ * 往復の回数の平均は, 各条件の終了時に標準出力に出力する.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CreateTaskSagaLatencyBenchmark {
+
+    private static final String SAGA_TYPE = "CreateTaskSaga";
+    private static final String SAGA_ID = "saga-1";
+    private static final Map<Class<?>, String> SUCCESS_TYPES = Map.of(
+            UserExistValidateCommand.class, UserExistValidateReply.Success.TYPE,
+            TeamExistValidateCommand.class, TeamExistValidateReply.Success.TYPE,
+            FileObjectExistValidateCommand.class, FileObjectExistValidateReply.Success.TYPE
+    );
+
+    // 参加者に問い合わせる存在検証の数. 1はチーム, 2はユーザーとチーム, 3はユーザー, チーム, ファイル
+    @Param({"1", "2", "3"})
+    public int validations;
+
+    // 参加者との1往復の時間
+    @Param({"2"})
+    public long hopMillis;
+
+    private SagaDefinition<CreateTaskSagaState> definition;
+    private ScheduledExecutorService participants;
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong hops = new AtomicLong();
+
+    @Setup
+    public void setup() {
+        ExistenceCache existenceCache = mock(ExistenceCache.class);
+        when(existenceCache.allKnownToExist(eq(ExistenceKind.USER), any())).thenReturn(validations < 2);
+        when(existenceCache.allKnownToExist(eq(ExistenceKind.TEAM), any())).thenReturn(false);
+        when(existenceCache.allKnownToExist(eq(ExistenceKind.FILE_OBJECT), any())).thenReturn(false);
+        ValidationBatcher validationBatcher = mock(ValidationBatcher.class);
+        when(validationBatcher.isEnabled()).thenReturn(false);
+
+        definition = new CreateTaskSaga(
+                mock(TaskLocalValidateService.class),
+                new PlanServiceProxy(),
+                new StorageServiceProxy(),
+                new TeamServiceProxy(),
+                new UserProfileServiceProxy(),
+                mock(TaskDomainEventPublisher.class),
+                existenceCache,
+                validationBatcher,
+                new SimpleMeterRegistry()
+        ).getSagaDefinition();
+        participants = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @TearDown
+    public void tearDown() {
+        participants.shutdownNow();
+        System.out.printf("%n[hops] validations=%d hops=%.2f%n", validations, (double) hops.get() / runs.get());
+    }
+
+    @Benchmark
+    public int untilCreateCommand() throws Exception {
+        Run run = new Run(sagaData());
+        participants.execute(run::start);
+        int runHops = run.done.get(10, TimeUnit.SECONDS);
+        runs.incrementAndGet();
+        hops.addAndGet(runHops);
+        return runHops;
+    }
+
+    private CreateTaskSagaState sagaData() {
+        CreateTaskSagaState sagaData = new CreateTaskSagaState();
+        sagaData.setOperatorId("user-0");
+        sagaData.setInitialData(CreateTaskSagaState.InitialData.builder()
+                .operatorId("user-0")
+                .teamId("team-1")
+                .chargeUserId("user-1")
+                .title("title")
+                .description("description")
+                .startDatetime("2024-12-01T09:00:00")
+                .dueDatetime("2024-12-31T18:00:00")
+                .attachmentFileObjects(validations < 3
+                        ? List.of()
+                        : List.of(new CreateTaskSagaState.InitialData.FileObject("file-1")))
+                .build());
+        return sagaData;
+    }
+
+    /**
+     * 1つのSagaの進行. 全ての処理はparticipantsのスレッドで行う.
+     */
+    private class Run {
+
+        private final CompletableFuture<Integer> done = new CompletableFuture<>();
+        private CreateTaskSagaState sagaData;
+        private String currentState;
+        private int hops;
+
+        Run(CreateTaskSagaState sagaData) {
+            this.sagaData = sagaData;
+        }
+
+        void start() {
+            handle(() -> definition.start(sagaData));
+        }
+
+        private void handle(Supplier<SagaActions<CreateTaskSagaState>> step) {
+            try {
+                SagaActions<CreateTaskSagaState> actions = track(step.get());
+                // SagaManagerと同じく, ローカルのステップは成功の返信を模して次に進める
+                while (actions.isLocal() && !actions.isEndState()) {
+                    actions = track(definition.handleReply(SAGA_TYPE, SAGA_ID, currentState, sagaData,
+                            reply("local")));
+                }
+                send(actions.getCommands());
+            } catch (RuntimeException e) {
+                done.completeExceptionally(e);
+            }
+        }
+
+        private void send(List<CommandWithDestinationAndType> commands) {
+            if (commands.isEmpty()) {
+                return;
+            }
+            if (commands.stream().anyMatch(command ->
+                    command.getCommand().getCommand() instanceof CreateTaskAndAttachInitialFIleObjectsCommand.Exec)) {
+                done.complete(hops);
+                return;
+            }
+            hops++;
+            for (CommandWithDestinationAndType command : commands) {
+                String replyType = SUCCESS_TYPES.get(command.getCommand().getCommand().getClass());
+                participants.schedule(() -> handle(() -> definition.handleReply(
+                        SAGA_TYPE, SAGA_ID, currentState, sagaData, reply(replyType))), hopMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private SagaActions<CreateTaskSagaState> track(SagaActions<CreateTaskSagaState> actions) {
+            actions.getUpdatedState().ifPresent(state -> currentState = state);
+            actions.getUpdatedSagaData().ifPresent(data -> sagaData = data);
+            return actions;
+        }
+    }
+
+    private static Message reply(String replyType) {
+        return MessageBuilder.withPayload("{}")
+                .withHeader(ReplyMessageHeaders.REPLY_OUTCOME, CommandReplyOutcome.SUCCESS.name())
+                .withHeader(ReplyMessageHeaders.REPLY_TYPE, replyType)
+                .build();
+    }
+}
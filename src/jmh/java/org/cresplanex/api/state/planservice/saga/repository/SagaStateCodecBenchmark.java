@@ -0,0 +1,84 @@
+package org.cresplanex.api.state.planservice.saga.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SagaStateCodecの保存形式(json, smile)ごとの変換時間の比較.
+ * 保存する値の大きさは, 各条件の開始時に標準出力に出力する.
+ * 状態はCreateTasksSagaStateと同じ形で, Taskの数を変えて大きさを変える.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SagaStateCodecBenchmark {
+
+    @Param({"json", "smile"})
+    public String codec;
+
+    @Param({"1", "10", "100"})
+    public int tasks;
+
+    private SagaStateCodec sagaStateCodec;
+    private String json;
+    private String stored;
+
+    @Setup
+    public void setup() throws Exception {
+        sagaStateCodec = new SmileSagaStateCodec(!"json".equals(codec), 1024);
+        json = new ObjectMapper().writeValueAsString(sagaState(tasks));
+        stored = sagaStateCodec.encode(json);
+        System.out.printf("%n[size] codec=%s tasks=%d json=%d stored=%d%n", codec, tasks, json.length(), stored.length());
+    }
+
+    @Benchmark
+    public String encode() {
+        return sagaStateCodec.encode(json);
+    }
+
+    @Benchmark
+    public String decode() {
+        return sagaStateCodec.decode(stored);
+    }
+
+    private static Map<String, Object> sagaState(int tasks) {
+        List<Map<String, Object>> initialTasks = new ArrayList<>();
+        List<Map<String, Object>> createdTasks = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            Map<String, Object> task = new LinkedHashMap<>();
+            task.put("teamId", "team-" + (i % 3));
+            task.put("chargeUserId", "user-" + (i % 7));
+            task.put("title", "Task title " + i);
+            task.put("description", "Description of the task " + i + ", written by the operator.");
+            task.put("startDatetime", "2024-12-01T09:00:00");
+            task.put("dueDatetime", "2024-12-31T18:00:00");
+            task.put("attachmentFileObjects", List.of(Map.of("fileObjectId", "file-" + i)));
+            initialTasks.add(task);
+
+            Map<String, Object> created = new LinkedHashMap<>(task);
+            created.put("taskId", String.format("%016x%016x", 0x18f0000000L + i, i));
+            created.put("status", "TODO");
+            created.put("version", 0);
+            createdTasks.add(created);
+        }
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("jobId", "job-0000000000000001");
+        state.put("operatorId", "user-0");
+        state.put("initialData", Map.of("tasks", initialTasks));
+        state.put("taskWithAttachmentsDtos", createdTasks);
+        return state;
+    }
+}
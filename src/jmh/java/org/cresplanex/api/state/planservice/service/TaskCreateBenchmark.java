@@ -0,0 +1,113 @@
+package org.cresplanex.api.state.planservice.service;
+
+import org.cresplanex.api.state.planservice.BenchmarkDatabase;
+import org.cresplanex.api.state.planservice.constants.TaskStatus;
+import org.cresplanex.api.state.planservice.entity.TaskAttachmentEntity;
+import org.cresplanex.api.state.planservice.entity.TaskEntity;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Taskと添付ファイルの作成(TaskService.createAndAttacheFiles)のトランザクションの時間を, 添付の数ごとに比較する.
+ * このトランザクションの間はPLAN_TASKのSagaのロックを保持するため, 時間はそのままロックの保持時間となる.
+ * <ul>
+ *     <li>unbatched: hibernate.jdbc.batch_sizeを設定しない場合. 1行ごとにINSERTを送信する.</li>
+ *     <li>batched: アプリケーションの設定(batch_size, order_inserts, reWriteBatchedInserts).
+ *     添付はTaskのカスケードで永続化し, 1つの複数行のINSERTとなる.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TaskCreateBenchmark {
+
+    @Param({"unbatched", "batched"})
+    public String mode;
+
+    @Param({"0", "10", "50"})
+    public int attachments;
+
+    private BenchmarkDatabase database;
+    private SessionFactory sessionFactory;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        database = BenchmarkDatabase.create("task_create_benchmark");
+        database.migrateTasks();
+        // 監査列はアプリケーションのコンテキスト外では設定されないため, 作業用のスキーマでは必須としない
+        database.execute(
+                "ALTER TABLE tasks ALTER COLUMN created_at DROP NOT NULL, ALTER COLUMN created_by DROP NOT NULL",
+                "ALTER TABLE task_attachments ALTER COLUMN created_at DROP NOT NULL, ALTER COLUMN created_by DROP NOT NULL");
+
+        Configuration configuration = new Configuration()
+                .addAnnotatedClass(TaskEntity.class)
+                .addAnnotatedClass(TaskAttachmentEntity.class);
+        configuration.getProperties().put(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, database.dataSource());
+        if ("batched".equals(mode)) {
+            // application.yamlのspring.jpa.properties.hibernateと同じ値
+            configuration.setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, "100");
+            configuration.setProperty(AvailableSettings.ORDER_INSERTS, "true");
+        }
+        sessionFactory = configuration.buildSessionFactory();
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() throws SQLException {
+        // 行数の増加による差が出ないよう, 繰り返しごとに空にする
+        database.execute("TRUNCATE tasks CASCADE");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        sessionFactory.close();
+        database.drop();
+    }
+
+    @Benchmark
+    public TaskEntity createAndAttachFiles() {
+        long number = sequence++;
+        TaskEntity task = new TaskEntity();
+        task.setTeamId("team-1");
+        task.setChargeUserId("user-1");
+        task.setTitle("title " + number);
+        task.setDescription("description");
+        task.setStatus(TaskStatus.DEFAULT);
+        task.setStartDatetime(LocalDateTime.of(2024, 12, 1, 9, 0));
+        task.setDueDatetime(LocalDateTime.of(2024, 12, 31, 18, 0));
+        List<TaskAttachmentEntity> taskAttachments = new ArrayList<>();
+        for (int i = 0; i < attachments; i++) {
+            TaskAttachmentEntity attachment = new TaskAttachmentEntity();
+            attachment.setFileObjectId("file-" + i);
+            attachment.setTask(task);
+            taskAttachments.add(attachment);
+        }
+        task.setTaskAttachments(taskAttachments);
+
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            session.persist(task);
+            transaction.commit();
+        }
+        return task;
+    }
+}
@@ -0,0 +1,119 @@
+package org.cresplanex.api.state.planservice.specification;
+
+import org.cresplanex.api.state.planservice.BenchmarkDatabase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * ファイルでの絞り込み(TaskSpecifications.withAttachmentFileObjectsFilter)の評価方法ごとの取得時間の比較.
+ * <ul>
+ *     <li>all-per-id: 指定したファイルごとに相関サブクエリで判定する(変更前のall).</li>
+ *     <li>all-grouped: task_attachmentsを1回走査し, GROUP BY task_id HAVING count(DISTINCT file_object_id) = nで判定する.</li>
+ *     <li>any-join: task_attachmentsを結合し, DISTINCTで重複を除く(変更前のany).</li>
+ *     <li>any-exists: EXISTSで判定する.</li>
+ * </ul>
+ * いずれもGetTasksと同じくチームで絞り込み, DUE_DATETIME_ASCの最初の50件を取得する.
+ * Taskあたりの添付の数(attachmentsPerTask)と指定するファイルの数(files)を変えて比較する.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FileObjectsFilterBenchmark {
+
+    private static final int ROWS = 20_000;
+    private static final int FILE_OBJECTS = 500;
+    private static final String TEAM_ID = "team-1";
+    private static final String COLUMNS = "t.task_id, t.team_id, t.charge_user_id, t.title, t.status,"
+            + " t.start_datetime, t.due_datetime, t.created_at";
+    private static final String ORDER_BY = " ORDER BY t.due_datetime ASC, t.created_at DESC, t.task_id DESC LIMIT 50";
+
+    @Param({"all-per-id", "all-grouped", "any-join", "any-exists"})
+    public String strategy;
+
+    @Param({"1", "10", "50"})
+    public int attachmentsPerTask;
+
+    @Param({"2", "20"})
+    public int files;
+
+    private BenchmarkDatabase database;
+    private Connection connection;
+    private PreparedStatement query;
+
+    @Setup
+    public void setup() throws SQLException {
+        database = BenchmarkDatabase.create("file_objects_filter_benchmark");
+        database.migrateTasks();
+        database.insertTasks(ROWS, TEAM_ID);
+        // 連続したファイルを添付するため, 添付の数が指定したファイルの数以上の場合はすべてを持つTaskが存在する
+        database.execute("INSERT INTO task_attachments (task_attachment_id, task_id, file_object_id, created_at, created_by)"
+                        + " SELECT 'attachment-' || i || '-' || j, 'task-' || lpad(i::text, 8, '0'),"
+                        + " 'file-' || ((i * 31 + j) % " + FILE_OBJECTS + "), TIMESTAMP '2024-01-01', 'user-0'"
+                        + " FROM generate_series(1, " + ROWS + ") AS i, generate_series(0, " + (attachmentsPerTask - 1) + ") AS j",
+                "ANALYZE task_attachments");
+
+        // task-00000002の最初の添付から連続したファイルを指定する
+        List<String> fileObjectIds = IntStream.range(0, files)
+                .mapToObj(j -> "file-" + ((2 * 31 + j) % FILE_OBJECTS))
+                .toList();
+        String in = String.join(", ", Collections.nCopies(files, "?"));
+        String sql = switch (strategy) {
+            case "all-per-id" -> "SELECT " + COLUMNS + " FROM tasks t WHERE t.team_id = ?"
+                    + String.join("", Collections.nCopies(files, " AND EXISTS (SELECT 1 FROM task_attachments a"
+                    + " WHERE a.task_id = t.task_id AND a.file_object_id = ?)"))
+                    + ORDER_BY;
+            case "all-grouped" -> "SELECT " + COLUMNS + " FROM tasks t WHERE t.team_id = ?"
+                    + " AND t.task_id IN (SELECT a.task_id FROM task_attachments a WHERE a.file_object_id IN (" + in + ")"
+                    + " GROUP BY a.task_id HAVING count(DISTINCT a.file_object_id) = " + files + ")"
+                    + ORDER_BY;
+            case "any-join" -> "SELECT DISTINCT " + COLUMNS + " FROM tasks t"
+                    + " JOIN task_attachments a ON a.task_id = t.task_id"
+                    + " WHERE t.team_id = ? AND a.file_object_id IN (" + in + ")"
+                    + ORDER_BY;
+            case "any-exists" -> "SELECT " + COLUMNS + " FROM tasks t WHERE t.team_id = ?"
+                    + " AND EXISTS (SELECT 1 FROM task_attachments a"
+                    + " WHERE a.task_id = t.task_id AND a.file_object_id IN (" + in + "))"
+                    + ORDER_BY;
+            default -> throw new IllegalArgumentException("Unknown strategy: " + strategy);
+        };
+
+        connection = database.connect();
+        query = connection.prepareStatement(sql);
+        query.setString(1, TEAM_ID);
+        for (int i = 0; i < fileObjectIds.size(); i++) {
+            query.setString(i + 2, fileObjectIds.get(i));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+        database.drop();
+    }
+
+    @Benchmark
+    public void filter(Blackhole blackhole) throws SQLException {
+        try (ResultSet resultSet = query.executeQuery()) {
+            while (resultSet.next()) {
+                blackhole.consume(resultSet.getString(1));
+            }
+        }
+    }
+}
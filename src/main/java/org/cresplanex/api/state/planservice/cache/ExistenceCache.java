@@ -0,0 +1,119 @@
+package org.cresplanex.api.state.planservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ユーザー, チーム, ファイルの存在のキャッシュ.
+ * 各サービスのドメインイベント(ExistenceCacheEventSubscriber)とSagaの検証の成功の返信から更新し,
+ * 存在が確認できている場合はSagaの検証のステップを省略するために利用する.
+ * 存在しないことはキャッシュせず, 確認できない場合は常に参加者に問い合わせる.
+ * 削除のイベントを購読していない種類は削除を知る手段がないため, unsourcedTtlの間のみ信頼する(0の場合は利用しない).
+ */
+@Component
+public class ExistenceCache {
+
+    private final Map<ExistenceKind, Long> ttlMillis = new EnumMap<>(ExistenceKind.class);
+    private final int maxSize;
+    private final Map<ExistenceKind, Map<String, Entry>> entries = new EnumMap<>(ExistenceKind.class);
+    private final Map<ExistenceKind, Counter> hitCounters = new EnumMap<>(ExistenceKind.class);
+    private final Map<ExistenceKind, Counter> missCounters = new EnumMap<>(ExistenceKind.class);
+
+    public ExistenceCache(ExistenceCacheProperties properties, MeterRegistry meterRegistry) {
+        this.maxSize = properties.maxSize();
+        for (ExistenceKind kind : ExistenceKind.values()) {
+            ExistenceCacheProperties.Source source = properties.sources().get(kind);
+            ttlMillis.put(kind, source != null && source.tracksDeletion()
+                    ? properties.ttl().toMillis()
+                    : properties.unsourcedTtl().toMillis());
+            // アクセス順のLRU
+            entries.put(kind, new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > ExistenceCache.this.maxSize;
+                }
+            });
+            // ヒットした回数が参加者への問い合わせを省略した回数となる
+            hitCounters.put(kind, Counter.builder("existence.cache.requests")
+                    .tag("kind", kind.name()).tag("result", "hit").register(meterRegistry));
+            missCounters.put(kind, Counter.builder("existence.cache.requests")
+                    .tag("kind", kind.name()).tag("result", "miss").register(meterRegistry));
+        }
+    }
+
+    /**
+     * 全てのIDの存在が有効期間内に確認されているか.
+     */
+    public boolean allKnownToExist(ExistenceKind kind, Collection<String> ids) {
+        if (!isEnabled(kind)) {
+            missCounters.get(kind).increment();
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        Map<String, Entry> map = entries.get(kind);
+        boolean hit;
+        synchronized (map) {
+            hit = ids.stream().allMatch(id -> {
+                Entry entry = map.get(id);
+                return entry != null && entry.exists() && entry.expiresAt() >= now;
+            });
+        }
+        (hit ? hitCounters : missCounters).get(kind).increment();
+        return hit;
+    }
+
+    /**
+     * 作成のイベントを受け取った.
+     */
+    public void created(ExistenceKind kind, String id) {
+        put(kind, id, true);
+    }
+
+    /**
+     * 削除のイベントを受け取った.
+     * 削除後に届いた検証の返信で存在するとみなさないよう, 削除済みとして保持する.
+     */
+    public void deleted(ExistenceKind kind, String id) {
+        put(kind, id, false);
+    }
+
+    /**
+     * 参加者による検証で存在が確認された.
+     * 削除済みのIDは更新しない.
+     */
+    public void confirmed(ExistenceKind kind, Collection<String> ids) {
+        if (!isEnabled(kind)) {
+            return;
+        }
+        long expiresAt = System.currentTimeMillis() + ttlMillis.get(kind);
+        Map<String, Entry> map = entries.get(kind);
+        synchronized (map) {
+            for (String id : ids) {
+                Entry entry = map.get(id);
+                if (entry == null || entry.exists()) {
+                    map.put(id, new Entry(true, expiresAt));
+                }
+            }
+        }
+    }
+
+    private void put(ExistenceKind kind, String id, boolean exists) {
+        Map<String, Entry> map = entries.get(kind);
+        synchronized (map) {
+            map.put(id, new Entry(exists, System.currentTimeMillis() + ttlMillis.get(kind)));
+        }
+    }
+
+    private boolean isEnabled(ExistenceKind kind) {
+        return ttlMillis.get(kind) > 0;
+    }
+
+    private record Entry(boolean exists, long expiresAt) {
+    }
+}
@@ -0,0 +1,53 @@
+package org.cresplanex.api.state.planservice.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.cresplanex.core.events.common.EventMessageHeaders;
+import org.cresplanex.core.messaging.common.Message;
+import org.cresplanex.core.messaging.consumer.MessageConsumer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ユーザー, チーム, ファイルの作成, 削除のドメインイベントを購読し, ExistenceCacheに反映する.
+ */
+@Slf4j
+@Component
+public class ExistenceCacheEventSubscriber {
+
+    private final ExistenceCache existenceCache;
+
+    public ExistenceCacheEventSubscriber(
+            ExistenceCache existenceCache,
+            ExistenceCacheProperties properties,
+            MessageConsumer messageConsumer
+    ) {
+        this.existenceCache = existenceCache;
+        properties.sources().forEach((kind, source) -> {
+            if (source.channel() == null || source.channel().isBlank()) {
+                return;
+            }
+            messageConsumer.subscribe(
+                    properties.subscriberId() + "-" + kind.name().toLowerCase(),
+                    Set.of(source.channel()),
+                    message -> handle(kind, source, message)
+            );
+            log.info("Subscribed existence events of {} from channel {}", kind, source.channel());
+        });
+    }
+
+    private void handle(ExistenceKind kind, ExistenceCacheProperties.Source source, Message message) {
+        Map<String, String> headers = message.getHeaders();
+        String eventType = headers.get(EventMessageHeaders.EVENT_TYPE);
+        String id = headers.get(EventMessageHeaders.AGGREGATE_ID);
+        if (eventType == null || id == null) {
+            return;
+        }
+        if (source.createdEventTypes().contains(eventType)) {
+            existenceCache.created(kind, id);
+        } else if (source.deletedEventTypes().contains(eventType)) {
+            existenceCache.deleted(kind, id);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.cresplanex.api.state.planservice.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ExistenceCacheの設定.
+ *
+ * @param ttl 存在の情報を信頼する期間
+ * @param unsourcedTtl 削除のイベントの購読元がない種類で, 検証の返信による存在の情報を信頼する期間.
+ *                     削除を知る手段がないため短くする. 0の場合はその種類の検証を省略しない
+ * @param maxSize 種類ごとの最大エントリ数
+ * @param subscriberId ドメインイベントの購読に利用するID. レプリカごとに全てのイベントを受け取るため, レプリカごとに異なる値にする
+ * @param sources 種類ごとのドメインイベントの購読元. 設定のない種類はSagaの返信のみで更新する
+ */
+@ConfigurationProperties(prefix = "app.existence-cache")
+public record ExistenceCacheProperties(
+        @DefaultValue("10m") Duration ttl,
+        @DefaultValue("0s") Duration unsourcedTtl,
+        @DefaultValue("100000") int maxSize,
+        @DefaultValue("plan-service-existence-cache") String subscriberId,
+        Map<ExistenceKind, Source> sources
+) {
+
+    public ExistenceCacheProperties {
+        sources = sources != null ? sources : Map.of();
+    }
+
+    /**
+     * ドメインイベントの購読元.
+     * リソースのIDはイベントの集約IDとする.
+     *
+     * @param channel イベントのチャネル
+     * @param createdEventTypes 作成を表すイベントの種類
+     * @param deletedEventTypes 削除を表すイベントの種類
+     */
+    public record Source(
+            String channel,
+            List<String> createdEventTypes,
+            List<String> deletedEventTypes
+    ) {
+
+        public Source {
+            createdEventTypes = createdEventTypes != null ? createdEventTypes : List.of();
+            deletedEventTypes = deletedEventTypes != null ? deletedEventTypes : List.of();
+        }
+
+        /**
+         * 削除を購読できるか. できない場合, 存在の情報は削除後も残る.
+         */
+        public boolean tracksDeletion() {
+            return channel != null && !channel.isBlank() && !deletedEventTypes.isEmpty();
+        }
+    }
+}
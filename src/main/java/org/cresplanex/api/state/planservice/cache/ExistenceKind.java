@@ -0,0 +1,10 @@
+package org.cresplanex.api.state.planservice.cache;
+
+/**
+ * ExistenceCacheで存在を保持する他サービスのリソースの種類.
+ */
+public enum ExistenceKind {
+    USER,
+    TEAM,
+    FILE_OBJECT,
+}
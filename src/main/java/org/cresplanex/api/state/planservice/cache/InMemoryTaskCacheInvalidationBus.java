@@ -0,0 +1,36 @@
+package org.cresplanex.api.state.planservice.cache;
+
+import org.cresplanex.api.state.planservice.utils.TransactionUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 同一プロセス内のみで無効化を配信する. テストや単一レプリカでの利用を想定.
+ */
+public class InMemoryTaskCacheInvalidationBus implements TaskCacheInvalidationBus {
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(String taskId) {
+        TransactionUtils.afterCommit(() -> listeners.forEach(listener -> listener.onInvalidate(taskId)));
+    }
+
+    @Override
+    public void publishAll(Collection<String> taskIds) {
+        List<String> copied = List.copyOf(taskIds);
+        TransactionUtils.afterCommit(() -> copied.forEach(taskId -> listeners.forEach(listener -> listener.onInvalidate(taskId))));
+    }
+
+    @Override
+    public void publishCountInvalidation() {
+        TransactionUtils.afterCommit(() -> listeners.forEach(Listener::onInvalidateCounts));
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+}
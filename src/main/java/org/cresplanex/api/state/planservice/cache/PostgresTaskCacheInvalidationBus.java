@@ -0,0 +1,135 @@
+package org.cresplanex.api.state.planservice.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * PostgreSQLのLISTEN/NOTIFYで無効化を配信する.
+ * NOTIFYはトランザクションのコミット時にのみ配信されるため, ロールバックされた書き込みは伝搬しない.
+ */
+@Slf4j
+public class PostgresTaskCacheInvalidationBus implements TaskCacheInvalidationBus, InitializingBean, DisposableBean {
+
+    private static final int POLL_TIMEOUT_MILLIS = 1000;
+    private static final long RECONNECT_BACKOFF_MILLIS = 5000;
+    // 件数のキャッシュの無効化の通知. タスクIDは'#'で始まらないため区別できる
+    private static final String COUNT_INVALIDATION_PAYLOAD = "#counts";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String channel;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public PostgresTaskCacheInvalidationBus(
+            JdbcTemplate jdbcTemplate, String url, String username, String password, String channel) {
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid channel name: " + channel);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.channel = channel;
+    }
+
+    @Override
+    public void publish(String taskId) {
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", (ResultSetExtractor<Void>) rs -> null, channel, taskId);
+    }
+
+    @Override
+    public void publishAll(Collection<String> taskIds) {
+        if (taskIds.isEmpty()) {
+            return;
+        }
+        // 1回の問い合わせでTaskごとに通知する
+        jdbcTemplate.query("SELECT pg_notify(?, t) FROM unnest(?::text[]) AS t", (ResultSetExtractor<Void>) rs -> null,
+                channel, taskIds.toArray(String[]::new));
+    }
+
+    @Override
+    public void publishCountInvalidation() {
+        // 同じトランザクション内の同じ通知はPostgreSQLが1つにまとめる
+        publish(COUNT_INVALIDATION_PAYLOAD);
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        running = true;
+        listenerThread = new Thread(this::listen, "task-cache-invalidation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+            listenerThread.join(POLL_TIMEOUT_MILLIS * 2L);
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            // LISTENは接続を占有し続けるため, コネクションプールとは別に接続する
+            try (Connection connection = DriverManager.getConnection(url, username, password)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                // 切断中の無効化は取りこぼしているため, 接続のたびに全て破棄する
+                listeners.forEach(Listener::onReset);
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        String payload = notification.getParameter();
+                        if (COUNT_INVALIDATION_PAYLOAD.equals(payload)) {
+                            listeners.forEach(Listener::onInvalidateCounts);
+                        } else {
+                            listeners.forEach(listener -> listener.onInvalidate(payload));
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Task cache invalidation listener disconnected, reconnecting", e);
+                try {
+                    Thread.sleep(RECONNECT_BACKOFF_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package org.cresplanex.api.state.planservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.cresplanex.api.state.planservice.entity.TaskEntity;
+import org.cresplanex.api.state.planservice.utils.TransactionUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * findTask, findTaskWithAttachments用のTaskのキャッシュ.
+ * 保持するTaskはトランザクション外の(デタッチされた)エンティティであり, 読み取り専用として扱う.
+ */
+@Component
+public class TaskCache implements TaskCacheInvalidationBus.Listener {
+
+    private final long ttlMillis;
+    private final int maxSize;
+    private final TaskCacheInvalidationBus invalidationBus;
+
+    // アクセス順のLRU
+    private final Map<Key, Entry> entries;
+    // 無効化された時点のシーケンス. 無効化前に読み込みを開始したTaskをキャッシュしないようにする
+    private final Map<String, Long> invalidatedAt = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    // 全体の無効化(onReset), または記録の破棄を行った時点のシーケンス. これ以前に読み込みを開始したTaskはキャッシュしない
+    private long resetAt = -1;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter sizeEvictionCounter;
+    private final Counter expiredEvictionCounter;
+    private final Counter invalidatedEvictionCounter;
+
+    public TaskCache(
+            @Value("${app.task-cache.ttl:60s}") Duration ttl,
+            @Value("${app.task-cache.max-size:10000}") int maxSize,
+            TaskCacheInvalidationBus invalidationBus,
+            MeterRegistry meterRegistry
+    ) {
+        this.ttlMillis = ttl.toMillis();
+        this.maxSize = maxSize;
+        this.invalidationBus = invalidationBus;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > TaskCache.this.maxSize) {
+                    sizeEvictionCounter.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        this.hitCounter = Counter.builder("task.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.missCounter = Counter.builder("task.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.sizeEvictionCounter = Counter.builder("task.cache.evictions").tag("cause", "size").register(meterRegistry);
+        this.expiredEvictionCounter = Counter.builder("task.cache.evictions").tag("cause", "expired").register(meterRegistry);
+        this.invalidatedEvictionCounter = Counter.builder("task.cache.evictions").tag("cause", "invalidated").register(meterRegistry);
+        Gauge.builder("task.cache.size", this, TaskCache::size).register(meterRegistry);
+
+        invalidationBus.subscribe(this);
+    }
+
+    /**
+     * 読み込み開始前に取得し, putに渡す.
+     */
+    public long beginLoad() {
+        return sequence.get();
+    }
+
+    public TaskEntity get(String taskId, boolean withAttachments) {
+        Key key = new Key(taskId, withAttachments);
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                missCounter.increment();
+                return null;
+            }
+            if (entry.expiresAt() < System.currentTimeMillis()) {
+                entries.remove(key);
+                expiredEvictionCounter.increment();
+                missCounter.increment();
+                return null;
+            }
+            hitCounter.increment();
+            return entry.task();
+        }
+    }
+
+    public void put(TaskEntity task, boolean withAttachments, long loadStartedAt) {
+        Key key = new Key(task.getTaskId(), withAttachments);
+        long version = task.getVersion();
+        // 無効化の記録と同じロックの中で判定し, 判定から追加までの間の無効化を見逃さないようにする
+        synchronized (entries) {
+            if (resetAt >= loadStartedAt) {
+                return;
+            }
+            Long invalidated = invalidatedAt.get(task.getTaskId());
+            if (invalidated != null && invalidated >= loadStartedAt) {
+                return;
+            }
+            Entry existing = entries.get(key);
+            // より新しいバージョンを保持している場合は置き換えない
+            if (existing != null && existing.version() > version) {
+                return;
+            }
+            entries.put(key, new Entry(task, version, System.currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    /**
+     * コミット後にローカルのキャッシュを無効化し, 他のレプリカにも無効化を配信する.
+     *
+     * @param taskId タスクID
+     */
+    public void invalidateAfterCommit(String taskId) {
+        TransactionUtils.afterCommit(() -> invalidateLocal(taskId));
+        invalidationBus.publish(taskId);
+    }
+
+    /**
+     * 複数のTaskをコミット後にローカルのキャッシュで無効化し, 他のレプリカへの無効化は1回の送信にまとめる.
+     *
+     * @param taskIds タスクID
+     */
+    public void invalidateAfterCommit(Collection<String> taskIds) {
+        if (taskIds.isEmpty()) {
+            return;
+        }
+        List<String> copied = List.copyOf(taskIds);
+        TransactionUtils.afterCommit(() -> copied.forEach(this::invalidateLocal));
+        invalidationBus.publishAll(copied);
+    }
+
+    @Override
+    public void onInvalidate(String taskId) {
+        invalidateLocal(taskId);
+    }
+
+    @Override
+    public void onReset() {
+        synchronized (entries) {
+            // キャッシュにないTaskの読み込み中に届かなかった無効化もあるため, 全ての読み込みを対象にする
+            resetAt = sequence.incrementAndGet();
+            entries.clear();
+            invalidatedAt.clear();
+        }
+    }
+
+    private void invalidateLocal(String taskId) {
+        synchronized (entries) {
+            invalidatedAt.put(taskId, sequence.incrementAndGet());
+            if (entries.remove(new Key(taskId, false)) != null) {
+                invalidatedEvictionCounter.increment();
+            }
+            if (entries.remove(new Key(taskId, true)) != null) {
+                invalidatedEvictionCounter.increment();
+            }
+        }
+        pruneInvalidated();
+    }
+
+    // 古い無効化の記録を破棄する. 破棄した記録より前に読み込みを開始したTaskはresetAtによりキャッシュしない
+    private void pruneInvalidated() {
+        if (invalidatedAt.size() > maxSize) {
+            synchronized (entries) {
+                long threshold = sequence.get() - maxSize;
+                invalidatedAt.values().removeIf(seq -> seq < threshold);
+                resetAt = Math.max(resetAt, threshold - 1);
+            }
+        }
+    }
+
+    private int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private record Key(String taskId, boolean withAttachments) {
+    }
+
+    private record Entry(TaskEntity task, long version, long expiresAt) {
+    }
+}
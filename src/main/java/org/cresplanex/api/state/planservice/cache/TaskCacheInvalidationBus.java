@@ -0,0 +1,43 @@
+package org.cresplanex.api.state.planservice.cache;
+
+import java.util.Collection;
+
+/**
+ * レプリカ間でTaskキャッシュ, 件数のキャッシュの無効化を伝搬する.
+ */
+public interface TaskCacheInvalidationBus {
+
+    /**
+     * 無効化を送信する. トランザクション内で呼び出された場合, 配信はコミット時に行われる.
+     *
+     * @param taskId タスクID
+     */
+    void publish(String taskId);
+
+    /**
+     * 複数のTaskの無効化をまとめて送信する. トランザクション内で呼び出された場合, 配信はコミット時に行われる.
+     *
+     * @param taskIds タスクID
+     */
+    void publishAll(Collection<String> taskIds);
+
+    /**
+     * 一覧の件数のキャッシュ(CountCache)の無効化を送信する. トランザクション内で呼び出された場合, 配信はコミット時に行われる.
+     */
+    void publishCountInvalidation();
+
+    void subscribe(Listener listener);
+
+    interface Listener {
+
+        void onInvalidate(String taskId);
+
+        default void onInvalidateCounts() {
+        }
+
+        /**
+         * 無効化を取りこぼした可能性がある場合(再接続時など)に呼び出される.
+         */
+        void onReset();
+    }
+}
@@ -1,5 +1,6 @@
 package org.cresplanex.api.state.planservice.config;
 
+import org.cresplanex.api.state.planservice.kafka.KeyHashSwimlaneMapping;
 import org.cresplanex.core.common.kafka.consumer.CoreKafkaMessageConsumer;
 import org.cresplanex.core.common.kafka.consumer.swimlanemap.OriginalTopicPartitionToSwimlaneMapping;
 import org.cresplanex.core.common.kafka.consumer.swimlanemap.TopicPartitionToSwimlaneMapping;
@@ -9,6 +10,7 @@ import org.cresplanex.core.common.kafka.property.CoreKafkaConnectProperties;
 import org.cresplanex.core.common.kafka.property.CoreKafkaConnectPropertiesConfiguration;
 import org.cresplanex.core.common.kafka.property.CoreKafkaConsumerProperties;
 import org.cresplanex.core.common.kafka.property.CoreKafkaConsumerSpringPropertiesConfiguration;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -21,8 +23,21 @@ import org.springframework.context.annotation.Import;
 })
 public class CoreKafkaMessageConsumerConfiguration {
 
-    // パーティションからスイムレーンへのデフォルトのマッピング
-    private final TopicPartitionToSwimlaneMapping partitionToSwimLaneMapping = new OriginalTopicPartitionToSwimlaneMapping();
+    /**
+     * パーティションからスイムレーンへのマッピング.
+     * 1の場合はパーティションごとに1つのスイムレーン(デフォルトのマッピング)となり, パーティション内のメッセージを順に処理する.
+     *
+     * @param swimlanesPerPartition パーティションごとのスイムレーンの数
+     * @return マッピング
+     */
+    @Bean
+    public TopicPartitionToSwimlaneMapping topicPartitionToSwimlaneMapping(
+            @Value("${app.kafka.swimlanes-per-partition:4}") int swimlanesPerPartition) {
+        if (swimlanesPerPartition <= 1) {
+            return new OriginalTopicPartitionToSwimlaneMapping();
+        }
+        return new KeyHashSwimlaneMapping(swimlanesPerPartition);
+    }
 
     /**
      * Kafkaメッセージを消費するCoreKafkaMessageConsumerビーンを作成
@@ -30,12 +45,14 @@ public class CoreKafkaMessageConsumerConfiguration {
      * @param props Kafkaの基本プロパティ
      * @param coreKafkaConsumerProperties Kafkaコンシューマの設定
      * @param kafkaConsumerFactory Kafkaコンシューマを生成するファクトリ
+     * @param partitionToSwimLaneMapping パーティションからスイムレーンへのマッピング
      * @return 設定済みのCoreKafkaMessageConsumerインスタンス
      */
     @Bean
     public CoreKafkaMessageConsumer messageConsumerKafka(CoreKafkaConnectProperties props,
             CoreKafkaConsumerProperties coreKafkaConsumerProperties,
-            KafkaConsumerFactory kafkaConsumerFactory) {
+            KafkaConsumerFactory kafkaConsumerFactory,
+            TopicPartitionToSwimlaneMapping partitionToSwimLaneMapping) {
         return new CoreKafkaMessageConsumer(props.getBootstrapServers(), coreKafkaConsumerProperties, kafkaConsumerFactory, partitionToSwimLaneMapping);
     }
 }
@@ -0,0 +1,14 @@
+package org.cresplanex.api.state.planservice.config;
+
+import org.cresplanex.api.state.planservice.repository.BaseRepositoryImpl;
+import org.cresplanex.api.state.planservice.repository.TaskRepository;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+@Configuration
+@EnableJpaRepositories(
+        basePackageClasses = TaskRepository.class,
+        repositoryBaseClass = BaseRepositoryImpl.class // 件数取得なしの範囲取得を追加
+)
+public class JpaRepositoryConfiguration {
+}
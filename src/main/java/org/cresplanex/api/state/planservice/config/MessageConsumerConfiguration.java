@@ -1,5 +1,7 @@
 package org.cresplanex.api.state.planservice.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.cresplanex.api.state.planservice.duplicate.LayeredDuplicateMessageDetector;
 import org.cresplanex.core.common.jdbc.CoreJdbcStatementExecutor;
 import org.cresplanex.core.common.jdbc.CoreSchema;
 import org.cresplanex.core.common.jdbc.CoreTransactionTemplate;
@@ -47,16 +49,20 @@ public class MessageConsumerConfiguration {
     @Value("${spring.datasource.driver-class-name}")
     private String driver;
 
-    // Duplicate実装
+    // Duplicate実装, テーブルの前段に直近の処理済みIDの記録を置く
     @Bean
     public DuplicateMessageDetector duplicateMessageDetector(CoreSchema coreSchema,
             SqlDialectSelector sqlDialectSelector,
             CoreJdbcStatementExecutor coreJdbcStatementExecutor,
-            CoreTransactionTemplate coreTransactionTemplate) {
-        return new SqlTableBasedDuplicateMessageDetector(coreSchema,
-                sqlDialectSelector.getDialect(driver).getCurrentTimeInMillisecondsExpression(),
-                coreJdbcStatementExecutor,
-                coreTransactionTemplate);
+            CoreTransactionTemplate coreTransactionTemplate,
+            @Value("${app.duplicate-detector.recent-size:10000}") int recentSize,
+            MeterRegistry meterRegistry) {
+        return new LayeredDuplicateMessageDetector(
+                new SqlTableBasedDuplicateMessageDetector(coreSchema,
+                        sqlDialectSelector.getDialect(driver).getCurrentTimeInMillisecondsExpression(),
+                        coreJdbcStatementExecutor,
+                        coreTransactionTemplate),
+                recentSize, meterRegistry);
     }
 
     // Consumerの実装
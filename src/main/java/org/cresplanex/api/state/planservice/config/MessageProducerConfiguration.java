@@ -1,8 +1,12 @@
 package org.cresplanex.api.state.planservice.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.cresplanex.api.state.planservice.outbox.OutboxBatchWriter;
+import org.cresplanex.api.state.planservice.outbox.TransactionalOutboxBuffer;
 import org.cresplanex.core.common.id.IdGenerator;
 import org.cresplanex.core.common.jdbc.CoreCommonJdbcOperations;
 import org.cresplanex.core.common.jdbc.CoreSchema;
+import org.cresplanex.core.common.jdbc.sqldialect.SqlDialectSelector;
 import org.cresplanex.core.messaging.common.ChannelMapping;
 import org.cresplanex.core.messaging.common.ChannelMappingDefaultConfiguration;
 import org.cresplanex.core.messaging.common.MessageInterceptor;
@@ -11,9 +15,12 @@ import org.cresplanex.core.messaging.producer.MessageProducerImpl;
 import org.cresplanex.core.messaging.producer.MessageProducerImplementation;
 import org.cresplanex.core.messaging.producer.jdbc.MessageProducerJdbcImplementation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
 
 @Configuration
 @Import({
@@ -24,14 +31,22 @@ import org.springframework.context.annotation.Import;
 })
 public class MessageProducerConfiguration {
 
-    // JDBCを利用
+    // JDBCを利用. トランザクション内のメッセージはコミット直前にまとめて書き込む
     @Bean
     public MessageProducerImplementation messageProducerImplementation(CoreCommonJdbcOperations coreCommonJdbcOperations,
             IdGenerator idGenerator,
-            CoreSchema coreSchema) {
-        return new MessageProducerJdbcImplementation(coreCommonJdbcOperations,
+            CoreSchema coreSchema,
+            JdbcTemplate jdbcTemplate,
+            SqlDialectSelector sqlDialectSelector,
+            @Value("${spring.datasource.driver-class-name}") String driver,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry) {
+        MessageProducerImplementation implementation = new MessageProducerJdbcImplementation(coreCommonJdbcOperations,
                 idGenerator,
                 coreSchema);
+        OutboxBatchWriter writer = new OutboxBatchWriter(jdbcTemplate, coreSchema,
+                sqlDialectSelector.getDialect(driver).getCurrentTimeInMillisecondsExpression());
+        return new TransactionalOutboxBuffer(implementation, writer, transactionManager, meterRegistry);
     }
 
     @Autowired(required = false)
@@ -1,18 +1,28 @@
 package org.cresplanex.api.state.planservice.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.cresplanex.api.state.planservice.saga.lock.LayeredSagaLockManager;
 import org.cresplanex.core.common.jdbc.CoreJdbcStatementExecutor;
 import org.cresplanex.core.common.jdbc.CoreSchema;
 import org.cresplanex.core.saga.lock.SagaLockManager;
 import org.cresplanex.core.saga.lock.SagaLockManagerJdbc;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 public class SagaLockManagerConfiguration {
 
+    // 同じ対象へのロックテーブルへの操作をプロセス内の待ち行列で順に実行し, 同じSagaの再取得を省略する
     @Bean
     public SagaLockManager sagaLockManager(CoreJdbcStatementExecutor coreJdbcStatementExecutor,
-            CoreSchema coreSchema) {
-        return new SagaLockManagerJdbc(coreJdbcStatementExecutor, coreSchema);
+            CoreSchema coreSchema,
+            @Value("${app.saga-lock.wait-timeout:1s}") Duration waitTimeout,
+            @Value("${app.saga-lock.owner-cache-size:10000}") int ownerCacheSize,
+            MeterRegistry meterRegistry) {
+        return new LayeredSagaLockManager(new SagaLockManagerJdbc(coreJdbcStatementExecutor, coreSchema),
+                waitTimeout, ownerCacheSize, meterRegistry);
     }
 }
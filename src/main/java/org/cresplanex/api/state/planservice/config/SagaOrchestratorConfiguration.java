@@ -2,6 +2,8 @@ package org.cresplanex.api.state.planservice.config;
 
 import java.util.Collection;
 
+import org.cresplanex.api.state.planservice.saga.repository.EncodedSagaInstanceRepository;
+import org.cresplanex.api.state.planservice.saga.repository.SmileSagaStateCodec;
 import org.cresplanex.core.commands.producer.CommandProducer;
 import org.cresplanex.core.common.id.ApplicationIdGenerator;
 import org.cresplanex.core.common.jdbc.CoreJdbcStatementExecutor;
@@ -15,6 +17,7 @@ import org.cresplanex.core.saga.orchestration.command.SagaCommandProducer;
 import org.cresplanex.core.saga.orchestration.command.SagaCommandProducerConfiguration;
 import org.cresplanex.core.saga.orchestration.repository.SagaInstanceRepository;
 import org.cresplanex.core.saga.orchestration.repository.SagaInstanceRepositoryJdbc;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -27,8 +30,14 @@ public class SagaOrchestratorConfiguration {
 
     @Bean
     public SagaInstanceRepository sagaInstanceRepository(CoreJdbcStatementExecutor coreJdbcStatementExecutor,
-            CoreSchema coreSchema) {
-        return new SagaInstanceRepositoryJdbc(coreJdbcStatementExecutor, new ApplicationIdGenerator(), coreSchema);
+            CoreSchema coreSchema,
+            @Value("${app.saga-state.codec:json}") String codec,
+            @Value("${app.saga-state.compress-threshold:1024}") int compressThreshold) {
+        SagaInstanceRepository repository = new SagaInstanceRepositoryJdbc(coreJdbcStatementExecutor, new ApplicationIdGenerator(), coreSchema);
+        // 既定はJSONのまま保存する(smileの効果はSagaStateCodecBenchmarkで確認する).
+        // 保存形式によらず, JSON, Smileのどちらで保存済みのSagaも読み込める
+        return new EncodedSagaInstanceRepository(repository,
+                new SmileSagaStateCodec(!"json".equals(codec), compressThreshold));
     }
 
     @Bean
@@ -0,0 +1,38 @@
+package org.cresplanex.api.state.planservice.config;
+
+import org.cresplanex.api.state.planservice.cache.InMemoryTaskCacheInvalidationBus;
+import org.cresplanex.api.state.planservice.cache.PostgresTaskCacheInvalidationBus;
+import org.cresplanex.api.state.planservice.cache.TaskCacheInvalidationBus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Configuration
+public class TaskCacheConfiguration {
+
+    // PostgreSQLのLISTEN/NOTIFYでレプリカ間に無効化を伝搬(デフォルト)
+    @Bean
+    @ConditionalOnProperty(name = "app.task-cache.bus", havingValue = "postgres", matchIfMissing = true)
+    public TaskCacheInvalidationBus postgresTaskCacheInvalidationBus(
+            JdbcTemplate jdbcTemplate,
+            DataSourceProperties dataSourceProperties,
+            @Value("${app.task-cache.channel:task_cache_invalidation}") String channel) {
+        return new PostgresTaskCacheInvalidationBus(
+                jdbcTemplate,
+                dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword(),
+                channel
+        );
+    }
+
+    // プロセス内のみ(テスト用)
+    @Bean
+    @ConditionalOnProperty(name = "app.task-cache.bus", havingValue = "in-memory")
+    public TaskCacheInvalidationBus inMemoryTaskCacheInvalidationBus() {
+        return new InMemoryTaskCacheInvalidationBus();
+    }
+}
@@ -0,0 +1,101 @@
+package org.cresplanex.api.state.planservice.count;
+
+import org.cresplanex.api.state.planservice.cache.TaskCacheInvalidationBus;
+import org.cresplanex.api.state.planservice.utils.TransactionUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 条件の形をキーとした件数の短時間キャッシュ.
+ * Taskの書き込みがあった場合は全て無効化する.
+ * 書き込みはコマンドを受信したレプリカで行われるため, 無効化はTaskCacheInvalidationBusで他のレプリカにも配信する.
+ */
+@Component
+public class CountCache implements TaskCacheInvalidationBus.Listener {
+
+    private final long ttlMillis;
+    private final int maxSize;
+    private final TaskCacheInvalidationBus invalidationBus;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // 無効化のたびに進め, 無効化前に取得を開始した件数をキャッシュしないようにする
+    private final AtomicLong generation = new AtomicLong();
+
+    public CountCache(
+            @Value("${app.count.cache.ttl:5s}") Duration ttl,
+            @Value("${app.count.cache.max-size:1000}") int maxSize,
+            TaskCacheInvalidationBus invalidationBus
+    ) {
+        this.ttlMillis = ttl.toMillis();
+        this.maxSize = maxSize;
+        this.invalidationBus = invalidationBus;
+        invalidationBus.subscribe(this);
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    public OptionalLong get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.generation() != generation.get()) {
+            return OptionalLong.empty();
+        }
+        if (entry.expiresAt() < System.currentTimeMillis()) {
+            entries.remove(key, entry);
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(entry.count());
+    }
+
+    public void put(String key, long count, long startedGeneration) {
+        if (startedGeneration != generation.get()) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            long now = System.currentTimeMillis();
+            entries.values().removeIf(entry -> entry.expiresAt() < now);
+            if (entries.size() >= maxSize) {
+                entries.clear();
+            }
+        }
+        entries.put(key, new Entry(count, System.currentTimeMillis() + ttlMillis, startedGeneration));
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * トランザクションのコミット後に全て無効化し, 他のレプリカにも無効化を配信する. トランザクション外の場合は即時に無効化する.
+     */
+    public void invalidateAllAfterCommit() {
+        TransactionUtils.afterCommit(this::invalidateAll);
+        invalidationBus.publishCountInvalidation();
+    }
+
+    @Override
+    public void onInvalidate(String taskId) {
+        // Taskごとの無効化は対応するinvalidateAllAfterCommitの通知で扱う
+    }
+
+    @Override
+    public void onInvalidateCounts() {
+        invalidateAll();
+    }
+
+    @Override
+    public void onReset() {
+        // 切断中の通知を取りこぼしているため, 全て破棄する
+        invalidateAll();
+    }
+
+    private record Entry(long count, long expiresAt, long generation) {
+    }
+}
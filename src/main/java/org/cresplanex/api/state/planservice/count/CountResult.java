@@ -0,0 +1,22 @@
+package org.cresplanex.api.state.planservice.count;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class CountResult {
+
+    private long count;
+    // 件数を取得していない場合はnull
+    private CountStrategy strategy;
+    private boolean exact;
+
+    public static CountResult none() {
+        return new CountResult(0, null, false);
+    }
+
+    public static CountResult exact(long count) {
+        return new CountResult(count, CountStrategy.EXACT, true);
+    }
+}
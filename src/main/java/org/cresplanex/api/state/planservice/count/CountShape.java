@@ -0,0 +1,66 @@
+package org.cresplanex.api.state.planservice.count;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 件数取得の対象テーブルと条件の形を正規化したもの.
+ * キャッシュのキー, 推定値が利用可能かの判定に利用する.
+ */
+@Getter
+public class CountShape {
+
+    private final String table;
+    private final List<Filter> filters = new ArrayList<>();
+
+    private CountShape(String table) {
+        this.table = table;
+    }
+
+    public static CountShape of(String table) {
+        return new CountShape(table);
+    }
+
+    /**
+     * カラムのIN条件を追加. 推定値の算出対象となる.
+     *
+     * @param column カラム名
+     * @param valid 条件が有効か
+     * @param values 値
+     * @return this
+     */
+    public CountShape in(String column, boolean valid, Collection<String> values) {
+        if (valid) {
+            filters.add(new Filter(column, values.stream().distinct().sorted().toList(), true));
+        }
+        return this;
+    }
+
+    /**
+     * その他の条件を追加. nullの場合は条件なしとして扱う.
+     *
+     * @param name 条件名
+     * @param normalized 正規化した条件の値
+     * @return this
+     */
+    public CountShape other(String name, String normalized) {
+        if (normalized != null) {
+            filters.add(new Filter(name, List.of(normalized), false));
+        }
+        return this;
+    }
+
+    public String key() {
+        return table + filters.stream()
+                .map(filter -> filter.column() + "=" + String.join(",", filter.values()))
+                .sorted()
+                .collect(Collectors.joining("&", "?", ""));
+    }
+
+    public record Filter(String column, List<String> values, boolean estimable) {
+    }
+}
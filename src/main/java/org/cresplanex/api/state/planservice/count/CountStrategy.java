@@ -0,0 +1,12 @@
+package org.cresplanex.api.state.planservice.count;
+
+public enum CountStrategy {
+    // ページ取得後に同一コネクションでcount(*)を実行
+    EXACT,
+    // ページ取得と並行して別コネクションでcount(*)を実行
+    PARALLEL,
+    // 条件なし, もしくは単一条件の場合にプランナの推定値を利用(それ以外はEXACT)
+    ESTIMATE,
+    // 条件の形をキーに短時間キャッシュしたcount(*)を利用
+    CACHED,
+}
@@ -0,0 +1,190 @@
+package org.cresplanex.api.state.planservice.count;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 一覧取得の件数を設定された戦略で取得する.
+ */
+@Slf4j
+@Component
+public class ListCounter implements DisposableBean {
+
+    private final CountStrategy strategy;
+    private final CountCache countCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final ThreadPoolTaskExecutor parallelExecutor;
+    // 別コネクションで実行中の件数取得の数. 呼び出し元もコネクションを保持するため, プールの半分より十分少なくする
+    private final Semaphore parallelPermits;
+    private final long parallelTimeoutMillis;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public ListCounter(
+            @Value("${app.count.strategy:EXACT}") CountStrategy strategy,
+            @Value("${app.count.parallel.pool-size:4}") int parallelPoolSize,
+            @Value("${app.count.parallel.timeout:500ms}") Duration parallelTimeout,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize,
+            CountCache countCache,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.strategy = strategy;
+        this.countCache = countCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+
+        int parallelism = Math.max(1, Math.min(parallelPoolSize, connectionPoolSize / 4));
+        this.parallelPermits = new Semaphore(parallelism);
+        this.parallelTimeoutMillis = parallelTimeout.toMillis();
+
+        // 許可を得たものだけを渡すため, キューは持たない
+        this.parallelExecutor = new ThreadPoolTaskExecutor();
+        this.parallelExecutor.setThreadNamePrefix("list-count-");
+        this.parallelExecutor.setCorePoolSize(parallelism);
+        this.parallelExecutor.setMaxPoolSize(parallelism);
+        this.parallelExecutor.setQueueCapacity(0);
+        this.parallelExecutor.initialize();
+    }
+
+    /**
+     * 件数の取得を開始する. PARALLELの場合のみ, この時点で別スレッドでの実行を開始する.
+     *
+     * @param executor 件数取得に利用するリポジトリ
+     * @param spec ページ条件を含まない検索条件
+     * @param shape 条件の形
+     * @return 取得中の件数
+     */
+    public <E> PendingCount begin(JpaSpecificationExecutor<E> executor, Specification<E> spec, CountShape shape) {
+        return switch (strategy) {
+            case EXACT -> () -> CountResult.exact(executor.count(spec));
+            case PARALLEL -> parallel(executor, spec, shape);
+            case ESTIMATE -> () -> estimate(executor, spec, shape);
+            case CACHED -> () -> cached(executor, spec, shape);
+        };
+    }
+
+    /**
+     * 許可を得られた場合のみ, 別スレッド(別コネクション)で件数を取得する.
+     * 許可を得られない場合は, ページの取得後に呼び出し元のコネクションで取得する(EXACTと同等).
+     * 待機がparallelTimeoutを超えた場合はESTIMATEで求める.
+     */
+    private <E> PendingCount parallel(JpaSpecificationExecutor<E> executor, Specification<E> spec, CountShape shape) {
+        if (!parallelPermits.tryAcquire()) {
+            return () -> CountResult.exact(executor.count(spec));
+        }
+        CompletableFuture<Long> future;
+        try {
+            // 別スレッドのトランザクションとなるため, 別コネクションで実行される
+            future = CompletableFuture.supplyAsync(
+                    () -> readOnlyTransactionTemplate.execute(status -> executor.count(spec)),
+                    parallelExecutor
+            );
+        } catch (RuntimeException e) {
+            parallelPermits.release();
+            log.warn("Failed to start parallel count of {}", shape.key(), e);
+            return () -> CountResult.exact(executor.count(spec));
+        }
+        future.whenComplete((count, e) -> parallelPermits.release());
+        return () -> {
+            try {
+                return new CountResult(
+                        future.get(parallelTimeoutMillis, TimeUnit.MILLISECONDS), CountStrategy.PARALLEL, true);
+            } catch (TimeoutException e) {
+                // 実行中の件数取得は完了まで許可を保持するため, 取り消さずに待たない
+                return estimate(executor, spec, shape);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while counting", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Failed to count", e.getCause());
+            }
+        };
+    }
+
+    private <E> CountResult estimate(JpaSpecificationExecutor<E> executor, Specification<E> spec, CountShape shape) {
+        Long estimated = null;
+        try {
+            if (shape.getFilters().isEmpty()) {
+                estimated = estimateTable(shape.getTable());
+            } else if (shape.getFilters().size() == 1 && shape.getFilters().get(0).estimable()) {
+                estimated = estimateFilter(shape.getTable(), shape.getFilters().get(0));
+            }
+        } catch (DataAccessException e) {
+            log.warn("Failed to estimate count of {}", shape.key(), e);
+        }
+
+        if (estimated == null) {
+            return CountResult.exact(executor.count(spec));
+        }
+        return new CountResult(estimated, CountStrategy.ESTIMATE, false);
+    }
+
+    private Long estimateTable(String table) {
+        Long reltuples = jdbcTemplate.queryForObject(
+                "SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(?)",
+                Long.class,
+                table
+        );
+        // 一度もANALYZEされていない場合は-1
+        if (reltuples == null || reltuples < 0) {
+            return null;
+        }
+        return reltuples;
+    }
+
+    private Long estimateFilter(String table, CountShape.Filter filter) {
+        // テーブル名, カラム名はCountShapeの定義元で固定された値のみ
+        String plan = jdbcTemplate.query(
+                "EXPLAIN (FORMAT JSON) SELECT 1 FROM " + table + " WHERE " + filter.column() + " = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", filter.values().toArray())),
+                rs -> rs.next() ? rs.getString(1) : null
+        );
+        if (plan == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(plan).get(0).get("Plan").get("Plan Rows").asLong();
+        } catch (Exception e) {
+            log.warn("Failed to parse plan of {}", table, e);
+            return null;
+        }
+    }
+
+    private <E> CountResult cached(JpaSpecificationExecutor<E> executor, Specification<E> spec, CountShape shape) {
+        String key = shape.key();
+        OptionalLong cached = countCache.get(key);
+        if (cached.isPresent()) {
+            return new CountResult(cached.getAsLong(), CountStrategy.CACHED, false);
+        }
+
+        long generation = countCache.generation();
+        long count = executor.count(spec);
+        countCache.put(key, count, generation);
+        return new CountResult(count, CountStrategy.CACHED, true);
+    }
+
+    @Override
+    public void destroy() {
+        parallelExecutor.shutdown();
+    }
+}
@@ -0,0 +1,12 @@
+package org.cresplanex.api.state.planservice.count;
+
+@FunctionalInterface
+public interface PendingCount {
+
+    /**
+     * 件数を取得する. 並列実行の場合は完了を待機する.
+     *
+     * @return 件数
+     */
+    CountResult await();
+}
@@ -0,0 +1,77 @@
+package org.cresplanex.api.state.planservice.duplicate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.cresplanex.api.state.planservice.utils.TransactionUtils;
+import org.cresplanex.core.messaging.consumer.SubscriberIdAndMessage;
+import org.cresplanex.core.messaging.consumer.duplicate.DuplicateMessageDetector;
+
+/**
+ * テーブルによる重複検知の前段に, 処理済みのメッセージIDのメモリ上の記録を置く.
+ * 直近に処理したIDの再配信は, テーブルへの登録(一意制約違反とロールバック)を行わずに重複と判定する.
+ * それ以外はテーブルで判定するため, 厳密な重複検知はテーブルが担う.
+ * テーブルへの登録は元の実装と同じく, ハンドラと同じトランザクションで行われる.
+ */
+public class LayeredDuplicateMessageDetector implements DuplicateMessageDetector {
+
+    private final DuplicateMessageDetector delegate;
+    private final RecentMessageIds recentMessageIds;
+
+    private final Counter seenCounter;
+    private final Counter unseenCounter;
+
+    public LayeredDuplicateMessageDetector(
+            DuplicateMessageDetector delegate,
+            int recentSize,
+            MeterRegistry meterRegistry
+    ) {
+        this.delegate = delegate;
+        this.recentMessageIds = new RecentMessageIds(recentSize);
+
+        // seenはテーブルへの登録(一意制約違反とロールバック)を行わずに済んだもの
+        this.seenCounter = Counter.builder("duplicate.detector.lookups")
+                .tag("result", "seen").register(meterRegistry);
+        this.unseenCounter = Counter.builder("duplicate.detector.lookups")
+                .tag("result", "unseen").register(meterRegistry);
+    }
+
+    @Override
+    public boolean isDuplicate(String consumerId, String messageId) {
+        String key = key(consumerId, messageId);
+        if (seen(key)) {
+            return true;
+        }
+        boolean duplicate = delegate.isDuplicate(consumerId, messageId);
+        if (!duplicate) {
+            recordAfterCommit(key);
+        }
+        return duplicate;
+    }
+
+    @Override
+    public void doWithMessage(SubscriberIdAndMessage subscriberIdAndMessage, Runnable callback) {
+        String key = key(subscriberIdAndMessage.getSubscriberId(), subscriberIdAndMessage.getMessage().getId());
+        if (seen(key)) {
+            return;
+        }
+        delegate.doWithMessage(subscriberIdAndMessage, () -> {
+            callback.run();
+            // テーブルで未処理と判定され, ハンドラが完了した
+            recordAfterCommit(key);
+        });
+    }
+
+    private boolean seen(String key) {
+        boolean seen = recentMessageIds.contains(key);
+        (seen ? seenCounter : unseenCounter).increment();
+        return seen;
+    }
+
+    private void recordAfterCommit(String key) {
+        TransactionUtils.afterCommit(() -> recentMessageIds.add(key));
+    }
+
+    private static String key(String consumerId, String messageId) {
+        return consumerId + "\u0000" + messageId;
+    }
+}
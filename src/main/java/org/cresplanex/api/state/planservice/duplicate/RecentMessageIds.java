@@ -0,0 +1,30 @@
+package org.cresplanex.api.state.planservice.duplicate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 直近に処理したメッセージIDの記録(LRU). 含まれる場合は確実に処理済み.
+ * 記録するのはreceived_messagesへの登録がコミットされたIDのみとする.
+ */
+class RecentMessageIds {
+
+    private final Map<String, Boolean> recent;
+
+    RecentMessageIds(int recentSize) {
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > recentSize;
+            }
+        };
+    }
+
+    synchronized boolean contains(String key) {
+        return recent.containsKey(key);
+    }
+
+    synchronized void add(String key) {
+        recent.put(key, Boolean.TRUE);
+    }
+}
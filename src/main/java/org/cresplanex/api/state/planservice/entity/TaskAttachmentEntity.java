@@ -14,7 +14,7 @@ import org.hibernate.Hibernate;
 @NoArgsConstructor
 @Table(name = "task_attachments", indexes = {
         @Index(name = "task_attachments_task_id_index", columnList = "task_id"),
-        @Index(name = "task_attachments_file_object_id_index", columnList = "file_object_id"),
+        @Index(name = "task_attachments_file_object_id_task_id_index", columnList = "file_object_id, task_id"),
         @Index(name = "task_attachments_task_id_file_object_id_index", columnList = "task_id, file_object_id", unique = true)
 })
 public class TaskAttachmentEntity extends BaseEntity<TaskAttachmentEntity> {
@@ -19,12 +19,21 @@ import java.util.List;
 @ToString
 @AllArgsConstructor
 @NoArgsConstructor
+// INCLUDE列はマイグレーション(V20241201_100000)でのみ定義
 @Table(name = "tasks", indexes = {
-        @Index(name = "tasks_team_id_index", columnList = "team_id"),
-        @Index(name = "tasks_charge_user_id_index", columnList = "charge_user_id"),
         @Index(name = "tasks_status_index", columnList = "status"),
-        @Index(name = "tasks_start_datetime_index", columnList = "start_datetime"),
-        @Index(name = "tasks_due_datetime_index", columnList = "duw_datetime")
+        @Index(name = "tasks_created_at_task_id_index", columnList = "created_at, task_id"),
+        @Index(name = "tasks_title_asc_index", columnList = "title ASC, created_at DESC, task_id DESC"),
+        @Index(name = "tasks_title_desc_index", columnList = "title DESC, created_at DESC, task_id DESC"),
+        @Index(name = "tasks_start_datetime_asc_index", columnList = "start_datetime ASC, created_at DESC, task_id DESC"),
+        @Index(name = "tasks_start_datetime_desc_index", columnList = "start_datetime DESC, created_at DESC, task_id DESC"),
+        @Index(name = "tasks_due_datetime_asc_index", columnList = "due_datetime ASC, created_at DESC, task_id DESC"),
+        @Index(name = "tasks_due_datetime_desc_index", columnList = "due_datetime DESC, created_at DESC, task_id DESC"),
+        @Index(name = "tasks_team_id_created_at_index", columnList = "team_id, created_at, task_id"),
+        @Index(name = "tasks_team_id_due_datetime_index", columnList = "team_id, due_datetime ASC, created_at DESC, task_id DESC"),
+        @Index(name = "tasks_team_id_due_datetime_desc_index", columnList = "team_id, due_datetime DESC, created_at DESC, task_id DESC"),
+        @Index(name = "tasks_charge_user_id_due_datetime_index", columnList = "charge_user_id, due_datetime ASC, created_at DESC, task_id DESC"),
+        @Index(name = "tasks_charge_user_id_due_datetime_desc_index", columnList = "charge_user_id, due_datetime DESC, created_at DESC, task_id DESC")
 })
 public class TaskEntity extends BaseEntity<TaskEntity> {
 
@@ -0,0 +1,27 @@
+package org.cresplanex.api.state.planservice.event.model;
+
+/**
+ * 複数のTaskをまとめて作成するジョブ(CreateTasksSaga)のイベントの種類.
+ * 成功時のペイロード(CreateTasksResultData)が単一のTaskの作成と異なるため, TaskCreatedとは別の種類とする.
+ */
+public final class TasksCreated {
+
+    private TasksCreated() {
+    }
+
+    public static final class BeginJobDomainEvent {
+        public static final String TYPE = "org.cresplanex.api.state.planservice.event.model.TasksCreated.BeginJobDomainEvent";
+    }
+
+    public static final class ProcessedJobDomainEvent {
+        public static final String TYPE = "org.cresplanex.api.state.planservice.event.model.TasksCreated.ProcessedJobDomainEvent";
+    }
+
+    public static final class FailedJobDomainEvent {
+        public static final String TYPE = "org.cresplanex.api.state.planservice.event.model.TasksCreated.FailedJobDomainEvent";
+    }
+
+    public static final class SuccessJobDomainEvent {
+        public static final String TYPE = "org.cresplanex.api.state.planservice.event.model.TasksCreated.SuccessJobDomainEvent";
+    }
+}
@@ -0,0 +1,27 @@
+package org.cresplanex.api.state.planservice.event.model;
+
+/**
+ * 複数のTaskの状態をまとめて更新するジョブ(UpdateTasksStatusSaga)のイベントの種類.
+ * 成功時のペイロード(UpdateTasksStatusResultData)が単一のTaskの更新と異なるため, TaskUpdatedStatusとは別の種類とする.
+ */
+public final class TasksUpdatedStatus {
+
+    private TasksUpdatedStatus() {
+    }
+
+    public static final class BeginJobDomainEvent {
+        public static final String TYPE = "org.cresplanex.api.state.planservice.event.model.TasksUpdatedStatus.BeginJobDomainEvent";
+    }
+
+    public static final class ProcessedJobDomainEvent {
+        public static final String TYPE = "org.cresplanex.api.state.planservice.event.model.TasksUpdatedStatus.ProcessedJobDomainEvent";
+    }
+
+    public static final class FailedJobDomainEvent {
+        public static final String TYPE = "org.cresplanex.api.state.planservice.event.model.TasksUpdatedStatus.FailedJobDomainEvent";
+    }
+
+    public static final class SuccessJobDomainEvent {
+        public static final String TYPE = "org.cresplanex.api.state.planservice.event.model.TasksUpdatedStatus.SuccessJobDomainEvent";
+    }
+}
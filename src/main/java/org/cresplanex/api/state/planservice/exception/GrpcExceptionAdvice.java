@@ -65,6 +65,13 @@ public class GrpcExceptionAdvice {
                 .withCause(e);
     }
 
+    @GrpcExceptionHandler(InvalidCursorException.class)
+    public Status handleInvalidCursorException(InvalidCursorException e) {
+        return Status.INVALID_ARGUMENT
+                .withDescription(e.getMessage())
+                .withCause(e);
+    }
+
      private PlanServiceErrorMeta buildErrorMeta(ServiceException e) {
          return PlanServiceErrorMeta.newBuilder()
                  .setCode(e.getServiceErrorCode())
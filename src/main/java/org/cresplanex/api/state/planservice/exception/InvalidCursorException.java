@@ -0,0 +1,19 @@
+package org.cresplanex.api.state.planservice.exception;
+
+import lombok.Getter;
+
+@Getter
+public class InvalidCursorException extends RuntimeException {
+
+    private final String cursor;
+
+    public InvalidCursorException(String cursor) {
+        super("Invalid cursor: " + cursor);
+        this.cursor = cursor;
+    }
+
+    public InvalidCursorException(String cursor, Throwable cause) {
+        super("Invalid cursor: " + cursor, cause);
+        this.cursor = cursor;
+    }
+}
@@ -0,0 +1,75 @@
+package org.cresplanex.api.state.planservice.handler;
+
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * クライアントが受信可能(isReady)になるまで待機してから送信する.
+ * 送信は呼び出しのコールバックとは別のスレッドから行う必要がある.
+ * 受信が止まったまま待機の上限を超えた場合はDEADLINE_EXCEEDEDで失敗させ, スレッドとコネクションを解放する.
+ */
+public class FlowControlledStreamWriter<T> {
+
+    private static final long READY_WAIT_MILLIS = 1000;
+
+    private final ServerCallStreamObserver<T> observer;
+    private final long stallTimeoutNanos;
+    private final Object lock = new Object();
+
+    /**
+     * 呼び出しのハンドラ内(メソッドから戻る前)で生成する必要がある.
+     *
+     * @param responseObserver レスポンスのオブザーバ
+     * @param stallTimeout 1回の送信で受信可能になるまで待つ時間の上限
+     */
+    public FlowControlledStreamWriter(StreamObserver<T> responseObserver, Duration stallTimeout) {
+        this.observer = (ServerCallStreamObserver<T>) responseObserver;
+        this.stallTimeoutNanos = stallTimeout.toNanos();
+        this.observer.setOnReadyHandler(this::signal);
+        this.observer.setOnCancelHandler(this::signal);
+    }
+
+    public void write(T value) {
+        synchronized (lock) {
+            long deadline = System.nanoTime() + stallTimeoutNanos;
+            while (!observer.isReady()) {
+                if (observer.isCancelled()) {
+                    throw Status.CANCELLED.withDescription("Stream cancelled by client").asRuntimeException();
+                }
+                long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    throw Status.DEADLINE_EXCEEDED
+                            .withDescription("Client did not read the stream within " + Duration.ofNanos(stallTimeoutNanos))
+                            .asRuntimeException();
+                }
+                try {
+                    lock.wait(Math.max(1, Math.min(READY_WAIT_MILLIS, TimeUnit.NANOSECONDS.toMillis(remainingNanos))));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw Status.CANCELLED.withDescription("Stream interrupted").withCause(e).asRuntimeException();
+                }
+            }
+        }
+        observer.onNext(value);
+    }
+
+    public void complete() {
+        observer.onCompleted();
+    }
+
+    public void fail(Throwable e) {
+        if (!observer.isCancelled()) {
+            observer.onError(Status.fromThrowable(e).asRuntimeException());
+        }
+    }
+
+    private void signal() {
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package org.cresplanex.api.state.planservice.handler;
+
+import build.buf.gen.plan.v1.CreateTaskRequest;
+import build.buf.gen.plan.v1.CreateTaskResponse;
+import build.buf.gen.plan.v1.UpdateTaskStatusRequest;
+import build.buf.gen.plan.v1.UpdateTaskStatusResponse;
+import io.grpc.BindableService;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.server.service.GrpcService;
+import org.cresplanex.api.state.planservice.saga.state.task.CreateTasksSagaState;
+import org.cresplanex.api.state.planservice.service.TaskService;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 複数件をまとめて処理するRPC.
+ * メッセージはPlanServiceのものを利用し, クライアントストリーミングで複数のリクエストを受け取り, 1つのジョブとして処理する.
+ */
+@Slf4j
+@GrpcService
+public class PlanBulkServiceHandler implements BindableService {
+
+    public static final String SERVICE_NAME = "plan.v1.PlanBulkService";
+
+    public static final MethodDescriptor<CreateTaskRequest, CreateTaskResponse> CREATE_TASKS_METHOD =
+            MethodDescriptor.<CreateTaskRequest, CreateTaskResponse>newBuilder()
+                    .setType(MethodDescriptor.MethodType.CLIENT_STREAMING)
+                    .setFullMethodName(MethodDescriptor.generateFullMethodName(SERVICE_NAME, "CreateTasks"))
+                    .setRequestMarshaller(ProtoUtils.marshaller(CreateTaskRequest.getDefaultInstance()))
+                    .setResponseMarshaller(ProtoUtils.marshaller(CreateTaskResponse.getDefaultInstance()))
+                    .build();
+
+    public static final MethodDescriptor<UpdateTaskStatusRequest, UpdateTaskStatusResponse> UPDATE_TASKS_STATUS_METHOD =
+            MethodDescriptor.<UpdateTaskStatusRequest, UpdateTaskStatusResponse>newBuilder()
+                    .setType(MethodDescriptor.MethodType.CLIENT_STREAMING)
+                    .setFullMethodName(MethodDescriptor.generateFullMethodName(SERVICE_NAME, "UpdateTasksStatus"))
+                    .setRequestMarshaller(ProtoUtils.marshaller(UpdateTaskStatusRequest.getDefaultInstance()))
+                    .setResponseMarshaller(ProtoUtils.marshaller(UpdateTaskStatusResponse.getDefaultInstance()))
+                    .build();
+
+    private final TaskService taskService;
+    private final int maxItems;
+
+    public PlanBulkServiceHandler(
+            TaskService taskService,
+            @Value("${app.bulk.max-items:1000}") int maxItems
+    ) {
+        this.taskService = taskService;
+        this.maxItems = maxItems;
+    }
+
+    @Override
+    public ServerServiceDefinition bindService() {
+        return ServerServiceDefinition.builder(SERVICE_NAME)
+                .addMethod(CREATE_TASKS_METHOD, ServerCalls.asyncClientStreamingCall(this::createTasks))
+                .addMethod(UPDATE_TASKS_STATUS_METHOD, ServerCalls.asyncClientStreamingCall(this::updateTasksStatus))
+                .build();
+    }
+
+    /**
+     * 受け取ったすべてのTaskを1つのジョブ(CreateTasksSaga)で作成する.
+     * 操作者は最初のリクエストのものを利用する.
+     * 作成結果はジョブの成功イベントにリクエストの順序で含まれる.
+     */
+    public StreamObserver<CreateTaskRequest> createTasks(StreamObserver<CreateTaskResponse> responseObserver) {
+        return new StreamObserver<>() {
+            private final List<CreateTasksSagaState.InitialData.Task> tasks = new ArrayList<>();
+            private String operatorId;
+            private boolean failed;
+
+            @Override
+            public void onNext(CreateTaskRequest request) {
+                if (failed) {
+                    return;
+                }
+                if (tasks.size() >= maxItems) {
+                    failed = true;
+                    responseObserver.onError(Status.INVALID_ARGUMENT
+                            .withDescription("Too many tasks in one request: max " + maxItems)
+                            .asRuntimeException());
+                    return;
+                }
+                if (operatorId == null) {
+                    operatorId = request.getOperatorId();
+                }
+                tasks.add(CreateTasksSagaState.InitialData.Task.builder()
+                        .teamId(request.getTeamId())
+                        .chargeUserId(request.getChargeUserId())
+                        .title(request.getTitle())
+                        .description(request.getDescription())
+                        .startDatetime(request.getStartDatetime())
+                        .dueDatetime(request.getDueDatetime())
+                        .attachmentFileObjects(request.getAttachmentsList().stream()
+                                .map(attachment -> CreateTasksSagaState.InitialData.FileObject.builder()
+                                        .fileObjectId(attachment.getFileObjectId())
+                                        .build())
+                                .toList())
+                        .build());
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                log.debug("CreateTasks cancelled by client: {}", t.getMessage());
+            }
+
+            @Override
+            public void onCompleted() {
+                if (failed) {
+                    return;
+                }
+                if (tasks.isEmpty()) {
+                    responseObserver.onError(Status.INVALID_ARGUMENT
+                            .withDescription("No tasks to create")
+                            .asRuntimeException());
+                    return;
+                }
+
+                String jobId = taskService.beginCreateTasks(operatorId, tasks);
+                CreateTaskResponse response = CreateTaskResponse.newBuilder()
+                        .setJobId(jobId)
+                        .build();
+
+                responseObserver.onNext(response);
+                responseObserver.onCompleted();
+            }
+        };
+    }
+
+    /**
+     * 受け取ったすべてのTaskのステータスを1つのジョブ(UpdateTasksStatusSaga)で更新する.
+     * ステータス, 操作者は最初のリクエストのものを利用し, 異なるステータスを含む場合はエラーとする.
+     */
+    public StreamObserver<UpdateTaskStatusRequest> updateTasksStatus(StreamObserver<UpdateTaskStatusResponse> responseObserver) {
+        return new StreamObserver<>() {
+            private final List<String> taskIds = new ArrayList<>();
+            private String operatorId;
+            private String status;
+            private boolean failed;
+
+            @Override
+            public void onNext(UpdateTaskStatusRequest request) {
+                if (failed) {
+                    return;
+                }
+                if (taskIds.size() >= maxItems) {
+                    fail("Too many tasks in one request: max " + maxItems);
+                    return;
+                }
+                if (status == null) {
+                    operatorId = request.getOperatorId();
+                    status = request.getStatus();
+                } else if (!status.equals(request.getStatus())) {
+                    fail("All requests must have the same status");
+                    return;
+                }
+                taskIds.add(request.getTaskId());
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                log.debug("UpdateTasksStatus cancelled by client: {}", t.getMessage());
+            }
+
+            @Override
+            public void onCompleted() {
+                if (failed) {
+                    return;
+                }
+                if (taskIds.isEmpty()) {
+                    responseObserver.onError(Status.INVALID_ARGUMENT
+                            .withDescription("No tasks to update")
+                            .asRuntimeException());
+                    return;
+                }
+
+                String jobId = taskService.beginUpdateTasksStatus(operatorId, taskIds, status);
+                UpdateTaskStatusResponse response = UpdateTaskStatusResponse.newBuilder()
+                        .setJobId(jobId)
+                        .build();
+
+                responseObserver.onNext(response);
+                responseObserver.onCompleted();
+            }
+
+            private void fail(String description) {
+                failed = true;
+                responseObserver.onError(Status.INVALID_ARGUMENT
+                        .withDescription(description)
+                        .asRuntimeException());
+            }
+        };
+    }
+}
@@ -3,7 +3,6 @@ package org.cresplanex.api.state.planservice.handler;
 import build.buf.gen.cresplanex.nova.v1.Count;
 import build.buf.gen.cresplanex.nova.v1.SortOrder;
 import build.buf.gen.plan.v1.*;
-import org.cresplanex.api.state.common.entity.ListEntityWithCount;
 import org.cresplanex.api.state.common.enums.PaginationType;
 import org.cresplanex.api.state.planservice.entity.TaskEntity;
 import org.cresplanex.api.state.planservice.entity.TaskAttachmentEntity;
@@ -12,11 +11,18 @@ import org.cresplanex.api.state.planservice.enums.TaskOnFileObjectSortType;
 import org.cresplanex.api.state.planservice.enums.TaskSortType;
 import org.cresplanex.api.state.planservice.enums.TaskWithFileObjectsSortType;
 import org.cresplanex.api.state.planservice.filter.task.*;
+import org.cresplanex.api.state.planservice.interceptor.ResponseHeaderServerInterceptor;
 import org.cresplanex.api.state.planservice.mapper.proto.ProtoMapper;
+import org.cresplanex.api.state.planservice.mapper.proto.ProtoRequestMapper;
+import org.cresplanex.api.state.planservice.pagination.ListEntityWithCursor;
+import org.cresplanex.api.state.planservice.projection.ReadPath;
+import org.cresplanex.api.state.planservice.projection.ReadPathProperties;
+import org.cresplanex.api.state.planservice.projection.TaskView;
 
 import io.grpc.stub.StreamObserver;
 import lombok.RequiredArgsConstructor;
 import net.devh.boot.grpc.server.service.GrpcService;
+import org.cresplanex.api.state.planservice.service.CachedTaskService;
 import org.cresplanex.api.state.planservice.service.TaskService;
 
 import java.time.LocalDateTime;
@@ -28,10 +34,12 @@ import java.util.List;
 public class PlanServiceHandler extends PlanServiceGrpc.PlanServiceImplBase {
 
     private final TaskService taskService;
+    private final CachedTaskService cachedTaskService;
+    private final ReadPathProperties readPathProperties;
 
     @Override
     public void findTask(FindTaskRequest request, StreamObserver<FindTaskResponse> responseObserver) {
-        TaskEntity task = taskService.findById(request.getTaskId());
+        TaskEntity task = cachedTaskService.findById(request.getTaskId());
 
         Task taskProto = ProtoMapper.convert(task);
         FindTaskResponse response = FindTaskResponse.newBuilder()
@@ -44,7 +52,7 @@ public class PlanServiceHandler extends PlanServiceGrpc.PlanServiceImplBase {
 
     @Override
     public void findTaskWithAttachments(FindTaskWithAttachmentsRequest request, StreamObserver<FindTaskWithAttachmentsResponse> responseObserver) {
-        TaskEntity task = taskService.findByIdWithAttachments(request.getTaskId());
+        TaskEntity task = cachedTaskService.findByIdWithAttachments(request.getTaskId());
 
         TaskWithAttachments taskProto = ProtoMapper.convertWithFileObjects(task);
         FindTaskWithAttachmentsResponse response = FindTaskWithAttachmentsResponse.newBuilder()
@@ -57,16 +65,8 @@ public class PlanServiceHandler extends PlanServiceGrpc.PlanServiceImplBase {
 
     @Override
     public void getTasks(GetTasksRequest request, StreamObserver<GetTasksResponse> responseObserver) {
-        TaskSortType sortType = switch (request.getSort().getOrderField()) {
-            case TASK_ORDER_FIELD_TITLE -> (request.getSort().getOrder() == SortOrder.SORT_ORDER_ASC) ?
-                    TaskSortType.TITLE_ASC : TaskSortType.TITLE_DESC;
-            case TASK_ORDER_FIELD_START_DATETIME -> (request.getSort().getOrder() == SortOrder.SORT_ORDER_ASC) ?
-                    TaskSortType.START_DATETIME_ASC : TaskSortType.START_DATETIME_DESC;
-            case TASK_ORDER_FIELD_DUE_DATETIME -> (request.getSort().getOrder() == SortOrder.SORT_ORDER_ASC) ?
-                    TaskSortType.DUE_DATETIME_ASC : TaskSortType.DUE_DATETIME_DESC;
-            default -> (request.getSort().getOrder() == SortOrder.SORT_ORDER_ASC) ?
-                    TaskSortType.CREATED_AT_ASC : TaskSortType.CREATED_AT_DESC;
-        };
+        TaskSortType sortType = ProtoRequestMapper.taskSortType(
+                request.getSort().getOrderField(), request.getSort().getOrder());
         PaginationType paginationType;
         switch (request.getPagination().getType()) {
             case PAGINATION_TYPE_CURSOR -> paginationType = PaginationType.CURSOR;
@@ -74,43 +74,32 @@ public class PlanServiceHandler extends PlanServiceGrpc.PlanServiceImplBase {
             default -> paginationType = PaginationType.NONE;
         }
 
-        TeamFilter teamFilter = new TeamFilter(
-                request.getFilterTeam().getHasValue(), request.getFilterTeam().getTeamIdsList()
-        );
-
-        StatusFilter statusFilter = new StatusFilter(
-                request.getFilterStatus().getHasValue(), request.getFilterStatus().getStatusesList()
-        );
-
-        ChargeUserFilter chargeUserFilter = new ChargeUserFilter(
-                request.getFilterChargeUser().getHasValue(), request.getFilterChargeUser().getChargeUserIdsList()
-        );
-
-        FileObjectsFilter fileObjectsFilter = new FileObjectsFilter(
-                request.getFilterFileObject().getHasValue(), request.getFilterFileObject().getAny(), request.getFilterFileObject().getFileObjectIdsList()
-        );
-
-        StartDatetimeFilter startDatetimeFilter = new StartDatetimeFilter(
-                request.getFilterStartDatetime().getEarlierInfinite(),
-                request.getFilterStartDatetime().getLaterInfinite(),
-                request.getFilterStartDatetime().getEarlierThan(),
-                request.getFilterStartDatetime().getLaterThan()
-        );
-
-        DueDatetimeFilter dueDatetimeFilter = new DueDatetimeFilter(
-                request.getFilterDueDatetime().getEarlierInfinite(),
-                request.getFilterDueDatetime().getLaterInfinite(),
-                request.getFilterDueDatetime().getEarlierThan(),
-                request.getFilterDueDatetime().getLaterThan()
-        );
-
-        ListEntityWithCount<TaskEntity> tasks = taskService.get(
-                paginationType, request.getPagination().getLimit(), request.getPagination().getOffset(),
-                request.getPagination().getCursor(), sortType, request.getWithCount(), teamFilter, statusFilter,
-                chargeUserFilter, fileObjectsFilter, startDatetimeFilter, dueDatetimeFilter);
-
-        List<Task> taskProtos = tasks.getData().stream()
-                .map(ProtoMapper::convert).toList();
+        TeamFilter teamFilter = ProtoRequestMapper.teamFilter(request);
+        StatusFilter statusFilter = ProtoRequestMapper.statusFilter(request);
+        ChargeUserFilter chargeUserFilter = ProtoRequestMapper.chargeUserFilter(request);
+        FileObjectsFilter fileObjectsFilter = ProtoRequestMapper.fileObjectsFilter(request);
+        StartDatetimeFilter startDatetimeFilter = ProtoRequestMapper.startDatetimeFilter(request);
+        DueDatetimeFilter dueDatetimeFilter = ProtoRequestMapper.dueDatetimeFilter(request);
+
+        ListEntityWithCursor<?> tasks;
+        List<Task> taskProtos;
+        if (readPathProperties.getTasks() == ReadPath.PROJECTION) {
+            ListEntityWithCursor<TaskView> views = taskService.getViews(
+                    paginationType, request.getPagination().getLimit(), request.getPagination().getOffset(),
+                    request.getPagination().getCursor(), sortType, request.getWithCount(), teamFilter, statusFilter,
+                    chargeUserFilter, fileObjectsFilter, startDatetimeFilter, dueDatetimeFilter);
+            taskProtos = views.getData().stream()
+                    .map(ProtoMapper::convert).toList();
+            tasks = views;
+        } else {
+            ListEntityWithCursor<TaskEntity> entities = taskService.get(
+                    paginationType, request.getPagination().getLimit(), request.getPagination().getOffset(),
+                    request.getPagination().getCursor(), sortType, request.getWithCount(), teamFilter, statusFilter,
+                    chargeUserFilter, fileObjectsFilter, startDatetimeFilter, dueDatetimeFilter);
+            taskProtos = entities.getData().stream()
+                    .map(ProtoMapper::convert).toList();
+            tasks = entities;
+        }
         GetTasksResponse response = GetTasksResponse.newBuilder()
                 .addAllTasks(taskProtos)
                 .setCount(
@@ -119,6 +108,7 @@ public class PlanServiceHandler extends PlanServiceGrpc.PlanServiceImplBase {
                 )
                 .build();
 
+        setListResponseHeaders(tasks);
         responseObserver.onNext(response);
         responseObserver.onCompleted();
     }
@@ -172,7 +162,7 @@ public class PlanServiceHandler extends PlanServiceGrpc.PlanServiceImplBase {
                 request.getFilterDueDatetime().getLaterThan()
         );
 
-        ListEntityWithCount<TaskEntity> tasks = taskService.getWithAttachments(
+        ListEntityWithCursor<TaskEntity> tasks = taskService.getWithAttachments(
                 paginationType, request.getPagination().getLimit(), request.getPagination().getOffset(),
                 request.getPagination().getCursor(), sortType, request.getWithCount(), teamFilter, statusFilter,
                 chargeUserFilter, fileObjectsFilter, startDatetimeFilter, dueDatetimeFilter);
@@ -187,23 +177,20 @@ public class PlanServiceHandler extends PlanServiceGrpc.PlanServiceImplBase {
                 )
                 .build();
 
+        setListResponseHeaders(tasks);
         responseObserver.onNext(response);
         responseObserver.onCompleted();
     }
 
     @Override
     public void getPluralTasks(GetPluralTasksRequest request, StreamObserver<GetPluralTasksResponse> responseObserver) {
-        TaskSortType sortType = switch (request.getSort().getOrderField()) {
-            case TASK_ORDER_FIELD_TITLE -> (request.getSort().getOrder() == SortOrder.SORT_ORDER_ASC) ?
-                    TaskSortType.TITLE_ASC : TaskSortType.TITLE_DESC;
-            case TASK_ORDER_FIELD_START_DATETIME -> (request.getSort().getOrder() == SortOrder.SORT_ORDER_ASC) ?
-                    TaskSortType.START_DATETIME_ASC : TaskSortType.START_DATETIME_DESC;
-            case TASK_ORDER_FIELD_DUE_DATETIME -> (request.getSort().getOrder() == SortOrder.SORT_ORDER_ASC) ?
-                    TaskSortType.DUE_DATETIME_ASC : TaskSortType.DUE_DATETIME_DESC;
-            default -> (request.getSort().getOrder() == SortOrder.SORT_ORDER_ASC) ?
-                    TaskSortType.CREATED_AT_ASC : TaskSortType.CREATED_AT_DESC;
-        };
-        List<Task> taskProtos = this.taskService.getByTaskIds(
+        TaskSortType sortType = ProtoRequestMapper.taskSortType(
+                request.getSort().getOrderField(), request.getSort().getOrder());
+        List<Task> taskProtos = readPathProperties.getPluralTasks() == ReadPath.PROJECTION
+                ? this.taskService.getViewsByTaskIds(
+                        request.getTaskIdsList(), sortType).stream()
+                .map(ProtoMapper::convert).toList()
+                : this.taskService.getByTaskIds(
                         request.getTaskIdsList(), sortType).stream()
                 .map(ProtoMapper::convert).toList();
         GetPluralTasksResponse response = GetPluralTasksResponse.newBuilder()
@@ -249,7 +236,7 @@ public class PlanServiceHandler extends PlanServiceGrpc.PlanServiceImplBase {
             default -> paginationType = PaginationType.NONE;
         }
 
-        ListEntityWithCount<TaskAttachmentEntity> tasks = taskService.getFileObjectsOnTask(
+        ListEntityWithCursor<TaskAttachmentEntity> tasks = taskService.getFileObjectsOnTask(
                 request.getTaskId(), paginationType, request.getPagination().getLimit(), request.getPagination().getOffset(),
                 request.getPagination().getCursor(), sortType, request.getWithCount());
 
@@ -264,6 +251,7 @@ public class PlanServiceHandler extends PlanServiceGrpc.PlanServiceImplBase {
                 )
                 .build();
 
+        setListResponseHeaders(tasks);
         responseObserver.onNext(response);
         responseObserver.onCompleted();
     }
@@ -291,7 +279,7 @@ public class PlanServiceHandler extends PlanServiceGrpc.PlanServiceImplBase {
             default -> paginationType = PaginationType.NONE;
         }
 
-        ListEntityWithCount<TaskAttachmentEntity> tasks = taskService.getTasksOnFileObject(
+        ListEntityWithCursor<TaskAttachmentEntity> tasks = taskService.getTasksOnFileObject(
                 request.getFileObjectId(), paginationType, request.getPagination().getLimit(), request.getPagination().getOffset(),
                 request.getPagination().getCursor(), sortType, request.getWithCount());
 
@@ -306,6 +294,7 @@ public class PlanServiceHandler extends PlanServiceGrpc.PlanServiceImplBase {
                 )
                 .build();
 
+        setListResponseHeaders(tasks);
         responseObserver.onNext(response);
         responseObserver.onCompleted();
     }
@@ -351,4 +340,16 @@ public class PlanServiceHandler extends PlanServiceGrpc.PlanServiceImplBase {
         responseObserver.onNext(response);
         responseObserver.onCompleted();
     }
+
+    // protoに含まれない次ページのカーソルと件数の取得方法をレスポンスヘッダで返す
+    private void setListResponseHeaders(ListEntityWithCursor<?> list) {
+        ResponseHeaderServerInterceptor.setHeader(
+                ResponseHeaderServerInterceptor.NEXT_CURSOR, list.getNextCursor());
+        if (list.getCountResult().getStrategy() != null) {
+            ResponseHeaderServerInterceptor.setHeader(
+                    ResponseHeaderServerInterceptor.COUNT_STRATEGY, list.getCountResult().getStrategy().name());
+            ResponseHeaderServerInterceptor.setHeader(
+                    ResponseHeaderServerInterceptor.COUNT_EXACT, String.valueOf(list.getCountResult().isExact()));
+        }
+    }
 }
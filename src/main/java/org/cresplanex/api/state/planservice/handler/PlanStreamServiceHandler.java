@@ -0,0 +1,167 @@
+package org.cresplanex.api.state.planservice.handler;
+
+import build.buf.gen.cresplanex.nova.v1.Count;
+import build.buf.gen.plan.v1.*;
+import io.grpc.BindableService;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.server.service.GrpcService;
+import org.cresplanex.api.state.planservice.enums.TaskSortType;
+import org.cresplanex.api.state.planservice.exception.ServiceException;
+import org.cresplanex.api.state.planservice.filter.task.*;
+import org.cresplanex.api.state.planservice.mapper.proto.ProtoMapper;
+import org.cresplanex.api.state.planservice.mapper.proto.ProtoRequestMapper;
+import org.cresplanex.api.state.planservice.service.TaskService;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * GetTasks, GetPluralTasksのサーバーストリーミング版.
+ * 結果をJDBCのカーソルから読み込み, chunk-size件ずつのレスポンスとして送信するため, 結果の件数によらずメモリ使用量は一定.
+ * メッセージはPlanServiceのものを利用し, ページネーションの指定は無視して全件を返す.
+ * 件数(with_count)は最後のレスポンスにのみ設定する.
+ */
+@Slf4j
+@GrpcService
+public class PlanStreamServiceHandler implements BindableService, DisposableBean {
+
+    public static final String SERVICE_NAME = "plan.v1.PlanStreamService";
+
+    public static final MethodDescriptor<GetTasksRequest, GetTasksResponse> STREAM_TASKS_METHOD =
+            MethodDescriptor.<GetTasksRequest, GetTasksResponse>newBuilder()
+                    .setType(MethodDescriptor.MethodType.SERVER_STREAMING)
+                    .setFullMethodName(MethodDescriptor.generateFullMethodName(SERVICE_NAME, "StreamTasks"))
+                    .setRequestMarshaller(ProtoUtils.marshaller(GetTasksRequest.getDefaultInstance()))
+                    .setResponseMarshaller(ProtoUtils.marshaller(GetTasksResponse.getDefaultInstance()))
+                    .build();
+
+    public static final MethodDescriptor<GetPluralTasksRequest, GetPluralTasksResponse> STREAM_PLURAL_TASKS_METHOD =
+            MethodDescriptor.<GetPluralTasksRequest, GetPluralTasksResponse>newBuilder()
+                    .setType(MethodDescriptor.MethodType.SERVER_STREAMING)
+                    .setFullMethodName(MethodDescriptor.generateFullMethodName(SERVICE_NAME, "StreamPluralTasks"))
+                    .setRequestMarshaller(ProtoUtils.marshaller(GetPluralTasksRequest.getDefaultInstance()))
+                    .setResponseMarshaller(ProtoUtils.marshaller(GetPluralTasksResponse.getDefaultInstance()))
+                    .build();
+
+    private final TaskService taskService;
+    private final int chunkSize;
+    private final Duration stallTimeout;
+    // DBの読み込みと送信待機は, 呼び出しのコールバックとは別のスレッドで行う
+    private final ThreadPoolTaskExecutor streamExecutor;
+
+    public PlanStreamServiceHandler(
+            TaskService taskService,
+            @Value("${app.stream.chunk-size:500}") int chunkSize,
+            @Value("${app.stream.pool-size:8}") int poolSize,
+            @Value("${app.stream.stall-timeout:30s}") Duration stallTimeout
+    ) {
+        this.taskService = taskService;
+        this.chunkSize = chunkSize;
+        this.stallTimeout = stallTimeout;
+        this.streamExecutor = new ThreadPoolTaskExecutor();
+        this.streamExecutor.setThreadNamePrefix("task-stream-");
+        this.streamExecutor.setCorePoolSize(poolSize);
+        this.streamExecutor.setMaxPoolSize(poolSize);
+        this.streamExecutor.setQueueCapacity(poolSize * 4);
+        this.streamExecutor.initialize();
+    }
+
+    @Override
+    public ServerServiceDefinition bindService() {
+        return ServerServiceDefinition.builder(SERVICE_NAME)
+                .addMethod(STREAM_TASKS_METHOD, ServerCalls.asyncServerStreamingCall(this::streamTasks))
+                .addMethod(STREAM_PLURAL_TASKS_METHOD, ServerCalls.asyncServerStreamingCall(this::streamPluralTasks))
+                .build();
+    }
+
+    public void streamTasks(GetTasksRequest request, StreamObserver<GetTasksResponse> responseObserver) {
+        TaskSortType sortType = ProtoRequestMapper.taskSortType(
+                request.getSort().getOrderField(), request.getSort().getOrder());
+
+        TeamFilter teamFilter = ProtoRequestMapper.teamFilter(request);
+        StatusFilter statusFilter = ProtoRequestMapper.statusFilter(request);
+        ChargeUserFilter chargeUserFilter = ProtoRequestMapper.chargeUserFilter(request);
+        FileObjectsFilter fileObjectsFilter = ProtoRequestMapper.fileObjectsFilter(request);
+        StartDatetimeFilter startDatetimeFilter = ProtoRequestMapper.startDatetimeFilter(request);
+        DueDatetimeFilter dueDatetimeFilter = ProtoRequestMapper.dueDatetimeFilter(request);
+
+        FlowControlledStreamWriter<GetTasksResponse> writer = new FlowControlledStreamWriter<>(responseObserver, stallTimeout);
+        AtomicInteger total = new AtomicInteger();
+        run(writer, () -> taskService.stream(
+                chunkSize, sortType, teamFilter, statusFilter, chargeUserFilter,
+                fileObjectsFilter, startDatetimeFilter, dueDatetimeFilter,
+                (chunk, last) -> {
+                    List<Task> taskProtos = chunk.stream()
+                            .map(ProtoMapper::convert).toList();
+                    GetTasksResponse.Builder response = GetTasksResponse.newBuilder()
+                            .addAllTasks(taskProtos);
+                    if (last) {
+                        response.setCount(
+                                Count.newBuilder().setIsValid(request.getWithCount())
+                                        .setCount(total.addAndGet(chunk.size())).build()
+                        );
+                    } else {
+                        total.addAndGet(chunk.size());
+                    }
+                    writer.write(response.build());
+                }));
+    }
+
+    public void streamPluralTasks(GetPluralTasksRequest request, StreamObserver<GetPluralTasksResponse> responseObserver) {
+        TaskSortType sortType = ProtoRequestMapper.taskSortType(
+                request.getSort().getOrderField(), request.getSort().getOrder());
+
+        FlowControlledStreamWriter<GetPluralTasksResponse> writer = new FlowControlledStreamWriter<>(responseObserver, stallTimeout);
+        run(writer, () -> taskService.streamByTaskIds(
+                request.getTaskIdsList(), chunkSize, sortType,
+                (chunk, last) -> {
+                    List<Task> taskProtos = chunk.stream()
+                            .map(ProtoMapper::convert).toList();
+                    writer.write(GetPluralTasksResponse.newBuilder()
+                            .addAllTasks(taskProtos)
+                            .build());
+                }));
+    }
+
+    private void run(FlowControlledStreamWriter<?> writer, Runnable stream) {
+        try {
+            streamExecutor.execute(() -> {
+                try {
+                    stream.run();
+                    writer.complete();
+                } catch (ServiceException e) {
+                    writer.fail(Status.NOT_FOUND.withDescription(e.getErrorCaption()).withCause(e).asRuntimeException());
+                } catch (StatusRuntimeException e) {
+                    // 送信の待機で発生したもの(クライアントによるキャンセル, 受信の停止)
+                    if (e.getStatus().getCode() == Status.Code.CANCELLED) {
+                        log.debug("Task stream cancelled: {}", e.getStatus().getDescription());
+                    } else {
+                        log.warn("Task stream aborted: {}", e.getStatus());
+                    }
+                    writer.fail(e);
+                } catch (Exception e) {
+                    log.error("Failed to stream tasks", e);
+                    writer.fail(e);
+                }
+            });
+        } catch (Exception e) {
+            writer.fail(Status.RESOURCE_EXHAUSTED.withDescription("Too many concurrent streams").asRuntimeException());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        streamExecutor.shutdown();
+    }
+}
@@ -0,0 +1,53 @@
+package org.cresplanex.api.state.planservice.interceptor;
+
+import io.grpc.*;
+import net.devh.boot.grpc.server.interceptor.GrpcGlobalServerInterceptor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ハンドラで設定された値をレスポンスヘッダとして返す.
+ * protoのメッセージに含まれないページネーションや件数のメタ情報の返却に利用.
+ */
+@GrpcGlobalServerInterceptor
+public class ResponseHeaderServerInterceptor implements ServerInterceptor {
+
+    public static final Metadata.Key<String> NEXT_CURSOR =
+            Metadata.Key.of("x-next-cursor", Metadata.ASCII_STRING_MARSHALLER);
+    public static final Metadata.Key<String> COUNT_STRATEGY =
+            Metadata.Key.of("x-count-strategy", Metadata.ASCII_STRING_MARSHALLER);
+    public static final Metadata.Key<String> COUNT_EXACT =
+            Metadata.Key.of("x-count-exact", Metadata.ASCII_STRING_MARSHALLER);
+
+    private static final Context.Key<Map<Metadata.Key<String>, String>> HEADERS = Context.key("response-headers");
+
+    /**
+     * 現在のgRPC呼び出しのレスポンスヘッダを設定する.
+     * レスポンスの送信(onNext)より前に呼び出す必要がある.
+     *
+     * @param key ヘッダのキー
+     * @param value ヘッダの値, nullの場合は設定しない
+     */
+    public static void setHeader(Metadata.Key<String> key, String value) {
+        Map<Metadata.Key<String>, String> headers = HEADERS.get();
+        if (headers != null && value != null) {
+            headers.put(key, value);
+        }
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+        Map<Metadata.Key<String>, String> responseHeaderValues = new ConcurrentHashMap<>();
+        ServerCall<ReqT, RespT> wrapped = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void sendHeaders(Metadata responseHeaders) {
+                responseHeaderValues.forEach(responseHeaders::put);
+                super.sendHeaders(responseHeaders);
+            }
+        };
+        return Contexts.interceptCall(
+                Context.current().withValue(HEADERS, responseHeaderValues), wrapped, headers, next);
+    }
+}
@@ -0,0 +1,162 @@
+package org.cresplanex.api.state.planservice.kafka;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.cresplanex.core.common.kafka.consumer.BackPressureConfig;
+import org.cresplanex.core.common.kafka.property.CoreKafkaConsumerProperties;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Kafkaコンシューマのバックプレッシャーの上限をAIMDで調整する.
+ * <ul>
+ *     <li>混雑していない場合は上限をincreaseStepずつ増やす.</li>
+ *     <li>ハンドラの処理時間(p99), コネクションプールの取得待ち時間, 取得待ちのスレッド数のいずれかが目標を超えた場合は,
+ *     上限にdecreaseFactorを掛けて減らす.</li>
+ * </ul>
+ * CoreKafkaMessageConsumerは未処理のメッセージ数がhighを超えるとパーティションを一時停止し,
+ * low以下になると再開する. highとlowは参照されるたびに読み込まれるため, 設定の値を直接更新する.
+ */
+@Slf4j
+@Component
+public class AdaptiveBackPressureController implements DisposableBean {
+
+    private final BackPressureProperties properties;
+    private final BackPressureConfig backPressureConfig;
+    private final HandlerLatencyDecorator handlerLatency;
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicInteger limit;
+    private final Counter increaseCounter;
+    private final Counter decreaseCounter;
+    private final Counter throttleCounter;
+    private final Counter releaseCounter;
+
+    private boolean congested;
+    private long lastAcquireCount;
+    private double lastAcquireNanos;
+
+    public AdaptiveBackPressureController(
+            BackPressureProperties properties,
+            CoreKafkaConsumerProperties coreKafkaConsumerProperties,
+            HandlerLatencyDecorator handlerLatency,
+            DataSource dataSource,
+            MeterRegistry meterRegistry
+    ) {
+        this.properties = properties;
+        this.backPressureConfig = coreKafkaConsumerProperties.getBackPressure();
+        this.handlerLatency = handlerLatency;
+        this.dataSource = dataSource;
+        this.meterRegistry = meterRegistry;
+        this.limit = new AtomicInteger(properties.initialLimit());
+
+        Gauge.builder("kafka.backpressure.limit", limit, AtomicInteger::get).register(meterRegistry);
+        this.increaseCounter = Counter.builder("kafka.backpressure.adjustments")
+                .tag("direction", "increase").register(meterRegistry);
+        this.decreaseCounter = Counter.builder("kafka.backpressure.adjustments")
+                .tag("direction", "decrease").register(meterRegistry);
+        // 混雑の開始(上限の引き下げによる一時停止)と終了(再開に向けた引き上げ)
+        this.throttleCounter = Counter.builder("kafka.backpressure.events")
+                .tag("event", "pause").register(meterRegistry);
+        this.releaseCounter = Counter.builder("kafka.backpressure.events")
+                .tag("event", "resume").register(meterRegistry);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "kafka-back-pressure");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (properties.enabled()) {
+            apply(limit.get());
+            long interval = properties.interval().toMillis();
+            scheduler.scheduleWithFixedDelay(this::adjust, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void adjust() {
+        try {
+            long p99 = handlerLatency.drainP99Nanos();
+            double poolWait = drainPoolWaitNanos();
+            int poolPending = poolPending();
+            boolean nowCongested = p99 > properties.latencyTarget().toNanos()
+                    || poolWait > properties.poolWaitTarget().toNanos()
+                    || poolPending > properties.poolPendingTarget();
+
+            int current = limit.get();
+            int next;
+            if (nowCongested) {
+                next = Math.max(properties.minLimit(), (int) (current * properties.decreaseFactor()));
+                if (next < current) {
+                    decreaseCounter.increment();
+                }
+            } else {
+                next = Math.min(properties.maxLimit(), current + properties.increaseStep());
+                if (next > current) {
+                    increaseCounter.increment();
+                }
+            }
+            if (nowCongested != congested) {
+                (nowCongested ? throttleCounter : releaseCounter).increment();
+                log.info("Kafka consumer {}: limit={}, p99={}ms, poolWait={}ms, poolPending={}, inFlight={}",
+                        nowCongested ? "congested" : "recovered", next, p99 / 1_000_000,
+                        (long) (poolWait / 1_000_000), poolPending, handlerLatency.inFlight());
+                congested = nowCongested;
+            }
+            if (next != current) {
+                limit.set(next);
+                apply(next);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to adjust Kafka back pressure", e);
+        }
+    }
+
+    private void apply(int high) {
+        // 上限の半分まで処理が進んだら再開する
+        backPressureConfig.setLow(high / 2);
+        backPressureConfig.setHigh(high);
+    }
+
+    // 前回の呼び出し以降のコネクション取得待ち時間の平均(ナノ秒)
+    private double drainPoolWaitNanos() {
+        Timer acquire = meterRegistry.find("hikaricp.connections.acquire").timer();
+        if (acquire == null) {
+            return 0;
+        }
+        long count = acquire.count();
+        double total = acquire.totalTime(TimeUnit.NANOSECONDS);
+        long deltaCount = count - lastAcquireCount;
+        double deltaTotal = total - lastAcquireNanos;
+        lastAcquireCount = count;
+        lastAcquireNanos = total;
+        return deltaCount > 0 ? deltaTotal / deltaCount : 0;
+    }
+
+    private int poolPending() {
+        if (dataSource instanceof HikariDataSource hikari) {
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            if (pool != null) {
+                return pool.getThreadsAwaitingConnection();
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,35 @@
+package org.cresplanex.api.state.planservice.kafka;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Kafkaコンシューマのバックプレッシャーの上限(core.kafka.consumer.back-pressure.high)を調整する設定.
+ *
+ * @param enabled 有効にするか. 無効の場合はcore.kafka.consumer.back-pressureの固定値を使う
+ * @param interval 調整の間隔
+ * @param initialLimit 上限の初期値
+ * @param minLimit 上限の最小値
+ * @param maxLimit 上限の最大値
+ * @param increaseStep 混雑していない場合に上限へ加算する値
+ * @param decreaseFactor 混雑している場合に上限へ乗算する値
+ * @param latencyTarget ハンドラの処理時間(p99)の目標. 超えた場合は混雑とみなす
+ * @param poolWaitTarget コネクションプールの取得待ち時間(平均)の目標. 超えた場合は混雑とみなす
+ * @param poolPendingTarget コネクションの取得を待つスレッド数の目標. 超えた場合は混雑とみなす
+ */
+@ConfigurationProperties(prefix = "app.kafka.back-pressure")
+public record BackPressureProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("1s") Duration interval,
+        @DefaultValue("100") int initialLimit,
+        @DefaultValue("4") int minLimit,
+        @DefaultValue("1000") int maxLimit,
+        @DefaultValue("10") int increaseStep,
+        @DefaultValue("0.5") double decreaseFactor,
+        @DefaultValue("500ms") Duration latencyTarget,
+        @DefaultValue("50ms") Duration poolWaitTarget,
+        @DefaultValue("5") int poolPendingTarget
+) {
+}
@@ -0,0 +1,81 @@
+package org.cresplanex.api.state.planservice.kafka;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.cresplanex.core.messaging.consumer.SubscriberIdAndMessage;
+import org.cresplanex.core.messaging.consumer.decorator.MessageHandlerDecorator;
+import org.cresplanex.core.messaging.consumer.decorator.MessageHandlerDecoratorChain;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * メッセージハンドラの処理時間と, 処理中のメッセージ数を計測する.
+ * AdaptiveBackPressureControllerは直近の区間の処理時間のp99を参照する.
+ */
+@Component
+public class HandlerLatencyDecorator implements MessageHandlerDecorator {
+
+    // 区間ごとに保持する処理時間の数. 超えた分は古いものから上書きする
+    private static final int WINDOW_SIZE = 4096;
+
+    private final Timer latencyTimer;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final long[] window = new long[WINDOW_SIZE];
+    private int recorded;
+
+    public HandlerLatencyDecorator(MeterRegistry meterRegistry) {
+        this.latencyTimer = Timer.builder("kafka.handler.latency")
+                .publishPercentiles(0.99)
+                .register(meterRegistry);
+        Gauge.builder("kafka.handler.in.flight", inFlight, AtomicInteger::get).register(meterRegistry);
+    }
+
+    @Override
+    public void accept(SubscriberIdAndMessage subscriberIdAndMessage, MessageHandlerDecoratorChain chain) {
+        inFlight.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            chain.invokeNext(subscriberIdAndMessage);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            inFlight.decrementAndGet();
+            latencyTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            synchronized (window) {
+                window[recorded++ % WINDOW_SIZE] = elapsed;
+            }
+        }
+    }
+
+    /**
+     * 前回の呼び出し以降の処理時間のp99を返し, 区間をリセットする.
+     *
+     * @return p99(ナノ秒). 処理がない場合は0
+     */
+    long drainP99Nanos() {
+        long[] snapshot;
+        synchronized (window) {
+            snapshot = Arrays.copyOf(window, Math.min(recorded, WINDOW_SIZE));
+            recorded = 0;
+        }
+        if (snapshot.length == 0) {
+            return 0;
+        }
+        Arrays.sort(snapshot);
+        return snapshot[(int) Math.ceil(snapshot.length * 0.99) - 1];
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public int getOrder() {
+        // 他のデコレータ(重複検知など)を含めた処理時間を計測する
+        return Integer.MIN_VALUE;
+    }
+}
@@ -0,0 +1,39 @@
+package org.cresplanex.api.state.planservice.kafka;
+
+import org.apache.kafka.common.TopicPartition;
+import org.cresplanex.core.common.kafka.consumer.swimlanemap.TopicPartitionToSwimlaneMapping;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * パーティションごとにswimlanesPerPartition個のスイムレーンを割り当て, メッセージのキーのハッシュでスイムレーンを決める.
+ * 同じキーのメッセージは同じスイムレーンで順に処理され, 異なるキーのメッセージは並行して処理される.
+ * コミットするオフセットはCoreKafkaMessageConsumerがパーティションごとに追跡し,
+ * 処理が完了した連続するオフセットのみをコミットするため, スイムレーンをまたいでも処理前のメッセージを飛ばさない.
+ */
+public class KeyHashSwimlaneMapping implements TopicPartitionToSwimlaneMapping {
+
+    private final int swimlanesPerPartition;
+    private final Map<TopicPartition, Integer> firstSwimlanes = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSwimlane = new AtomicInteger();
+
+    public KeyHashSwimlaneMapping(int swimlanesPerPartition) {
+        if (swimlanesPerPartition < 1) {
+            throw new IllegalArgumentException("swimlanesPerPartition must be positive: " + swimlanesPerPartition);
+        }
+        this.swimlanesPerPartition = swimlanesPerPartition;
+    }
+
+    @Override
+    public Integer toSwimlane(TopicPartition topicPartition, String messageKey) {
+        int first = firstSwimlanes.computeIfAbsent(topicPartition,
+                partition -> nextSwimlane.getAndAdd(swimlanesPerPartition));
+        if (messageKey == null) {
+            return first;
+        }
+        // パーティションの決定(murmur2)とは別のハッシュを使い, 同じパーティション内のキーを分散させる
+        return first + Math.floorMod(messageKey.hashCode(), swimlanesPerPartition);
+    }
+}
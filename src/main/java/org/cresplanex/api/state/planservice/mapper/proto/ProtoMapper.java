@@ -7,6 +7,7 @@ import build.buf.gen.plan.v1.TaskOnFileObject;
 import build.buf.gen.plan.v1.TaskWithAttachments;
 import org.cresplanex.api.state.planservice.entity.TaskEntity;
 import org.cresplanex.api.state.planservice.entity.TaskAttachmentEntity;
+import org.cresplanex.api.state.planservice.projection.TaskView;
 
 import java.util.List;
 
@@ -26,6 +27,19 @@ public class ProtoMapper {
                 .build();
     }
 
+    public static Task convert(TaskView taskView) {
+        return Task.newBuilder()
+                .setTaskId(taskView.taskId())
+                .setTeamId(taskView.teamId())
+                .setChargeUserId(taskView.chargeUserId())
+                .setTitle(taskView.title())
+                .setDescription(taskView.description())
+                .setStatus(taskView.status())
+                .setStartDatetime(String.valueOf(taskView.startDatetime()))
+                .setDueDatetime(String.valueOf(taskView.dueDatetime()))
+                .build();
+    }
+
     public static FileObjectOnTask convert(TaskAttachmentEntity fileObjectOnTaskEntity) {
         return FileObjectOnTask.newBuilder()
                 .setFileObjectId(fileObjectOnTaskEntity.getFileObjectId())
@@ -0,0 +1,66 @@
+package org.cresplanex.api.state.planservice.mapper.proto;
+
+import build.buf.gen.cresplanex.nova.v1.SortOrder;
+import build.buf.gen.plan.v1.GetTasksRequest;
+import build.buf.gen.plan.v1.TaskOrderField;
+import org.cresplanex.api.state.planservice.enums.TaskSortType;
+import org.cresplanex.api.state.planservice.filter.task.*;
+
+/**
+ * Taskの一覧取得のリクエストから, 並び順と絞り込みの条件を組み立てる.
+ * PlanService, PlanStreamServiceで共通して利用する.
+ */
+public class ProtoRequestMapper {
+
+    public static TaskSortType taskSortType(TaskOrderField orderField, SortOrder order) {
+        boolean asc = order == SortOrder.SORT_ORDER_ASC;
+        return switch (orderField) {
+            case TASK_ORDER_FIELD_TITLE -> asc ? TaskSortType.TITLE_ASC : TaskSortType.TITLE_DESC;
+            case TASK_ORDER_FIELD_START_DATETIME -> asc ? TaskSortType.START_DATETIME_ASC : TaskSortType.START_DATETIME_DESC;
+            case TASK_ORDER_FIELD_DUE_DATETIME -> asc ? TaskSortType.DUE_DATETIME_ASC : TaskSortType.DUE_DATETIME_DESC;
+            default -> asc ? TaskSortType.CREATED_AT_ASC : TaskSortType.CREATED_AT_DESC;
+        };
+    }
+
+    public static TeamFilter teamFilter(GetTasksRequest request) {
+        return new TeamFilter(
+                request.getFilterTeam().getHasValue(), request.getFilterTeam().getTeamIdsList()
+        );
+    }
+
+    public static StatusFilter statusFilter(GetTasksRequest request) {
+        return new StatusFilter(
+                request.getFilterStatus().getHasValue(), request.getFilterStatus().getStatusesList()
+        );
+    }
+
+    public static ChargeUserFilter chargeUserFilter(GetTasksRequest request) {
+        return new ChargeUserFilter(
+                request.getFilterChargeUser().getHasValue(), request.getFilterChargeUser().getChargeUserIdsList()
+        );
+    }
+
+    public static FileObjectsFilter fileObjectsFilter(GetTasksRequest request) {
+        return new FileObjectsFilter(
+                request.getFilterFileObject().getHasValue(), request.getFilterFileObject().getAny(), request.getFilterFileObject().getFileObjectIdsList()
+        );
+    }
+
+    public static StartDatetimeFilter startDatetimeFilter(GetTasksRequest request) {
+        return new StartDatetimeFilter(
+                request.getFilterStartDatetime().getEarlierInfinite(),
+                request.getFilterStartDatetime().getLaterInfinite(),
+                request.getFilterStartDatetime().getEarlierThan(),
+                request.getFilterStartDatetime().getLaterThan()
+        );
+    }
+
+    public static DueDatetimeFilter dueDatetimeFilter(GetTasksRequest request) {
+        return new DueDatetimeFilter(
+                request.getFilterDueDatetime().getEarlierInfinite(),
+                request.getFilterDueDatetime().getLaterInfinite(),
+                request.getFilterDueDatetime().getEarlierThan(),
+                request.getFilterDueDatetime().getLaterThan()
+        );
+    }
+}
@@ -0,0 +1,55 @@
+package org.cresplanex.api.state.planservice.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.cresplanex.core.common.jdbc.CoreSchema;
+import org.cresplanex.core.messaging.common.Message;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * 複数のメッセージをoutboxのテーブルにJDBCのバッチで書き込む.
+ * 列はMessageProducerJdbcImplementationと同じで, IDはメッセージのヘッダーに設定済みのものを使う.
+ * テーブルの主キーは(id, creation_time)のため, IDの重複はデータベースでは検出されない.
+ * IDの一意性はIdGeneratorに依存する.
+ */
+public class OutboxBatchWriter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String insertSql;
+
+    /**
+     * @param currentTimeInMillisecondsExpression 作成時刻(creation_time)に使うSQLの式
+     */
+    public OutboxBatchWriter(JdbcTemplate jdbcTemplate, CoreSchema coreSchema, String currentTimeInMillisecondsExpression) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.insertSql = "INSERT INTO " + coreSchema.qualifyTable("message")
+                + " (id, destination, headers, payload, creation_time) VALUES (?, ?, ?, ?, "
+                + currentTimeInMillisecondsExpression + ")";
+    }
+
+    /**
+     * 渡された順に書き込む. 同じ宛先のメッセージの順序は保たれる.
+     */
+    public void write(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(insertSql, messages, messages.size(), (ps, message) -> {
+            ps.setString(1, message.getId());
+            ps.setString(2, message.getRequiredHeader(Message.DESTINATION));
+            ps.setString(3, toJson(message));
+            ps.setString(4, message.getPayload());
+        });
+    }
+
+    private String toJson(Message message) {
+        try {
+            return objectMapper.writeValueAsString(message.getHeaders());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
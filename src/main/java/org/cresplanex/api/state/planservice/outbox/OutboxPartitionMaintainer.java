@@ -0,0 +1,229 @@
+package org.cresplanex.api.state.planservice.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.cresplanex.core.common.jdbc.CoreSchema;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * outbox(message)の範囲パーティションを管理する.
+ * <ul>
+ *     <li>現在と今後の範囲パーティションを先に作成する. 各範囲パーティションはidのハッシュでさらに分割する.</li>
+ *     <li>範囲が終了したパーティションには, その時点のWALの位置(LSN)を記録する.</li>
+ *     <li>CDCがその位置まで読み終え, 保持期間を過ぎたパーティションを切り離して削除する.</li>
+ * </ul>
+ * 行ごとのDELETEを行わないため, 不要行(dead tuple)やインデックスの肥大化が発生しない.
+ */
+@Slf4j
+@Component
+public class OutboxPartitionMaintainer implements DisposableBean {
+
+    private static final long ADVISORY_LOCK_KEY = "plan-service-outbox-partition".hashCode();
+    // 範囲の終了直前に作成された行のトランザクションがコミットされるまでの猶予
+    private static final long CLOSE_GRACE_MILLIS = 60_000;
+    private static final DateTimeFormatter PARTITION_SUFFIX =
+            DateTimeFormatter.ofPattern("yyyyMMddHHmm").withZone(ZoneOffset.UTC);
+
+    private final OutboxPartitioningProperties properties;
+    private final CoreSchema coreSchema;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledExecutorService scheduler;
+
+    private final Counter createdCounter;
+    private final Counter droppedCounter;
+    private final AtomicLong partitions = new AtomicLong();
+    private final AtomicLong defaultRows = new AtomicLong();
+
+    public OutboxPartitionMaintainer(
+            OutboxPartitioningProperties properties,
+            CoreSchema coreSchema,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry
+    ) {
+        this.properties = properties;
+        this.coreSchema = coreSchema;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.createdCounter = Counter.builder("outbox.partitions.changes").tag("action", "created").register(meterRegistry);
+        this.droppedCounter = Counter.builder("outbox.partitions.changes").tag("action", "dropped").register(meterRegistry);
+        Gauge.builder("outbox.partitions", partitions, AtomicLong::get).register(meterRegistry);
+        // 0以外の場合, 範囲パーティションの作成が遅れている
+        Gauge.builder("outbox.partitions.default.rows", defaultRows, AtomicLong::get).register(meterRegistry);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-partition");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (properties.enabled()) {
+            // 起動直後に現在の範囲パーティションを用意する
+            scheduler.scheduleWithFixedDelay(this::run, 0, properties.interval().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void run() {
+        try {
+            Boolean done = transactionTemplate.execute(status -> {
+                if (!tryLock()) {
+                    // 他のレプリカが実行中
+                    return false;
+                }
+                long now = System.currentTimeMillis();
+                createUpcoming(now);
+                close(now);
+                return true;
+            });
+            if (Boolean.TRUE.equals(done)) {
+                dropConsumed(System.currentTimeMillis());
+            }
+        } catch (DataAccessException e) {
+            // ロック待ちの打ち切りなど. 次回に回す
+            log.warn("Outbox partition maintenance postponed: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("Outbox partition maintenance failed", e);
+        } finally {
+            refreshStats();
+        }
+    }
+
+    private boolean tryLock() {
+        Boolean locked = jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, ADVISORY_LOCK_KEY);
+        if (!Boolean.TRUE.equals(locked)) {
+            return false;
+        }
+        jdbcTemplate.execute("SET LOCAL lock_timeout = '" + properties.lockTimeout().toMillis() + "ms'");
+        return true;
+    }
+
+    private void createUpcoming(long now) {
+        long range = properties.range().toMillis();
+        long current = Math.floorDiv(now, range) * range;
+        for (int i = 0; i < properties.premake(); i++) {
+            long start = current + i * range;
+            long end = start + range;
+            String name = "message_p" + PARTITION_SUFFIX.format(Instant.ofEpochMilli(start));
+            Boolean exists = jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM " + coreSchema.qualifyTable("outbox_partition")
+                            + " WHERE partition_name = ?)",
+                    Boolean.class, name);
+            if (Boolean.TRUE.equals(exists)) {
+                continue;
+            }
+            // デフォルトパーティションに範囲内の行がある場合は作成できないため, その範囲はデフォルトパーティションのまま扱う
+            Boolean overlapped = jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM " + coreSchema.qualifyTable("message_default")
+                            + " WHERE creation_time >= ? AND creation_time < ?)",
+                    Boolean.class, start, end);
+            if (Boolean.TRUE.equals(overlapped)) {
+                log.warn("Outbox partition {} skipped: default partition already has rows in its range", name);
+                continue;
+            }
+            create(name, start, end);
+        }
+    }
+
+    private void create(String name, long start, long end) {
+        String table = coreSchema.qualifyTable(name);
+        jdbcTemplate.execute("CREATE TABLE " + table + " PARTITION OF " + coreSchema.qualifyTable("message")
+                + " FOR VALUES FROM (" + start + ") TO (" + end + ") PARTITION BY HASH (id)");
+        int modulus = properties.hashPartitions();
+        for (int remainder = 0; remainder < modulus; remainder++) {
+            jdbcTemplate.execute("CREATE TABLE " + table + "_h" + remainder + " PARTITION OF " + table
+                    + " FOR VALUES WITH (MODULUS " + modulus + ", REMAINDER " + remainder + ")");
+        }
+        jdbcTemplate.update("INSERT INTO " + coreSchema.qualifyTable("outbox_partition")
+                        + " (partition_name, range_start, range_end) VALUES (?, ?, ?)",
+                name, start, end);
+        createdCounter.increment();
+        log.info("Created outbox partition {} [{}, {}) with {} hash partitions", name, start, end, modulus);
+    }
+
+    // この位置より後のWALには, 範囲が終了したパーティションへの書き込みは含まれない
+    private void close(long now) {
+        jdbcTemplate.update("UPDATE " + coreSchema.qualifyTable("outbox_partition")
+                        + " SET closed_lsn = pg_current_wal_lsn() WHERE closed_lsn IS NULL AND range_end < ?",
+                now - CLOSE_GRACE_MILLIS);
+    }
+
+    private void dropConsumed(long now) {
+        List<String> candidates = jdbcTemplate.queryForList(
+                "SELECT partition_name FROM " + coreSchema.qualifyTable("outbox_partition")
+                        + " WHERE closed_lsn IS NOT NULL AND range_end < ? ORDER BY range_start",
+                String.class, now - properties.retention().toMillis());
+        for (String name : candidates) {
+            Boolean dropped = transactionTemplate.execute(status -> {
+                if (!tryLock() || !consumed(name)) {
+                    return false;
+                }
+                String table = coreSchema.qualifyTable(name);
+                jdbcTemplate.execute("ALTER TABLE " + coreSchema.qualifyTable("message")
+                        + " DETACH PARTITION " + table);
+                jdbcTemplate.execute("DROP TABLE " + table);
+                jdbcTemplate.update("DELETE FROM " + coreSchema.qualifyTable("outbox_partition")
+                        + " WHERE partition_name = ?", name);
+                return true;
+            });
+            if (!Boolean.TRUE.equals(dropped)) {
+                // 古い順に処理するため, 以降のパーティションも未配信
+                return;
+            }
+            droppedCounter.increment();
+            log.info("Dropped consumed outbox partition {}", name);
+        }
+    }
+
+    private boolean consumed(String name) {
+        List<Boolean> slot = jdbcTemplate.queryForList("""
+                        SELECT s.confirmed_flush_lsn >= p.closed_lsn
+                        FROM pg_replication_slots s, %s p
+                        WHERE s.slot_name = ? AND p.partition_name = ?
+                        """.formatted(coreSchema.qualifyTable("outbox_partition")),
+                Boolean.class, properties.slotName(), name);
+        if (!slot.isEmpty()) {
+            return Boolean.TRUE.equals(slot.get(0));
+        }
+        // CDCを利用しない(ポーリングで配信する)場合
+        Boolean unpublished = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + coreSchema.qualifyTable(name) + " WHERE published = 0)",
+                Boolean.class);
+        return !Boolean.TRUE.equals(unpublished);
+    }
+
+    private void refreshStats() {
+        try {
+            Long count = jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM " + coreSchema.qualifyTable("outbox_partition"), Long.class);
+            partitions.set(count == null ? 0 : count);
+            Long rows = jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM " + coreSchema.qualifyTable("message_default"), Long.class);
+            defaultRows.set(rows == null ? 0 : rows);
+        } catch (DataAccessException e) {
+            log.debug("Failed to read outbox partition statistics: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,31 @@
+package org.cresplanex.api.state.planservice.outbox;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * outbox(message)の範囲パーティションの管理の設定.
+ *
+ * @param enabled 有効にするか
+ * @param hashPartitions 範囲パーティションごとのハッシュパーティションの数. 新しく作成する範囲パーティションから反映される
+ * @param range 範囲パーティションの期間
+ * @param premake 現在の範囲を含めて先に作成しておく範囲パーティションの数
+ * @param retention 範囲の終了から, 配信済みの範囲パーティションを削除するまでの期間
+ * @param slotName CDCのレプリケーションスロット. 存在しない場合はpublished列で配信済みを判定する
+ * @param interval 実行間隔
+ * @param lockTimeout 作成, 切り離しのロック待ちの上限. 超えた場合は次回に回す
+ */
+@ConfigurationProperties(prefix = "app.outbox.partitioning")
+public record OutboxPartitioningProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("4") int hashPartitions,
+        @DefaultValue("1d") Duration range,
+        @DefaultValue("2") int premake,
+        @DefaultValue("1d") Duration retention,
+        @DefaultValue("debezium_plan_service_slot") String slotName,
+        @DefaultValue("10m") Duration interval,
+        @DefaultValue("2s") Duration lockTimeout
+) {
+}
@@ -0,0 +1,133 @@
+package org.cresplanex.api.state.planservice.outbox;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.cresplanex.core.messaging.common.Message;
+import org.cresplanex.core.messaging.producer.MessageProducerImplementation;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * トランザクション内で送信されたメッセージを溜め, コミット直前にまとめてoutboxに書き込むMessageProducerImplementation.
+ * <ul>
+ *     <li>トランザクション外, またはIDをデータベースで採番する場合は委譲先でそのまま書き込む.</li>
+ *     <li>書き込みは送信された順で, 同じ宛先のメッセージの順序は保たれる.</li>
+ *     <li>コミット直前の書き込みより後(afterCommitなど)に送信されたメッセージは, トランザクションの完了後に別のトランザクションで書き込む.</li>
+ *     <li>ロールバックされた場合は破棄する.</li>
+ *     <li>REQUIRES_NEWなどでトランザクションが中断されている間は, 内側のトランザクションが別のバッファを利用する.</li>
+ * </ul>
+ */
+public class TransactionalOutboxBuffer implements MessageProducerImplementation {
+
+    private final MessageProducerImplementation delegate;
+    private final OutboxBatchWriter writer;
+    private final TransactionTemplate lateWriteTemplate;
+    private final DistributionSummary batchSizeSummary;
+
+    public TransactionalOutboxBuffer(
+            MessageProducerImplementation delegate,
+            OutboxBatchWriter writer,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry
+    ) {
+        this.delegate = delegate;
+        this.writer = writer;
+        this.lateWriteTemplate = new TransactionTemplate(transactionManager);
+        this.lateWriteTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSizeSummary = DistributionSummary.builder("outbox.batch.size").register(meterRegistry);
+    }
+
+    @Override
+    public void setMessageIdIfNecessary(Message message) {
+        delegate.setMessageIdIfNecessary(message);
+    }
+
+    @Override
+    public void withContext(Runnable runnable) {
+        delegate.withContext(runnable);
+    }
+
+    @Override
+    public void send(Message message) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            delegate.send(message);
+            return;
+        }
+        Buffer buffer = currentBuffer();
+        if (buffer.flushed) {
+            buffer.late.add(message);
+            return;
+        }
+        if (message.getHeader(Message.ID).isEmpty()) {
+            // 溜めたメッセージより後に書き込み, 順序を保つ
+            buffer.flush();
+            delegate.send(message);
+            return;
+        }
+        buffer.messages.add(message);
+    }
+
+    private Buffer currentBuffer() {
+        Buffer buffer = (Buffer) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            buffer = new Buffer();
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(buffer);
+        }
+        return buffer;
+    }
+
+    private class Buffer implements TransactionSynchronization {
+
+        private final List<Message> messages = new ArrayList<>();
+        // コミット直前の書き込みより後に送信されたメッセージ
+        private final List<Message> late = new ArrayList<>();
+        private boolean flushed;
+
+        void flush() {
+            if (!messages.isEmpty()) {
+                batchSizeSummary.record(messages.size());
+                writer.write(messages);
+                messages.clear();
+            }
+        }
+
+        // 中断中は内側のトランザクションに渡さないよう, 紐付けを外す(ResourceHolderSynchronizationと同じ)
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TransactionalOutboxBuffer.this);
+        }
+
+        @Override
+        public void resume() {
+            if (TransactionSynchronizationManager.getResource(TransactionalOutboxBuffer.this) == null) {
+                TransactionSynchronizationManager.bindResource(TransactionalOutboxBuffer.this, this);
+            }
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            flush();
+            flushed = true;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TransactionalOutboxBuffer.this);
+            // beforeCommitが呼ばれずに溜められたメッセージ(コミット処理中に登録された場合)も含める
+            List<Message> pending = new ArrayList<>(messages);
+            pending.addAll(late);
+            messages.clear();
+            late.clear();
+            if (status == STATUS_COMMITTED && !pending.isEmpty()) {
+                lateWriteTemplate.executeWithoutResult(tx -> pending.forEach(delegate::send));
+            }
+        }
+    }
+}
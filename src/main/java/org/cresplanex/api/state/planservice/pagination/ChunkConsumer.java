@@ -0,0 +1,15 @@
+package org.cresplanex.api.state.planservice.pagination;
+
+import java.util.List;
+
+@FunctionalInterface
+public interface ChunkConsumer<T> {
+
+    /**
+     * 読み込んだチャンクを受け取る. 結果が0件の場合も, 空のチャンクが1度渡される.
+     *
+     * @param chunk チャンク
+     * @param last 最後のチャンクかどうか
+     */
+    void accept(List<T> chunk, boolean last);
+}
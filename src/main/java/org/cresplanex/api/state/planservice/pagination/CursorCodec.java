@@ -0,0 +1,95 @@
+package org.cresplanex.api.state.planservice.pagination;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.cresplanex.api.state.planservice.exception.InvalidCursorException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * キーセットページネーション用の不透明なカーソルのエンコード, デコードを行う.
+ * カーソルは{payload}.{signature}の形式で, 改ざんされたカーソルは受け付けない.
+ * 署名の秘密鍵(app.cursor.secret)は必須で, 推測されないよう32バイト以上とする.
+ */
+@Component
+public class CursorCodec {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    // HMAC-SHA256の出力と同じ長さ
+    private static final int MIN_SECRET_BYTES = 32;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SecretKeySpec secretKey;
+
+    public CursorCodec(@Value("${app.cursor.secret}") String secret) {
+        byte[] secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (secretBytes.length < MIN_SECRET_BYTES) {
+            throw new IllegalArgumentException(
+                    "app.cursor.secret must be at least " + MIN_SECRET_BYTES + " bytes");
+        }
+        this.secretKey = new SecretKeySpec(secretBytes, ALGORITHM);
+    }
+
+    public <E> String encode(Keyset<E> keyset, E last) {
+        return encode(keyset, keyset.valuesOf(last));
+    }
+
+    public <E> String encode(Keyset<E> keyset, List<String> values) {
+        try {
+            byte[] payload = objectMapper.writeValueAsBytes(new Payload(keyset.getName(), values));
+            return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(sign(payload));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to encode cursor", e);
+        }
+    }
+
+    /**
+     * カーソルを検証し, ソートキーの値を取り出す.
+     *
+     * @param keyset 現在のリクエストのキーセット
+     * @param cursor カーソル
+     * @return ソートキーの値
+     */
+    public <E> List<String> decode(Keyset<E> keyset, String cursor) {
+        int separator = cursor.indexOf('.');
+        if (separator < 0) {
+            throw new InvalidCursorException(cursor);
+        }
+        Payload payload;
+        try {
+            byte[] payloadBytes = DECODER.decode(cursor.substring(0, separator));
+            byte[] signature = DECODER.decode(cursor.substring(separator + 1));
+            if (!MessageDigest.isEqual(sign(payloadBytes), signature)) {
+                throw new InvalidCursorException(cursor);
+            }
+            payload = objectMapper.readValue(payloadBytes, Payload.class);
+        } catch (InvalidCursorException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new InvalidCursorException(cursor, e);
+        }
+        // ソート順の異なるカーソルは利用不可
+        if (!keyset.getName().equals(payload.keyset())) {
+            throw new InvalidCursorException(cursor);
+        }
+        return payload.values();
+    }
+
+    private byte[] sign(byte[] payload) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(ALGORITHM);
+        mac.init(secretKey);
+        return mac.doFinal(payload);
+    }
+
+    private record Payload(String keyset, List<String> values) {
+    }
+}
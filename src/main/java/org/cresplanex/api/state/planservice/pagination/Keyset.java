@@ -0,0 +1,155 @@
+package org.cresplanex.api.state.planservice.pagination;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * ソートキーの並びを表し, Sortの生成とキーセット(シーク)条件の生成を行う.
+ * 最後のキーは行を一意に特定できるもの(IDなど)でなければならない.
+ *
+ * @param <E> エンティティ
+ */
+public class Keyset<E> {
+
+    private final String name;
+    private final List<Key<E>> keys;
+
+    private Keyset(String name, List<Key<E>> keys) {
+        this.name = name;
+        this.keys = keys;
+    }
+
+    public static <E> Builder<E> named(String name) {
+        return new Builder<>(name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Sort toSort() {
+        return Sort.by(keys.stream()
+                .map(key -> new Sort.Order(key.direction(), key.path()))
+                .toList());
+    }
+
+    /**
+     * 行のソートキーを文字列のリストとして取り出す.
+     *
+     * @param entity エンティティ
+     * @return ソートキーの値
+     */
+    public List<String> valuesOf(E entity) {
+        return keys.stream()
+                .map(key -> String.valueOf(key.extractor().apply(entity)))
+                .toList();
+    }
+
+    /**
+     * パスから値を取得する関数を利用して, 行のソートキーを取り出す.
+     * エンティティ以外の行(射影など)からカーソルを生成する場合に利用する.
+     *
+     * @param attributes パスから値を取得する関数
+     * @return ソートキーの値
+     */
+    public List<String> valuesBy(Function<String, Object> attributes) {
+        return keys.stream()
+                .map(key -> String.valueOf(attributes.apply(key.path())))
+                .toList();
+    }
+
+    /**
+     * 指定したソートキーの行より後ろの行に絞り込む条件を生成.
+     * (k1, k2, id) > (v1, v2, v3) を方向を考慮したORの展開で表現する.
+     *
+     * @param values カーソルから取り出したソートキーの値
+     * @return シーク条件
+     */
+    public Specification<E> after(List<String> values) {
+        if (values.size() != keys.size()) {
+            throw new IllegalArgumentException("Cursor does not match keyset: " + name);
+        }
+
+        return (root, query, criteriaBuilder) -> {
+            List<Predicate> disjunction = new ArrayList<>();
+            for (int i = 0; i < keys.size(); i++) {
+                List<Predicate> conjunction = new ArrayList<>();
+                for (int j = 0; j < i; j++) {
+                    conjunction.add(criteriaBuilder.equal(
+                            resolve(root, keys.get(j)), keys.get(j).parse(values.get(j))));
+                }
+                conjunction.add(beyond(criteriaBuilder, root, keys.get(i), values.get(i)));
+                disjunction.add(criteriaBuilder.and(conjunction.toArray(Predicate[]::new)));
+            }
+            return criteriaBuilder.or(disjunction.toArray(Predicate[]::new));
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate beyond(CriteriaBuilder criteriaBuilder, Root<E> root, Key<E> key, String value) {
+        Expression path = resolve(root, key);
+        Comparable parsed = key.parse(value);
+        return key.direction().isAscending()
+                ? criteriaBuilder.greaterThan(path, parsed)
+                : criteriaBuilder.lessThan(path, parsed);
+    }
+
+    private Path<Comparable<?>> resolve(Root<E> root, Key<E> key) {
+        Path<?> path = root;
+        for (String attribute : key.path().split("\\.")) {
+            path = path.get(attribute);
+        }
+        @SuppressWarnings("unchecked")
+        Path<Comparable<?>> typed = (Path<Comparable<?>>) path;
+        return typed;
+    }
+
+    public record Key<E>(
+            String path,
+            Sort.Direction direction,
+            Class<? extends Comparable<?>> type,
+            Function<E, Object> extractor
+    ) {
+        @SuppressWarnings("rawtypes")
+        Comparable parse(String value) {
+            if (type == LocalDateTime.class) {
+                return LocalDateTime.parse(value);
+            }
+            return value;
+        }
+    }
+
+    public static class Builder<E> {
+
+        private final String name;
+        private final List<Key<E>> keys = new ArrayList<>();
+
+        private Builder(String name) {
+            this.name = name;
+        }
+
+        public Builder<E> asc(String path, Class<? extends Comparable<?>> type, Function<E, Object> extractor) {
+            keys.add(new Key<>(path, Sort.Direction.ASC, type, extractor));
+            return this;
+        }
+
+        public Builder<E> desc(String path, Class<? extends Comparable<?>> type, Function<E, Object> extractor) {
+            keys.add(new Key<>(path, Sort.Direction.DESC, type, extractor));
+            return this;
+        }
+
+        public Keyset<E> build() {
+            return new Keyset<>(name, List.copyOf(keys));
+        }
+    }
+}
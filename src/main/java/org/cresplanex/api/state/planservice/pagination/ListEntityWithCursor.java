@@ -0,0 +1,21 @@
+package org.cresplanex.api.state.planservice.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.cresplanex.api.state.planservice.count.CountResult;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class ListEntityWithCursor<T> {
+
+    private List<T> data;
+    private CountResult countResult;
+    // 次ページが存在しない場合, もしくはカーソルページネーションでない場合はnull
+    private String nextCursor;
+
+    public int getCount() {
+        return (int) countResult.getCount();
+    }
+}
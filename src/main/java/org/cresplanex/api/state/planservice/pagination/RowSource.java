@@ -0,0 +1,20 @@
+package org.cresplanex.api.state.planservice.pagination;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * エンティティEの検索条件で, 結果を行Rとして取得する.
+ * エンティティそのもの(R = E)の他, 必要な列のみを選択した読み取り専用の射影として取得する場合がある.
+ *
+ * @param <E> 検索対象のエンティティ
+ * @param <R> 取得する行
+ */
+public interface RowSource<E, R> {
+
+    List<R> findAll(Specification<E> spec, Sort sort);
+
+    List<R> findAll(Specification<E> spec, Sort sort, long offset, int limit);
+}
@@ -0,0 +1,11 @@
+package org.cresplanex.api.state.planservice.projection;
+
+/**
+ * 一覧取得の読み込み方法.
+ */
+public enum ReadPath {
+    // 管理対象のエンティティとして読み込む
+    ENTITY,
+    // 必要な列のみをレコードに読み込み, 永続化コンテキストを経由しない
+    PROJECTION
+}
@@ -0,0 +1,17 @@
+package org.cresplanex.api.state.planservice.projection;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * RPCごとの一覧取得の読み込み方法.
+ *
+ * @param getTasks GetTasks
+ * @param getPluralTasks GetPluralTasks
+ */
+@ConfigurationProperties(prefix = "app.read-path")
+public record ReadPathProperties(
+        @DefaultValue("PROJECTION") ReadPath getTasks,
+        @DefaultValue("PROJECTION") ReadPath getPluralTasks
+) {
+}
@@ -0,0 +1,55 @@
+package org.cresplanex.api.state.planservice.projection;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Taskのレスポンスに必要な列のみを保持する読み取り専用の射影.
+ * createdAtはカーソルの生成とソートのためにのみ保持する.
+ */
+public record TaskView(
+        String taskId,
+        String teamId,
+        String chargeUserId,
+        String title,
+        String description,
+        String status,
+        LocalDateTime startDatetime,
+        LocalDateTime dueDatetime,
+        LocalDateTime createdAt
+) {
+
+    // コンストラクタの引数と同じ順序でなければならない
+    public static final List<String> ATTRIBUTES = List.of(
+            "taskId",
+            "teamId",
+            "chargeUserId",
+            "title",
+            "description",
+            "status",
+            "startDatetime",
+            "dueDatetime",
+            "createdAt"
+    );
+
+    /**
+     * キーセットのパスに対応する値を取得.
+     *
+     * @param path TaskEntityの属性のパス
+     * @return 値
+     */
+    public Object attribute(String path) {
+        return switch (path) {
+            case "taskId" -> taskId;
+            case "teamId" -> teamId;
+            case "chargeUserId" -> chargeUserId;
+            case "title" -> title;
+            case "description" -> description;
+            case "status" -> status;
+            case "startDatetime" -> startDatetime;
+            case "dueDatetime" -> dueDatetime;
+            case "createdAt" -> createdAt;
+            default -> throw new IllegalArgumentException("Unknown attribute: " + path);
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package org.cresplanex.api.state.planservice.repository;
+
+import org.cresplanex.api.state.planservice.pagination.RowSource;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.repository.NoRepositoryBean;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+@NoRepositoryBean
+public interface BaseRepository<T, ID> extends JpaRepository<T, ID>, JpaSpecificationExecutor<T>, RowSource<T, T> {
+
+    /**
+     * 件数取得のクエリを発行せずに, 指定範囲のエンティティを取得。
+     *
+     * @param spec 検索条件
+     * @param sort ソート
+     * @param offset 取得開始位置
+     * @param limit 取得件数
+     * @return エンティティのリスト
+     */
+    List<T> findAll(Specification<T> spec, Sort sort, long offset, int limit);
+
+    /**
+     * JDBCのカーソルを利用して, 指定した件数ずつ読み込みながらエンティティを取得。
+     * トランザクション内で利用し, Streamは利用後にクローズする必要がある。
+     *
+     * @param spec 検索条件
+     * @param sort ソート
+     * @param fetchSize 一度に読み込む件数
+     * @return エンティティのStream
+     */
+    Stream<T> stream(Specification<T> spec, Sort sort, int fetchSize);
+
+    /**
+     * 指定した属性のみを選択し, 射影のコンストラクタに渡して取得する。
+     * 取得結果は管理対象のエンティティとならないため, 永続化コンテキストのスナップショットなどが発生しない。
+     * ソートに利用する属性は選択する属性に含める必要がある。
+     *
+     * @param type 射影の型
+     * @param attributes コンストラクタの引数の順に並べた属性
+     * @return 射影を取得するRowSource
+     */
+    <P> RowSource<T, P> projecting(Class<P> type, List<String> attributes);
+}
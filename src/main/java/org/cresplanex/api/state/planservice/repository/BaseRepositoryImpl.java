@@ -0,0 +1,85 @@
+package org.cresplanex.api.state.planservice.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.cresplanex.api.state.planservice.pagination.RowSource;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public class BaseRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID> implements BaseRepository<T, ID> {
+
+    private final EntityManager entityManager;
+
+    public BaseRepositoryImpl(JpaEntityInformation<T, ?> entityInformation, EntityManager entityManager) {
+        super(entityInformation, entityManager);
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<T> findAll(Specification<T> spec, Sort sort, long offset, int limit) {
+        TypedQuery<T> query = getQuery(spec, sort);
+        query.setFirstResult(Math.toIntExact(offset));
+        query.setMaxResults(limit);
+        return query.getResultList();
+    }
+
+    @Override
+    public Stream<T> stream(Specification<T> spec, Sort sort, int fetchSize) {
+        TypedQuery<T> query = getQuery(spec, sort);
+        query.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize);
+        query.setHint(HibernateHints.HINT_READ_ONLY, true);
+        return query.getResultStream();
+    }
+
+    @Override
+    public <P> RowSource<T, P> projecting(Class<P> type, List<String> attributes) {
+        return new RowSource<>() {
+            @Override
+            public List<P> findAll(Specification<T> spec, Sort sort) {
+                return getProjectionQuery(spec, sort, type, attributes).getResultList();
+            }
+
+            @Override
+            public List<P> findAll(Specification<T> spec, Sort sort, long offset, int limit) {
+                TypedQuery<P> query = getProjectionQuery(spec, sort, type, attributes);
+                query.setFirstResult(Math.toIntExact(offset));
+                query.setMaxResults(limit);
+                return query.getResultList();
+            }
+        };
+    }
+
+    private <P> TypedQuery<P> getProjectionQuery(
+            Specification<T> spec, Sort sort, Class<P> type, List<String> attributes) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<P> query = builder.createQuery(type);
+        Root<T> root = query.from(getDomainClass());
+
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, builder);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        query.select(builder.construct(type, attributes.stream()
+                .map(attribute -> root.get(attribute))
+                .toArray(Selection[]::new)));
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, builder));
+        }
+
+        return entityManager.createQuery(query);
+    }
+}
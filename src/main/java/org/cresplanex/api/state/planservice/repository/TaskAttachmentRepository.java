@@ -1,15 +1,13 @@
 package org.cresplanex.api.state.planservice.repository;
 
 import org.cresplanex.api.state.planservice.entity.TaskAttachmentEntity;
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
-public interface TaskAttachmentRepository extends JpaRepository<TaskAttachmentEntity, String>, JpaSpecificationExecutor<TaskAttachmentEntity> {
+public interface TaskAttachmentRepository extends BaseRepository<TaskAttachmentEntity, String> {
     /**
      * 特定のtaskIdとfileObjectIdsに紐づくTaskAttachmentEntityのリストを取得。
      *
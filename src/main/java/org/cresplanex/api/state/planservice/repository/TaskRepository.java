@@ -1,16 +1,18 @@
 package org.cresplanex.api.state.planservice.repository;
 
 import org.cresplanex.api.state.planservice.entity.TaskEntity;
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.cresplanex.api.state.planservice.repository.projection.TaskStatusChange;
+import org.cresplanex.api.state.planservice.repository.projection.TaskStatusUpdate;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface TaskRepository extends JpaRepository<TaskEntity, String>, JpaSpecificationExecutor<TaskEntity> {
+public interface TaskRepository extends BaseRepository<TaskEntity, String> {
 
     /**
      * Taskを取得し、TaskAttachmentをJOINした状態で取得。
@@ -21,6 +23,16 @@ public interface TaskRepository extends JpaRepository<TaskEntity, String>, JpaSp
     @Query("SELECT o FROM TaskEntity o LEFT JOIN FETCH o.taskAttachments WHERE o.taskId = :taskId")
     Optional<TaskEntity> findByIdWithAttachments(String taskId);
 
+    /**
+     * 指定したTaskをTaskAttachmentをJOINした状態で取得。
+     * 同一の永続化コンテキストで取得済みのTaskは, taskAttachmentsが初期化される。
+     *
+     * @param taskIds タスクIDリスト
+     * @return Taskのリスト
+     */
+    @Query("SELECT o FROM TaskEntity o LEFT JOIN FETCH o.taskAttachments WHERE o.taskId IN :taskIds")
+    List<TaskEntity> findAllWithAttachmentsByTaskIdIn(List<String> taskIds);
+
     /**
      * List<TaskId>の数を取得
      *
@@ -28,4 +40,90 @@ public interface TaskRepository extends JpaRepository<TaskEntity, String>, JpaSp
      * @return タスクIDの数
      */
     Optional<Long> countByTaskIdIn(List<String> taskIds);
+
+    /**
+     * 指定したTaskのステータスを1文で更新し, 更新後の列と更新前のステータスを取得。
+     * バージョンは通常の更新と同様に加算する。
+     *
+     * @param taskId タスクID
+     * @param status 更新後のステータス
+     * @param updatedAt 更新日時
+     * @param updatedBy 更新者
+     * @return 更新したTask, 存在しない場合は空
+     */
+    @Query(value = """
+            WITH old AS (
+                SELECT task_id, status FROM tasks WHERE task_id = :taskId FOR UPDATE
+            )
+            UPDATE tasks t
+            SET status = :status, version = t.version + 1, updated_at = :updatedAt, updated_by = :updatedBy
+            FROM old
+            WHERE t.task_id = old.task_id
+            RETURNING t.task_id AS "taskId", t.team_id AS "teamId", t.charge_user_id AS "chargeUserId",
+                t.title AS "title", t.description AS "description", t.status AS "status",
+                t.start_datetime AS "startDatetime", t.due_datetime AS "dueDatetime",
+                old.status AS "prevStatus"
+            """, nativeQuery = true)
+    Optional<TaskStatusUpdate> updateStatusByTaskIdReturningPrevious(
+            String taskId, String status, LocalDateTime updatedAt, String updatedBy);
+
+    /**
+     * 指定したTaskのうち存在するものを, task_idの順に行ロックして取得。
+     *
+     * @param taskIds タスクIDリスト
+     * @return 存在するTaskのタスクID(task_idの順)
+     */
+    @Query(value = "SELECT task_id FROM tasks WHERE task_id IN (:taskIds) ORDER BY task_id FOR UPDATE", nativeQuery = true)
+    List<String> lockTaskIdsByTaskIdIn(List<String> taskIds);
+
+    /**
+     * 指定したTaskのステータスを1文で更新し, 更新前のステータスを取得。
+     * 対象の行はtask_idの順にロックするため, 同時に実行される一括更新同士でデッドロックしない。
+     *
+     * @param taskIds タスクIDリスト
+     * @param status 更新後のステータス
+     * @param updatedAt 更新日時
+     * @param updatedBy 更新者
+     * @return 更新したTaskと更新前のステータス
+     */
+    @Query(value = """
+            WITH old AS (
+                SELECT task_id, status FROM tasks WHERE task_id IN (:taskIds) ORDER BY task_id FOR UPDATE
+            )
+            UPDATE tasks t
+            SET status = :status, version = t.version + 1, updated_at = :updatedAt, updated_by = :updatedBy
+            FROM old
+            WHERE t.task_id = old.task_id
+            RETURNING t.task_id AS "taskId", old.status AS "prevStatus"
+            """, nativeQuery = true)
+    List<TaskStatusChange> updateStatusByTaskIdInReturningPrevious(
+            List<String> taskIds, String status, LocalDateTime updatedAt, String updatedBy);
+
+    /**
+     * 指定したTaskのステータスを1文で更新。
+     *
+     * @param taskIds タスクIDリスト
+     * @param status 更新後のステータス
+     * @param updatedAt 更新日時
+     * @param updatedBy 更新者
+     * @return 更新件数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+            UPDATE tasks
+            SET status = :status, version = version + 1, updated_at = :updatedAt, updated_by = :updatedBy
+            WHERE task_id IN (:taskIds)
+            """, nativeQuery = true)
+    int updateStatusByTaskIdIn(List<String> taskIds, String status, LocalDateTime updatedAt, String updatedBy);
+
+    /**
+     * 指定したTaskを1文で削除。
+     * TaskAttachmentは外部キー(task_attachments_task_id_fk)のON DELETE CASCADEで削除される。
+     *
+     * @param taskIds タスクIDリスト
+     * @return 削除したTaskの数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM tasks WHERE task_id IN (:taskIds)", nativeQuery = true)
+    int deleteByTaskIdIn(List<String> taskIds);
 }
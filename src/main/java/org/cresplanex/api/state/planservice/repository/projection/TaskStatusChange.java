@@ -0,0 +1,11 @@
+package org.cresplanex.api.state.planservice.repository.projection;
+
+/**
+ * ステータス更新の対象となったTaskと, 更新前のステータス.
+ */
+public interface TaskStatusChange {
+
+    String getTaskId();
+
+    String getPrevStatus();
+}
@@ -0,0 +1,27 @@
+package org.cresplanex.api.state.planservice.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * ステータスを更新したTaskの更新後の列と, 更新前のステータス.
+ */
+public interface TaskStatusUpdate {
+
+    String getTaskId();
+
+    String getTeamId();
+
+    String getChargeUserId();
+
+    String getTitle();
+
+    String getDescription();
+
+    String getStatus();
+
+    LocalDateTime getStartDatetime();
+
+    LocalDateTime getDueDatetime();
+
+    String getPrevStatus();
+}
@@ -0,0 +1,352 @@
+package org.cresplanex.api.state.planservice.retention;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.cresplanex.api.state.planservice.outbox.OutboxPartitioningProperties;
+import org.cresplanex.core.common.jdbc.CoreSchema;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * coreスキーマのテーブル(Sagaのインスタンス, outbox, 受信済みメッセージ)から保持期間を過ぎた行を削除する.
+ * <ul>
+ *     <li>行は主キーの順に少しずつ(batchSize)削除し, バッチ間はpauseだけ待機する.</li>
+ *     <li>通常の処理がロックしている行はSKIP LOCKEDで飛ばし, ロック待ちはlockTimeoutで打ち切る.</li>
+ *     <li>複数のレプリカのうち, アドバイザリロックを取得できたものだけが実行する.</li>
+ *     <li>outbox(message)は, パーティションを利用する場合はOutboxPartitionMaintainerが削除するため対象としない.
+ *     利用しない場合は, published列, またはCDCのレプリケーションスロットが読み終えた位置で配信済みを判定する.</li>
+ * </ul>
+ * 削除した行数と, テーブルの生存行, 不要行(dead tuple), サイズをメトリクスとして公開する.
+ */
+@Slf4j
+@Component
+public class RetentionEngine implements DisposableBean {
+
+    private static final long ADVISORY_LOCK_KEY = "plan-service-retention".hashCode();
+    private static final Pattern PARAMETER = Pattern.compile(":(\\w+)");
+
+    private final RetentionProperties properties;
+    private final OutboxPartitioningProperties partitioningProperties;
+    private final CoreSchema coreSchema;
+    private final String schemaName;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final List<RetentionTarget> targets;
+    private final ScheduledExecutorService scheduler;
+
+    private final Map<String, Counter> reclaimedCounters = new ConcurrentHashMap<>();
+    private final Map<String, TableStats> tableStats = new ConcurrentHashMap<>();
+
+    public RetentionEngine(
+            RetentionProperties properties,
+            OutboxPartitioningProperties partitioningProperties,
+            CoreSchema coreSchema,
+            @Value("${core.database.schema:core}") String schemaName,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry
+    ) {
+        this.properties = properties;
+        this.partitioningProperties = partitioningProperties;
+        this.coreSchema = coreSchema;
+        this.schemaName = schemaName;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        List<RetentionTarget> targets = new ArrayList<>();
+        // saga_idはApplicationIdGeneratorの値で, 先頭16桁が生成時刻(ミリ秒)の16進数
+        targets.add(new RetentionTarget(
+                "saga_instance",
+                List.of("saga_type", "saga_id"),
+                "end_state = true AND saga_id < :cutoff",
+                cutoff -> Map.of("cutoff", String.format("%016x", cutoff.toEpochMilli())),
+                List.of("saga_instance_participants")
+        ));
+        if (!partitioningProperties.enabled()) {
+            // CDCはpublished列を更新しないため, スロットが読み終えた作成時刻(consumedBefore)より前の行も配信済みとする
+            targets.add(new RetentionTarget(
+                    "message",
+                    List.of("id"),
+                    "creation_time < :cutoff AND (published = 1 OR creation_time < :consumedBefore)",
+                    cutoff -> Map.of("cutoff", cutoff.toEpochMilli(), "consumedBefore", consumedBefore()),
+                    List.of()
+            ));
+        }
+        targets.add(new RetentionTarget(
+                "received_messages",
+                List.of("consumer_id", "message_id"),
+                "creation_time < :cutoff",
+                cutoff -> Map.of("cutoff", cutoff.toEpochMilli()),
+                List.of()
+        ));
+        this.targets = List.copyOf(targets);
+
+        for (RetentionTarget target : targets) {
+            String table = target.table();
+            reclaimedCounters.put(table, Counter.builder("retention.rows.reclaimed")
+                    .tag("table", table).tag("mode", properties.mode().name()).register(meterRegistry));
+            tableStats.put(table, new TableStats());
+            Gauge.builder("retention.table.live.rows", tableStats, stats -> stats.get(table).liveRows)
+                    .tag("table", table).register(meterRegistry);
+            Gauge.builder("retention.table.dead.rows", tableStats, stats -> stats.get(table).deadRows)
+                    .tag("table", table).register(meterRegistry);
+            Gauge.builder("retention.table.bytes", tableStats, stats -> stats.get(table).bytes)
+                    .tag("table", table).register(meterRegistry);
+        }
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "retention");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (properties.enabled()) {
+            long interval = properties.interval().toMillis();
+            scheduler.scheduleWithFixedDelay(this::run, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void run() {
+        try {
+            if (properties.mode() == RetentionMode.ARCHIVE) {
+                createArchiveTables();
+            }
+            for (RetentionTarget target : targets) {
+                if (!reclaim(target)) {
+                    // 他のレプリカが実行中
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Retention run failed", e);
+        } finally {
+            refreshTableStats();
+        }
+    }
+
+    /**
+     * @return アドバイザリロックを取得できなかった場合はfalse
+     */
+    private boolean reclaim(RetentionTarget target) {
+        Duration retention = retentionOf(target);
+        Map<String, Object> parameters = target.parameters().apply(Instant.now().minus(retention));
+        if (parameters == null) {
+            return true;
+        }
+        List<Object> conditionArgs = new ArrayList<>();
+        String condition = bindCondition(target.condition(), parameters, conditionArgs);
+        List<Object> lastKey = null;
+        for (int batch = 0; batch < properties.maxBatchesPerRun(); batch++) {
+            BatchResult result;
+            try {
+                List<Object> after = lastKey;
+                result = transactionTemplate.execute(status -> reclaimBatch(target, condition, conditionArgs, after));
+            } catch (DataAccessException e) {
+                // ロック待ちの打ち切りなど. 通常の処理を優先し, 次回に回す
+                log.debug("Retention of {} postponed: {}", target.table(), e.getMessage());
+                return true;
+            }
+            if (result == null) {
+                return false;
+            }
+            if (result.reclaimed() == 0) {
+                return true;
+            }
+            reclaimedCounters.get(target.table()).increment(result.reclaimed());
+            lastKey = result.lastKey();
+            if (result.reclaimed() < properties.batchSize()) {
+                return true;
+            }
+            sleep(properties.pause());
+        }
+        return true;
+    }
+
+    private BatchResult reclaimBatch(
+            RetentionTarget target, String condition, List<Object> conditionArgs, List<Object> after) {
+        Boolean locked = jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, ADVISORY_LOCK_KEY);
+        if (!Boolean.TRUE.equals(locked)) {
+            return null;
+        }
+        jdbcTemplate.execute("SET LOCAL lock_timeout = '" + properties.lockTimeout().toMillis() + "ms'");
+
+        List<Object> args = new ArrayList<>(conditionArgs);
+        if (after != null) {
+            args.addAll(after);
+        }
+        args.add(properties.batchSize());
+        List<String> keyColumns = target.keyColumns();
+        return jdbcTemplate.query(batchSql(target, condition, after != null), rs -> {
+            if (!rs.next()) {
+                return new BatchResult(0, after);
+            }
+            List<Object> lastKey = new ArrayList<>();
+            for (String column : keyColumns) {
+                lastKey.add(rs.getObject(column));
+            }
+            return new BatchResult(rs.getLong("reclaimed"), lastKey);
+        }, args.toArray());
+    }
+
+    private String batchSql(RetentionTarget target, String condition, boolean hasLastKey) {
+        String table = coreSchema.qualifyTable(target.table());
+        String keys = String.join(", ", target.keyColumns());
+        StringBuilder sql = new StringBuilder()
+                .append("WITH batch AS (SELECT ").append(keys).append(" FROM ").append(table)
+                .append(" WHERE ").append(condition);
+        if (hasLastKey) {
+            sql.append(" AND (").append(keys).append(") > (")
+                    .append(target.keyColumns().stream().map(column -> "?").collect(Collectors.joining(", ")))
+                    .append(")");
+        }
+        sql.append(" ORDER BY ").append(keys).append(" LIMIT ? FOR UPDATE SKIP LOCKED)");
+        if (properties.mode() == RetentionMode.ARCHIVE) {
+            sql.append(", archived AS (INSERT INTO ").append(table).append("_archive SELECT t.* FROM ")
+                    .append(table).append(" t JOIN batch b ON ").append(joinOn(target, "t")).append(")");
+        }
+        for (int i = 0; i < target.dependentTables().size(); i++) {
+            sql.append(", dependent").append(i).append(" AS (DELETE FROM ")
+                    .append(coreSchema.qualifyTable(target.dependentTables().get(i)))
+                    .append(" d USING batch b WHERE ").append(joinOn(target, "d")).append(")");
+        }
+        sql.append(", deleted AS (DELETE FROM ").append(table).append(" t USING batch b WHERE ")
+                .append(joinOn(target, "t")).append(" RETURNING ")
+                .append(target.keyColumns().stream().map(column -> "t." + column).collect(Collectors.joining(", ")))
+                .append(")")
+                .append(" SELECT (SELECT count(*) FROM deleted) AS reclaimed, ").append(keys)
+                .append(" FROM deleted ORDER BY ")
+                .append(target.keyColumns().stream().map(column -> column + " DESC").collect(Collectors.joining(", ")))
+                .append(" LIMIT 1");
+        return sql.toString();
+    }
+
+    /**
+     * 条件の:名前を?に置き換え, 出現順の値をargsに追加する.
+     */
+    private static String bindCondition(String condition, Map<String, Object> parameters, List<Object> args) {
+        Matcher matcher = PARAMETER.matcher(condition);
+        StringBuilder sql = new StringBuilder();
+        while (matcher.find()) {
+            String name = matcher.group(1);
+            if (!parameters.containsKey(name)) {
+                throw new IllegalArgumentException("Missing retention parameter: " + name);
+            }
+            args.add(parameters.get(name));
+            matcher.appendReplacement(sql, "?");
+        }
+        matcher.appendTail(sql);
+        return sql.toString();
+    }
+
+    /**
+     * CDCのレプリケーションスロットが読み終えたoutboxの作成時刻(ミリ秒)の境界.
+     * 実行ごとに現在の時刻とWALの位置を記録し, confirmed_flush_lsnまでに含まれる最新の記録の時刻を使う.
+     * 記録の時刻より前に作成され, その後にコミットされた行を含めないよう, cdcGraceだけ遡る.
+     * スロットがない場合, まだ読み終えた記録がない場合は0(published列のみで判定する).
+     */
+    private long consumedBefore() {
+        String markTable = coreSchema.qualifyTable("outbox_wal_mark");
+        try {
+            jdbcTemplate.update("INSERT INTO " + markTable + " (marked_at, lsn)"
+                            + " VALUES (?, pg_current_wal_lsn()) ON CONFLICT (marked_at) DO NOTHING",
+                    System.currentTimeMillis());
+            List<Long> consumed = jdbcTemplate.queryForList("""
+                            SELECT max(m.marked_at) FROM %s m, pg_replication_slots s
+                            WHERE s.slot_name = ? AND m.lsn <= s.confirmed_flush_lsn
+                            """.formatted(markTable),
+                    Long.class, partitioningProperties.slotName());
+            if (consumed.isEmpty() || consumed.get(0) == null) {
+                return 0;
+            }
+            long markedAt = consumed.get(0);
+            // 読み終えた最新の記録より古い記録は不要
+            jdbcTemplate.update("DELETE FROM " + markTable + " WHERE marked_at < ?", markedAt);
+            return Math.max(0, markedAt - properties.cdcGrace().toMillis());
+        } catch (DataAccessException e) {
+            log.debug("Failed to read replication slot progress: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    private static String joinOn(RetentionTarget target, String alias) {
+        return target.keyColumns().stream()
+                .map(column -> alias + "." + column + " = b." + column)
+                .collect(Collectors.joining(" AND "));
+    }
+
+    private Duration retentionOf(RetentionTarget target) {
+        return switch (target.table()) {
+            case "saga_instance" -> properties.sagaInstance();
+            case "message" -> properties.message();
+            default -> properties.receivedMessages();
+        };
+    }
+
+    private void createArchiveTables() {
+        for (RetentionTarget target : targets) {
+            String table = coreSchema.qualifyTable(target.table());
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + "_archive (LIKE " + table + ")");
+        }
+    }
+
+    private void refreshTableStats() {
+        try {
+            jdbcTemplate.query("""
+                            SELECT relname, n_live_tup, n_dead_tup, pg_total_relation_size(relid) AS bytes
+                            FROM pg_stat_user_tables WHERE schemaname = ?
+                            """,
+                    rs -> {
+                        TableStats stats = tableStats.get(rs.getString("relname"));
+                        if (stats != null) {
+                            stats.liveRows = rs.getLong("n_live_tup");
+                            stats.deadRows = rs.getLong("n_dead_tup");
+                            stats.bytes = rs.getLong("bytes");
+                        }
+                    },
+                    schemaName);
+        } catch (DataAccessException e) {
+            log.debug("Failed to read table statistics: {}", e.getMessage());
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    private record BatchResult(long reclaimed, List<Object> lastKey) {
+    }
+
+    private static class TableStats {
+        volatile double liveRows;
+        volatile double deadRows;
+        volatile double bytes;
+    }
+}
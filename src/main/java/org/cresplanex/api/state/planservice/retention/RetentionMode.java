@@ -0,0 +1,11 @@
+package org.cresplanex.api.state.planservice.retention;
+
+/**
+ * 保持期間を過ぎた行の扱い.
+ */
+public enum RetentionMode {
+    // 削除する
+    DELETE,
+    // <テーブル名>_archiveに移してから削除する
+    ARCHIVE,
+}
@@ -0,0 +1,37 @@
+package org.cresplanex.api.state.planservice.retention;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * coreスキーマのテーブルの保持期間と, 削除の速度の設定.
+ *
+ * @param enabled 有効にするか
+ * @param mode 保持期間を過ぎた行の扱い
+ * @param interval 実行間隔
+ * @param batchSize 1トランザクションで処理する行数
+ * @param pause バッチ間の待機時間. 通常の処理とコネクション, I/Oを取り合わないようにする
+ * @param maxBatchesPerRun 1回の実行でテーブルごとに処理する最大のバッチ数
+ * @param lockTimeout バッチの各文のロック待ちの上限. 超えた場合はそのテーブルの処理を次回に回す
+ * @param sagaInstance 終了したSagaの保持期間
+ * @param message 送信済みのメッセージ(outbox)の保持期間. パーティションを利用する場合は使わない
+ * @param cdcGrace CDCが読み終えたWALの位置を記録した時刻から遡る期間. outboxに書き込むトランザクションの最大の長さより長くする
+ * @param receivedMessages 重複検知のための受信済みメッセージの保持期間
+ */
+@ConfigurationProperties(prefix = "app.retention")
+public record RetentionProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("DELETE") RetentionMode mode,
+        @DefaultValue("5m") Duration interval,
+        @DefaultValue("500") int batchSize,
+        @DefaultValue("200ms") Duration pause,
+        @DefaultValue("100") int maxBatchesPerRun,
+        @DefaultValue("1s") Duration lockTimeout,
+        @DefaultValue("30d") Duration sagaInstance,
+        @DefaultValue("7d") Duration message,
+        @DefaultValue("10m") Duration cdcGrace,
+        @DefaultValue("14d") Duration receivedMessages
+) {
+}
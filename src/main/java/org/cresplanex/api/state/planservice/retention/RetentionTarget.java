@@ -0,0 +1,24 @@
+package org.cresplanex.api.state.planservice.retention;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 保持期間で削除するテーブル.
+ *
+ * @param table テーブル名(スキーマなし)
+ * @param keyColumns 主キーの列. この順でキーセットをたどる
+ * @param condition 削除対象の条件. :名前でparametersの値を参照する
+ * @param parameters 保持期間の境界の時刻から, conditionに渡す値を求める. nullの場合はその回の削除を行わない
+ * @param dependentTables 同じキーの列を持ち, 合わせて削除するテーブル
+ */
+public record RetentionTarget(
+        String table,
+        List<String> keyColumns,
+        String condition,
+        Function<Instant, Map<String, Object>> parameters,
+        List<String> dependentTables
+) {
+}
@@ -0,0 +1,14 @@
+package org.cresplanex.api.state.planservice.saga.batch;
+
+import java.util.List;
+
+/**
+ * まとめたコマンドの返信を待つSaga.
+ * まとめたコマンドのヘッダーに含めて送信し, 返信から復元するため, 返信はどのレプリカでも処理できる.
+ *
+ * @param sagaType Sagaの種類
+ * @param sagaId SagaのID
+ * @param ids Sagaが検証を依頼したID
+ */
+public record ValidationBatchWaiter(String sagaType, String sagaId, List<String> ids) {
+}
@@ -0,0 +1,407 @@
+package org.cresplanex.api.state.planservice.saga.batch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.cresplanex.api.state.planservice.utils.TransactionUtils;
+import org.cresplanex.core.commands.common.CommandReplyOutcome;
+import org.cresplanex.core.commands.common.ReplyMessageHeaders;
+import org.cresplanex.core.commands.producer.CommandProducer;
+import org.cresplanex.core.messaging.common.Message;
+import org.cresplanex.core.messaging.consumer.MessageConsumer;
+import org.cresplanex.core.messaging.producer.MessageBuilder;
+import org.cresplanex.core.messaging.producer.MessageProducer;
+import org.cresplanex.core.saga.common.SagaCommandHeaders;
+import org.cresplanex.core.saga.common.SagaReplyHeaders;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 複数のSagaの存在検証のコマンドを, 送信先ごとに1つのコマンドにまとめて送信する.
+ * 最初のコマンドから一定時間, または一定数のIDが集まった時点で送信し, 返信を各Sagaの返信として転送する.
+ * <ul>
+ *     <li>返信を待つSagaはまとめたコマンドのヘッダーに含めるため, 送信後の状態はメモリに持たない.
+ *     ヘッダーがmaxWaitersBytesを超える場合は, 超えない単位に分けて送信する.</li>
+ *     <li>まとめた検証が失敗した場合は, どのSagaのIDが存在しないか判別できないため, Sagaごとのコマンドを送り直す.</li>
+ *     <li>Sagaへの返信が状態の保存より先に届かないよう, 受け付けはトランザクションのコミット後に行う.</li>
+ *     <li>受け付けたコマンドはSagaの状態と同じトランザクションでテーブルに記録し, 送信したトランザクションで削除する.
+ *     送信前の停止や送信の失敗で残ったコマンドは, resendAfterを過ぎた後にSagaごとのコマンドとして送信する.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class ValidationBatcher implements DisposableBean {
+
+    // まとめたコマンドの返信を待つSagaのヘッダー. 返信にはcommandreply_の接頭辞で引き継がれる
+    private static final String WAITERS_HEADER = "command_batch_waiters";
+    private static final String REPLY_WAITERS_HEADER = "commandreply_batch_waiters";
+
+    private final boolean enabled;
+    private final long windowMillis;
+    private final int maxIds;
+    private final int maxWaitersBytes;
+    private final String replyChannel;
+    private final String sagaReplyChannelFormat;
+    private final Duration resendAfter;
+    private final CommandProducer commandProducer;
+    private final MessageProducer messageProducer;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<ValidationTarget, List<ValidationBatchWaiter>> pending = new EnumMap<>(ValidationTarget.class);
+    private final Map<ValidationTarget, Integer> pendingIds = new EnumMap<>(ValidationTarget.class);
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "validation-batcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<ValidationTarget, Counter> batchedCounters = new EnumMap<>(ValidationTarget.class);
+    private final Map<ValidationTarget, Counter> individualCounters = new EnumMap<>(ValidationTarget.class);
+    private final Map<ValidationTarget, Counter> waiterCounters = new EnumMap<>(ValidationTarget.class);
+    private final Map<ValidationTarget, Counter> recoveredCounters = new EnumMap<>(ValidationTarget.class);
+
+    public ValidationBatcher(
+            @Value("${app.validation-batch.enabled:true}") boolean enabled,
+            @Value("${app.validation-batch.window:5ms}") Duration window,
+            @Value("${app.validation-batch.max-ids:500}") int maxIds,
+            @Value("${app.validation-batch.max-waiters-bytes:65536}") int maxWaitersBytes,
+            @Value("${app.validation-batch.reply-channel:plan-service-validation-batch-reply}") String replyChannel,
+            @Value("${app.validation-batch.resend-after:30s}") Duration resendAfter,
+            @Value("${app.validation-batch.saga-reply-channel}") String sagaReplyChannelFormat,
+            CommandProducer commandProducer,
+            MessageProducer messageProducer,
+            MessageConsumer messageConsumer,
+            ObjectMapper objectMapper,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry
+    ) {
+        this.enabled = enabled;
+        this.windowMillis = window.toMillis();
+        this.maxIds = maxIds;
+        this.maxWaitersBytes = maxWaitersBytes;
+        this.replyChannel = replyChannel;
+        if (!sagaReplyChannelFormat.contains("%s")) {
+            throw new IllegalArgumentException("app.validation-batch.saga-reply-channel must contain %s for the saga type");
+        }
+        this.sagaReplyChannelFormat = sagaReplyChannelFormat;
+        this.resendAfter = resendAfter;
+        this.commandProducer = commandProducer;
+        this.messageProducer = messageProducer;
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        // コミット後のコールバックからも呼び出すため, 常に新しいトランザクションで送信する
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        for (ValidationTarget target : ValidationTarget.values()) {
+            batchedCounters.put(target, Counter.builder("validation.batch.commands")
+                    .tag("target", target.name()).tag("kind", "batched").register(meterRegistry));
+            individualCounters.put(target, Counter.builder("validation.batch.commands")
+                    .tag("target", target.name()).tag("kind", "individual").register(meterRegistry));
+            waiterCounters.put(target, Counter.builder("validation.batch.sagas")
+                    .tag("target", target.name()).register(meterRegistry));
+            recoveredCounters.put(target, Counter.builder("validation.batch.commands")
+                    .tag("target", target.name()).tag("kind", "recovered").register(meterRegistry));
+        }
+
+        if (enabled) {
+            // 返信の処理に状態を持たないため, 全てのレプリカで同じ購読IDを利用する
+            messageConsumer.subscribe(replyChannel, Set.of(replyChannel), this::handleReply);
+            long interval = Math.max(1, resendAfter.toMillis() / 2);
+            scheduler.scheduleWithFixedDelay(this::resendStale, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sagaの検証のコマンドを受け付ける.
+     * 実行中のトランザクション(Sagaの状態の保存)で記録し, コミット後にまとめる対象に加える.
+     */
+    public void submit(ValidationTarget target, String sagaType, String sagaId, List<String> ids) {
+        ValidationBatchWaiter waiter = new ValidationBatchWaiter(sagaType, sagaId, List.copyOf(ids));
+        jdbcTemplate.update("""
+                        INSERT INTO validation_batch_pending (saga_id, target, saga_type, ids) VALUES (?, ?, ?, ?)
+                        ON CONFLICT (saga_id, target)
+                        DO UPDATE SET ids = EXCLUDED.ids, submitted_at = CURRENT_TIMESTAMP
+                        """,
+                sagaId, target.name(), sagaType, writeIds(waiter.ids()));
+        TransactionUtils.afterCommit(() -> enqueue(target, waiter));
+    }
+
+    private void enqueue(ValidationTarget target, ValidationBatchWaiter waiter) {
+        waiterCounters.get(target).increment();
+        List<ValidationBatchWaiter> batch = null;
+        synchronized (pending) {
+            List<ValidationBatchWaiter> waiters = pending.computeIfAbsent(target, k -> new ArrayList<>());
+            boolean first = waiters.isEmpty();
+            waiters.add(waiter);
+            int ids = pendingIds.merge(target, waiter.ids().size(), Integer::sum);
+            if (ids >= maxIds) {
+                batch = take(target);
+            } else if (first) {
+                scheduler.schedule(() -> flush(target), windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (batch != null) {
+            send(target, batch);
+        }
+    }
+
+    private void flush(ValidationTarget target) {
+        try {
+            List<ValidationBatchWaiter> batch;
+            synchronized (pending) {
+                batch = take(target);
+            }
+            if (!batch.isEmpty()) {
+                send(target, batch);
+            }
+        } catch (RuntimeException e) {
+            // スケジューラーは例外を破棄するため, ここで記録する. 記録が残ったコマンドはresendStaleで送信する
+            log.warn("Failed to flush {} validations", target, e);
+        }
+    }
+
+    private List<ValidationBatchWaiter> take(ValidationTarget target) {
+        List<ValidationBatchWaiter> waiters = pending.remove(target);
+        pendingIds.remove(target);
+        return waiters != null ? waiters : List.of();
+    }
+
+    /**
+     * 記録から削除できたSagaのコマンドのみを, 削除と同じトランザクションで送信する.
+     * 失敗した場合は記録が残るため, resendStaleで送信し直す.
+     */
+    private void send(ValidationTarget target, List<ValidationBatchWaiter> waiters) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<ValidationBatchWaiter> claimed = claim(target, waiters);
+                if (!claimed.isEmpty()) {
+                    sendBatched(target, claimed);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to send {} validation of {} sagas, will be resent after {}",
+                    target, waiters.size(), resendAfter, e);
+        }
+    }
+
+    private List<ValidationBatchWaiter> claim(ValidationTarget target, List<ValidationBatchWaiter> waiters) {
+        Set<String> claimed = new HashSet<>(jdbcTemplate.queryForList(
+                "DELETE FROM validation_batch_pending WHERE target = ? AND saga_id = ANY(?::varchar[]) RETURNING saga_id",
+                String.class,
+                target.name(), waiters.stream().map(ValidationBatchWaiter::sagaId).toArray(String[]::new)));
+        return waiters.stream()
+                .filter(waiter -> claimed.contains(waiter.sagaId()))
+                .toList();
+    }
+
+    /**
+     * 返信を待つSagaのヘッダーがmaxWaitersBytesを超えないよう分けて送信する.
+     */
+    private void sendBatched(ValidationTarget target, List<ValidationBatchWaiter> waiters) {
+        List<ValidationBatchWaiter> chunk = new ArrayList<>();
+        // JSONの配列の括弧
+        int chunkBytes = 2;
+        for (ValidationBatchWaiter waiter : waiters) {
+            int waiterBytes;
+            try {
+                // 区切りのカンマを含める
+                waiterBytes = objectMapper.writeValueAsBytes(waiter).length + 1;
+            } catch (JsonProcessingException e) {
+                log.warn("Failed to write {} validation waiter, falling back to an individual command", target, e);
+                sendIndividually(target, waiter);
+                continue;
+            }
+            if (!chunk.isEmpty() && chunkBytes + waiterBytes > maxWaitersBytes) {
+                sendChunk(target, chunk);
+                chunk = new ArrayList<>();
+                chunkBytes = 2;
+            }
+            chunk.add(waiter);
+            chunkBytes += waiterBytes;
+        }
+        if (!chunk.isEmpty()) {
+            sendChunk(target, chunk);
+        }
+    }
+
+    private void sendChunk(ValidationTarget target, List<ValidationBatchWaiter> waiters) {
+        if (waiters.size() == 1) {
+            // 1つのSagaのみの場合(ヘッダーの上限を超える場合を含む)は, まとめずに送信する
+            sendIndividually(target, waiters.get(0));
+            return;
+        }
+        String waitersHeader;
+        try {
+            waitersHeader = objectMapper.writeValueAsString(waiters);
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to write {} validation waiters, falling back to individual commands", target, e);
+            waiters.forEach(waiter -> sendIndividually(target, waiter));
+            return;
+        }
+        Set<String> ids = new LinkedHashSet<>();
+        waiters.forEach(waiter -> ids.addAll(waiter.ids()));
+        commandProducer.send(
+                target.getChannel(),
+                target.getCommandFactory().apply(List.copyOf(ids)),
+                replyChannel,
+                Map.of(WAITERS_HEADER, waitersHeader)
+        );
+        batchedCounters.get(target).increment();
+    }
+
+    /**
+     * 送信されずに残ったコマンドを, Sagaごとのコマンドとして送信する.
+     * 複数のレプリカで実行しても, 行ロック(SKIP LOCKED)と削除により1度だけ送信する.
+     */
+    void resendStale() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<PendingValidation> stale = jdbcTemplate.query("""
+                                DELETE FROM validation_batch_pending p USING (
+                                    SELECT saga_id, target FROM validation_batch_pending
+                                    WHERE submitted_at < CURRENT_TIMESTAMP - ?::interval
+                                    ORDER BY submitted_at LIMIT ? FOR UPDATE SKIP LOCKED
+                                ) s
+                                WHERE p.saga_id = s.saga_id AND p.target = s.target
+                                RETURNING p.target, p.saga_type, p.saga_id, p.ids
+                                """,
+                        (rs, rowNum) -> new PendingValidation(
+                                ValidationTarget.valueOf(rs.getString("target")),
+                                new ValidationBatchWaiter(
+                                        rs.getString("saga_type"),
+                                        rs.getString("saga_id"),
+                                        readIds(rs.getString("ids"))
+                                )
+                        ),
+                        resendAfter.toMillis() + " milliseconds", maxIds);
+                for (PendingValidation pending : stale) {
+                    log.warn("Resending stale {} validation of saga {}", pending.target(), pending.waiter().sagaId());
+                    sendIndividually(pending.target(), pending.waiter());
+                    recoveredCounters.get(pending.target()).increment();
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to resend stale validations", e);
+        }
+    }
+
+    /**
+     * Sagaが送信する場合と同じヘッダーで送信し, 返信はSagaに直接届ける.
+     */
+    private void sendIndividually(ValidationTarget target, ValidationBatchWaiter waiter) {
+        commandProducer.send(
+                target.getChannel(),
+                target.getCommandFactory().apply(waiter.ids()),
+                sagaReplyChannel(waiter.sagaType()),
+                Map.of(
+                        SagaCommandHeaders.SAGA_TYPE, waiter.sagaType(),
+                        SagaCommandHeaders.SAGA_ID, waiter.sagaId()
+                )
+        );
+        individualCounters.get(target).increment();
+    }
+
+    private void handleReply(Message message) {
+        String replyType = message.getHeader(ReplyMessageHeaders.REPLY_TYPE).orElse(null);
+        ValidationTarget target = ValidationTarget.ofReplyType(replyType);
+        List<ValidationBatchWaiter> waiters = message.getHeader(REPLY_WAITERS_HEADER)
+                .map(this::readWaiters)
+                .orElse(null);
+        if (target == null || waiters == null) {
+            log.warn("Ignored unexpected validation batch reply: {}", message);
+            return;
+        }
+
+        boolean success = message.getHeader(ReplyMessageHeaders.REPLY_OUTCOME)
+                .map(outcome -> CommandReplyOutcome.SUCCESS.name().equals(outcome))
+                .orElse(false);
+        if (!success) {
+            // 存在しないIDを含むSagaのみが失敗するよう, Sagaごとに検証し直す
+            waiters.forEach(waiter -> sendIndividually(target, waiter));
+            return;
+        }
+
+        for (ValidationBatchWaiter waiter : waiters) {
+            messageProducer.send(sagaReplyChannel(waiter.sagaType()), MessageBuilder
+                    .withPayload(message.getPayload())
+                    .withHeader(ReplyMessageHeaders.REPLY_OUTCOME, CommandReplyOutcome.SUCCESS.name())
+                    .withHeader(ReplyMessageHeaders.REPLY_TYPE, replyType)
+                    .withHeader(SagaReplyHeaders.REPLY_SAGA_TYPE, waiter.sagaType())
+                    .withHeader(SagaReplyHeaders.REPLY_SAGA_ID, waiter.sagaId())
+                    .build());
+        }
+    }
+
+    private String writeIds(List<String> ids) {
+        try {
+            return objectMapper.writeValueAsString(ids);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to write validation ids", e);
+        }
+    }
+
+    private List<String> readIds(String value) {
+        try {
+            return objectMapper.readValue(value, new TypeReference<>() {});
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to read validation ids", e);
+        }
+    }
+
+    private List<ValidationBatchWaiter> readWaiters(String value) {
+        try {
+            return objectMapper.readValue(value, new TypeReference<>() {});
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to read validation batch waiters", e);
+            return null;
+        }
+    }
+
+    /**
+     * オーケストレーターがSagaの返信を受け取るチャネル.
+     * SagaManagerはチャネル名を公開していないため, 設定(app.validation-batch.saga-reply-channel)から組み立てる.
+     */
+    private String sagaReplyChannel(String sagaType) {
+        return sagaReplyChannelFormat.formatted(sagaType);
+    }
+
+    private record PendingValidation(ValidationTarget target, ValidationBatchWaiter waiter) {
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        // 受け付け済みのコマンドを残さない
+        for (ValidationTarget target : ValidationTarget.values()) {
+            flush(target);
+        }
+    }
+}
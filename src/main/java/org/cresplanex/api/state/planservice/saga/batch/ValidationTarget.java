@@ -0,0 +1,78 @@
+package org.cresplanex.api.state.planservice.saga.batch;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.cresplanex.api.state.common.saga.SagaCommandChannel;
+import org.cresplanex.api.state.common.saga.reply.storage.FileObjectExistValidateReply;
+import org.cresplanex.api.state.common.saga.reply.team.TeamExistValidateReply;
+import org.cresplanex.api.state.common.saga.reply.userprofile.UserExistValidateReply;
+import org.cresplanex.api.state.common.saga.validate.storage.FileObjectExistValidateCommand;
+import org.cresplanex.api.state.common.saga.validate.team.TeamExistValidateCommand;
+import org.cresplanex.api.state.common.saga.validate.userprofile.UserExistValidateCommand;
+import org.cresplanex.core.commands.common.Command;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Saga間でまとめて送信する存在検証のコマンドの送信先.
+ * いずれのコマンドもIDのリストを受け取り, 全てが存在する場合に成功するため, 複数のSagaのIDの和集合で検証できる.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ValidationTarget {
+    USER(
+            SagaCommandChannel.USER_PROFILE,
+            UserExistValidateCommand.class,
+            UserExistValidateCommand.TYPE,
+            UserExistValidateReply.Success.TYPE,
+            UserExistValidateReply.Failure.TYPE,
+            UserExistValidateCommand::new,
+            command -> ((UserExistValidateCommand) command).getUserIds()
+    ),
+    TEAM(
+            SagaCommandChannel.TEAM,
+            TeamExistValidateCommand.class,
+            TeamExistValidateCommand.TYPE,
+            TeamExistValidateReply.Success.TYPE,
+            TeamExistValidateReply.Failure.TYPE,
+            TeamExistValidateCommand::new,
+            command -> ((TeamExistValidateCommand) command).getTeamIds()
+    ),
+    FILE_OBJECT(
+            SagaCommandChannel.STORAGE,
+            FileObjectExistValidateCommand.class,
+            FileObjectExistValidateCommand.TYPE,
+            FileObjectExistValidateReply.Success.TYPE,
+            FileObjectExistValidateReply.Failure.TYPE,
+            FileObjectExistValidateCommand::new,
+            command -> ((FileObjectExistValidateCommand) command).getFileObjectIds()
+    ),
+    ;
+
+    private final String channel;
+    private final Class<? extends Command> commandClass;
+    private final String commandType;
+    private final String successReplyType;
+    private final String failureReplyType;
+    private final Function<List<String>, Command> commandFactory;
+    private final Function<Object, List<String>> idsOf;
+
+    public static ValidationTarget ofCommand(Object command) {
+        for (ValidationTarget target : values()) {
+            if (target.commandClass.isInstance(command)) {
+                return target;
+            }
+        }
+        return null;
+    }
+
+    public static ValidationTarget ofReplyType(String replyType) {
+        for (ValidationTarget target : values()) {
+            if (target.successReplyType.equals(replyType) || target.failureReplyType.equals(replyType)) {
+                return target;
+            }
+        }
+        return null;
+    }
+}
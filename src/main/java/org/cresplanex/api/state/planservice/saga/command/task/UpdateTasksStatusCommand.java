@@ -0,0 +1,25 @@
+package org.cresplanex.api.state.planservice.saga.command.task;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.cresplanex.core.commands.common.Command;
+
+import java.util.List;
+
+/**
+ * 複数のTaskのステータスをまとめて更新するコマンド.
+ */
+public class UpdateTasksStatusCommand {
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Exec implements Command {
+        public static final String TYPE = "org.cresplanex.api.state.planservice.saga.command.task.UpdateTasksStatusCommand.Exec";
+
+        private String operatorId;
+        private List<String> taskIds;
+        private String status;
+    }
+}
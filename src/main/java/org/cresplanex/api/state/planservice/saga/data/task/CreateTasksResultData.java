@@ -0,0 +1,26 @@
+package org.cresplanex.api.state.planservice.saga.data.task;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.cresplanex.api.state.common.dto.plan.TaskWithAttachmentsDto;
+
+import java.util.List;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateTasksResultData {
+
+    // リクエストの順序で並ぶ
+    private List<Item> tasks;
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        // リクエスト内の位置
+        private int index;
+        private TaskWithAttachmentsDto task;
+    }
+}
@@ -0,0 +1,16 @@
+package org.cresplanex.api.state.planservice.saga.data.task;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.cresplanex.api.state.planservice.saga.reply.task.UpdateTasksStatusReply;
+
+import java.util.List;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UpdateTasksStatusResultData {
+
+    private List<UpdateTasksStatusReply.Success.StatusChange> changes;
+}
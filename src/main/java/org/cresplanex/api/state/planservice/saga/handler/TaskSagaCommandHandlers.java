@@ -15,11 +15,15 @@ import org.cresplanex.api.state.planservice.entity.TaskEntity;
 import org.cresplanex.api.state.planservice.entity.TaskAttachmentEntity;
 import org.cresplanex.api.state.planservice.exception.AlreadyExistTaskAttachmentException;
 import org.cresplanex.api.state.planservice.mapper.dto.DtoMapper;
+import org.cresplanex.api.state.planservice.saga.command.task.UpdateTasksStatusCommand;
+import org.cresplanex.api.state.planservice.saga.reply.task.UpdateTasksStatusReply;
+import org.cresplanex.api.state.planservice.saga.lock.TransactionScopedSagaLocks;
 import org.cresplanex.api.state.planservice.service.TaskService;
 import org.cresplanex.core.commands.consumer.CommandHandlers;
 import org.cresplanex.core.commands.consumer.CommandMessage;
 import org.cresplanex.core.commands.consumer.PathVariables;
 import org.cresplanex.core.messaging.common.Message;
+import org.cresplanex.core.saga.common.SagaCommandHeaders;
 import org.cresplanex.core.saga.lock.LockTarget;
 import org.cresplanex.core.saga.participant.SagaCommandHandlersBuilder;
 import org.springframework.stereotype.Component;
@@ -27,6 +31,7 @@ import org.springframework.stereotype.Component;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Set;
 
 import static org.cresplanex.core.commands.consumer.CommandHandlerReplyBuilder.*;
 import static org.cresplanex.core.saga.participant.SagaReplyMessageBuilder.withLock;
@@ -37,6 +42,7 @@ import static org.cresplanex.core.saga.participant.SagaReplyMessageBuilder.withL
 public class TaskSagaCommandHandlers {
 
     private final TaskService taskService;
+    private final TransactionScopedSagaLocks sagaLocks;
 
     public CommandHandlers commandHandlers() {
         return SagaCommandHandlersBuilder
@@ -61,6 +67,12 @@ public class TaskSagaCommandHandlers {
                         this::handleUndoUpdateStatusTaskCommand
                 )
                 .withPreLock(this::undoUpdateStatusTaskPreLock)
+
+                // 複数のTaskを対象とするため, SagaのロックはwithPreLockではなくハンドラ内で全てのTaskに対して取得する
+                .onMessage(UpdateTasksStatusCommand.Exec.class,
+                        UpdateTasksStatusCommand.Exec.TYPE,
+                        this::handleUpdateTasksStatusCommand
+                )
                 .build();
     }
 
@@ -182,4 +194,67 @@ public class TaskSagaCommandHandlers {
             return withException();
         }
     }
+
+    private Message handleUpdateTasksStatusCommand(
+            CommandMessage<UpdateTasksStatusCommand.Exec> cmd
+    ) {
+        UpdateTasksStatusCommand.Exec command = cmd.getCommand();
+        String sagaId = cmd.getMessage().getRequiredHeader(SagaCommandHeaders.SAGA_ID);
+        List<String> targets = command.getTaskIds().stream()
+                .map(taskId -> new LockTarget(LockTargetType.PLAN_TASK, taskId).getTarget())
+                .toList();
+        try {
+            // 他のSagaが処理中のTaskを更新すると, そのSagaの補償で更新が取り消されるため, 失敗とする
+            List<String> lockedTargets = sagaLocks.claimAll(
+                    cmd.getMessage().getRequiredHeader(SagaCommandHeaders.SAGA_TYPE), sagaId, targets);
+            if (!lockedTargets.isEmpty()) {
+                Set<String> locked = Set.copyOf(lockedTargets);
+                UpdateTasksStatusReply.Failure reply = new UpdateTasksStatusReply.Failure(
+                        List.of(),
+                        command.getTaskIds().stream()
+                                .filter(taskId -> locked.contains(new LockTarget(LockTargetType.PLAN_TASK, taskId).getTarget()))
+                                .toList(),
+                        PlanServiceApplicationCode.INTERNAL_SERVER_ERROR,
+                        "Tasks are being processed by another saga",
+                        LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+                );
+                return withException(reply, UpdateTasksStatusReply.Failure.TYPE);
+            }
+
+            // 存在しないTaskがある場合は更新せずに失敗とする
+            List<String> missingTaskIds = taskService.lockTasksAndFindMissing(command.getTaskIds());
+            if (!missingTaskIds.isEmpty()) {
+                UpdateTasksStatusReply.Failure reply = new UpdateTasksStatusReply.Failure(
+                        missingTaskIds,
+                        List.of(),
+                        PlanServiceApplicationCode.NOT_FOUND_TASK,
+                        "Tasks not found",
+                        LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+                );
+                return withException(reply, UpdateTasksStatusReply.Failure.TYPE);
+            }
+
+            List<UpdateTasksStatusReply.Success.StatusChange> changes = taskService.updateStatusInBatch(
+                    command.getOperatorId(), command.getTaskIds(), command.getStatus());
+            UpdateTasksStatusReply.Success reply = new UpdateTasksStatusReply.Success(
+                    new UpdateTasksStatusReply.Success.Data(changes),
+                    PlanServiceApplicationCode.SUCCESS,
+                    "Tasks status updated successfully",
+                    LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+            );
+            return withSuccess(reply, UpdateTasksStatusReply.Success.TYPE);
+        } catch (Exception e) {
+            UpdateTasksStatusReply.Failure reply = new UpdateTasksStatusReply.Failure(
+                    List.of(),
+                    List.of(),
+                    PlanServiceApplicationCode.INTERNAL_SERVER_ERROR,
+                    "Failed to update tasks status",
+                    LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+            );
+            return withException(reply, UpdateTasksStatusReply.Failure.TYPE);
+        } finally {
+            // このステップ以降にTaskを変更するステップはないため, ロックはコミットまで保持すれば十分
+            sagaLocks.releaseAll(sagaId, targets);
+        }
+    }
 }
@@ -0,0 +1,246 @@
+package org.cresplanex.api.state.planservice.saga.lock;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.cresplanex.api.state.planservice.utils.TransactionUtils;
+import org.cresplanex.core.messaging.common.Message;
+import org.cresplanex.core.saga.lock.SagaLockManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * SagaLockManagerの前段に置くプロセス内の処理.
+ * <ul>
+ *     <li>対象ごとの待ち行列で, このプロセスからの同じ対象へのロックテーブルの操作(取得, 待機メッセージの保存, 解放)を到着順に1つずつ実行する.
+ *     操作したトランザクションが終了するまで次の操作を待たせるため, 未コミットの行による待ちはデータベースではなくメモリ上で発生する.
+ *     待ち行列は対象ごとのため, 他の対象の操作は待たせない.</li>
+ *     <li>このプロセスで取得し, コミットされたロックは所有者を記録し, 同じSagaが再度取得する場合はロックテーブルを参照しない.</li>
+ * </ul>
+ * 待ち行列が並べるのはロックテーブルへの操作で, Sagaのロック自体ではない.
+ * 他のSagaがロックを保持している場合は委譲先と同じく取得に失敗し, メッセージは委譲先のstashMessageでテーブルに保存され, 解放時に渡される.
+ * メッセージは受信済みとして扱われるため, 再起動やレプリカ間の移動で失われないよう, 保持中のSagaの待機はメモリ上に置けない.
+ * 待ち時間が上限を超えた場合は待ち行列を抜けてロックテーブルを操作する(トランザクション間の循環はデータベースが検出する).
+ * 所有者の記録は他のレプリカでの解放を知らないため, 他のSagaの取得を拒否する判定には使わない.
+ * 解放済みのSagaが同じ対象を再度取得することはないため, 残った記録は件数の上限で削除する.
+ */
+public class LayeredSagaLockManager implements SagaLockManager {
+
+    private final SagaLockManager delegate;
+    private final long waitTimeoutNanos;
+    private final int ownerCacheSize;
+    // 対象ごとの, このプロセスで取得したロックの所有者(SagaのID). コミット後に記録する. アクセス順のLRU
+    private final Map<String, String> owners;
+    // 対象ごとの待ち行列. 操作中, 待機中のトランザクションがある対象のみ保持する
+    private final ConcurrentHashMap<String, Gate> gates = new ConcurrentHashMap<>();
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Timer waitTimer;
+    private final Counter waitTimeoutCounter;
+    private final Counter localClaimCounter;
+    private final Counter claimedCounter;
+    private final Counter contendedCounter;
+
+    /**
+     * @param delegate ロックテーブルを利用するSagaLockManager
+     * @param waitTimeout 待ち行列で待つ時間の上限
+     * @param ownerCacheSize 記録する所有者の最大数
+     */
+    public LayeredSagaLockManager(
+            SagaLockManager delegate,
+            Duration waitTimeout,
+            int ownerCacheSize,
+            MeterRegistry meterRegistry
+    ) {
+        this.delegate = delegate;
+        this.waitTimeoutNanos = waitTimeout.toNanos();
+        this.ownerCacheSize = ownerCacheSize;
+        this.owners = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > LayeredSagaLockManager.this.ownerCacheSize;
+            }
+        };
+
+        this.waitTimer = Timer.builder("saga.lock.wait").register(meterRegistry);
+        Gauge.builder("saga.lock.waiting", waiting, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("saga.lock.targets", gates, Map::size).register(meterRegistry);
+        this.waitTimeoutCounter = Counter.builder("saga.lock.wait.timeouts").register(meterRegistry);
+        this.localClaimCounter = Counter.builder("saga.lock.claims").tag("result", "local").register(meterRegistry);
+        this.claimedCounter = Counter.builder("saga.lock.claims").tag("result", "claimed").register(meterRegistry);
+        this.contendedCounter = Counter.builder("saga.lock.claims").tag("result", "contended").register(meterRegistry);
+    }
+
+    @Override
+    public boolean claimLock(String sagaType, String sagaId, String target) {
+        if (sagaId.equals(ownerOf(target))) {
+            localClaimCounter.increment();
+            return true;
+        }
+        return withGate(target, () -> {
+            boolean claimed = delegate.claimLock(sagaType, sagaId, target);
+            if (claimed) {
+                claimedCounter.increment();
+                // ロールバックされた場合はロックテーブルに行が残らないため, コミット後に記録する
+                TransactionUtils.afterCommit(() -> {
+                    synchronized (owners) {
+                        owners.put(target, sagaId);
+                    }
+                });
+            } else {
+                contendedCounter.increment();
+            }
+            return claimed;
+        });
+    }
+
+    @Override
+    public void stashMessage(String sagaType, String sagaId, String target, Message message) {
+        withGate(target, () -> {
+            delegate.stashMessage(sagaType, sagaId, target, message);
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<Message> unlock(String sagaId, String target) {
+        return withGate(target, () -> {
+            synchronized (owners) {
+                owners.remove(target, sagaId);
+            }
+            // 待機中のメッセージがある場合, ロックはそのSagaに移る
+            return delegate.unlock(sagaId, target);
+        });
+    }
+
+    int activeTargets() {
+        return gates.size();
+    }
+
+    private String ownerOf(String target) {
+        synchronized (owners) {
+            return owners.get(target);
+        }
+    }
+
+    /**
+     * 対象の待ち行列の順番を待ってから実行する.
+     * トランザクション内の場合は, 順番をトランザクションの終了まで保持する.
+     */
+    private <T> T withGate(String target, Supplier<T> action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 操作ごとにコミットされるため, 操作の間だけ保持する
+            Gate gate = enter(target);
+            try {
+                return action.get();
+            } finally {
+                if (gate != null) {
+                    leave(target, gate);
+                }
+            }
+        }
+        Held held = currentHeld();
+        if (!held.gates.containsKey(target)) {
+            Gate gate = enter(target);
+            if (gate != null) {
+                held.gates.put(target, gate);
+            }
+        }
+        return action.get();
+    }
+
+    /**
+     * @return 順番を得た待ち行列. 待ち時間が上限を超えた場合はnull
+     */
+    private Gate enter(String target) {
+        Gate gate = gates.compute(target, (key, current) -> {
+            Gate next = current != null ? current : new Gate();
+            next.users++;
+            return next;
+        });
+        waiting.incrementAndGet();
+        long start = System.nanoTime();
+        boolean acquired = false;
+        try {
+            acquired = gate.lock.tryLock(waitTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            waiting.decrementAndGet();
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (acquired) {
+            return gate;
+        }
+        waitTimeoutCounter.increment();
+        release(target);
+        return null;
+    }
+
+    private void leave(String target, Gate gate) {
+        gate.lock.unlock();
+        release(target);
+    }
+
+    private void release(String target) {
+        gates.computeIfPresent(target, (key, gate) -> --gate.users == 0 ? null : gate);
+    }
+
+    private Held currentHeld() {
+        Held held = (Held) TransactionSynchronizationManager.getResource(this);
+        if (held == null) {
+            held = new Held();
+            TransactionSynchronizationManager.bindResource(this, held);
+            TransactionSynchronizationManager.registerSynchronization(held);
+        }
+        return held;
+    }
+
+    private static class Gate {
+
+        // 到着順に順番を渡す
+        private final ReentrantLock lock = new ReentrantLock(true);
+        // 順番を保持, または待っているトランザクションの数(gatesのcompute内でのみ更新する)
+        private int users;
+    }
+
+    /**
+     * トランザクションが順番を保持している待ち行列.
+     */
+    private class Held implements TransactionSynchronization {
+
+        private final Map<String, Gate> gates = new HashMap<>();
+
+        // 中断中は内側のトランザクションに渡さないよう, 紐付けを外す
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResourceIfPossible(LayeredSagaLockManager.this);
+        }
+
+        @Override
+        public void resume() {
+            if (TransactionSynchronizationManager.getResource(LayeredSagaLockManager.this) == null) {
+                TransactionSynchronizationManager.bindResource(LayeredSagaLockManager.this, this);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(LayeredSagaLockManager.this);
+            gates.forEach(LayeredSagaLockManager.this::leave);
+            gates.clear();
+        }
+    }
+}
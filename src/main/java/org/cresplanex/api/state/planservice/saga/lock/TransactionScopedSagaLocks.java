@@ -0,0 +1,81 @@
+package org.cresplanex.api.state.planservice.saga.lock;
+
+import lombok.extern.slf4j.Slf4j;
+import org.cresplanex.core.common.jdbc.CoreSchema;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 複数の対象のSagaのロックを, 実行中のトランザクションの間だけ取得する.
+ * 1つのコマンドで複数の対象を更新し, 以降にロックを保持する必要がないSagaのステップで利用する.
+ * <ul>
+ *     <li>ロックはSagaLockManagerと同じロックテーブルの行として追加するため, 他のSagaのロックと相互に排他となる.</li>
+ *     <li>他のSagaがロックしている対象は待たずに返す. 追加中(未コミット)の行とは, そのトランザクションの終了まで待つ.</li>
+ *     <li>SagaLockManager#claimLockは競合時に一意制約違反を利用するため, ハンドラのトランザクションを中断させないよう利用しない.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class TransactionScopedSagaLocks {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String lockTable;
+
+    public TransactionScopedSagaLocks(JdbcTemplate jdbcTemplate, CoreSchema coreSchema) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.lockTable = coreSchema.qualifyTable("saga_lock_table");
+    }
+
+    /**
+     * 対象のロックを取得する. 取得できなかった対象がある場合, 取得したロックは解放する.
+     *
+     * @param sagaType Sagaの種類
+     * @param sagaId SagaのID
+     * @param targets ロックの対象
+     * @return 他のSagaがロックしている対象. 空の場合は全ての対象を取得している
+     */
+    public List<String> claimAll(String sagaType, String sagaId, List<String> targets) {
+        List<String> sortedTargets = targets.stream().distinct().sorted().toList();
+        // デッドロックしないよう, 対象の順に追加する
+        Set<String> claimed = new HashSet<>(jdbcTemplate.query("""
+                        INSERT INTO %s (target, saga_type, saga_id)
+                        SELECT t.target, ?, ? FROM unnest(?::varchar[]) WITH ORDINALITY AS t(target, ord)
+                        ORDER BY t.ord
+                        ON CONFLICT (target) DO NOTHING
+                        RETURNING target
+                        """.formatted(lockTable),
+                (rs, rowNum) -> rs.getString("target"),
+                sagaType, sagaId, sortedTargets.toArray(String[]::new)));
+        List<String> locked = sortedTargets.stream()
+                .filter(target -> !claimed.contains(target))
+                .toList();
+        if (!locked.isEmpty()) {
+            releaseAll(sagaId, List.copyOf(claimed));
+        }
+        return locked;
+    }
+
+    /**
+     * claimAllで取得したロックを解放する. コミット前に同じトランザクションで呼び出す.
+     *
+     * @param sagaId SagaのID
+     * @param targets ロックの対象
+     */
+    public void releaseAll(String sagaId, List<String> targets) {
+        if (targets.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("DELETE FROM " + lockTable + " WHERE saga_id = ? AND target = ANY(?::varchar[])",
+                    sagaId, (Object) targets.toArray(String[]::new));
+        } catch (DataAccessException e) {
+            // トランザクションが中断している場合. ロールバックで追加した行も取り消される
+            log.debug("Failed to release saga locks of {}: {}", sagaId, e.getMessage());
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.cresplanex.api.state.planservice.saga.model.task;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.cresplanex.api.state.common.constants.PlanServiceApplicationCode;
 import org.cresplanex.api.state.common.dto.plan.TaskWithAttachmentsDto;
 import org.cresplanex.api.state.common.event.model.plan.TaskCreated;
@@ -16,8 +17,14 @@ import org.cresplanex.api.state.common.saga.reply.plan.CreateTaskAndAttachInitia
 import org.cresplanex.api.state.common.saga.reply.storage.FileObjectExistValidateReply;
 import org.cresplanex.api.state.common.saga.reply.team.TeamExistValidateReply;
 import org.cresplanex.api.state.common.saga.type.PlanSagaType;
+import org.cresplanex.api.state.planservice.cache.ExistenceCache;
+import org.cresplanex.api.state.planservice.cache.ExistenceKind;
 import org.cresplanex.api.state.planservice.entity.TaskEntity;
 import org.cresplanex.api.state.planservice.event.publisher.TaskDomainEventPublisher;
+import org.cresplanex.api.state.planservice.saga.batch.ValidationBatcher;
+import org.cresplanex.api.state.planservice.saga.orchestration.BatchedValidationSagaDefinition;
+import org.cresplanex.api.state.planservice.saga.orchestration.ParallelStepsSagaDefinition;
+import org.cresplanex.api.state.planservice.saga.orchestration.StepConditions;
 import org.cresplanex.api.state.planservice.saga.proxy.PlanServiceProxy;
 import org.cresplanex.api.state.planservice.saga.proxy.StorageServiceProxy;
 import org.cresplanex.api.state.planservice.saga.proxy.TeamServiceProxy;
@@ -26,8 +33,13 @@ import org.cresplanex.api.state.planservice.saga.state.task.CreateTaskSagaState;
 import org.cresplanex.api.state.planservice.service.TaskLocalValidateService;
 import org.cresplanex.core.saga.orchestration.SagaDefinition;
 import org.cresplanex.api.state.common.saga.reply.userprofile.UserExistValidateReply;
+import org.cresplanex.api.state.common.saga.validate.storage.FileObjectExistValidateCommand;
+import org.cresplanex.api.state.common.saga.validate.team.TeamExistValidateCommand;
+import org.cresplanex.api.state.common.saga.validate.userprofile.UserExistValidateCommand;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 public class CreateTaskSaga extends SagaModel<
         TaskEntity,
@@ -38,6 +50,8 @@ public class CreateTaskSaga extends SagaModel<
     private final SagaDefinition<CreateTaskSagaState> sagaDefinition;
     private final TaskDomainEventPublisher domainEventPublisher;
     private final TaskLocalValidateService taskLocalService;
+    private final StepConditions<Action, CreateTaskSagaState> stepConditions;
+    private final ExistenceCache existenceCache;
 
     public CreateTaskSaga(
             TaskLocalValidateService taskLocalService,
@@ -45,9 +59,13 @@ public class CreateTaskSaga extends SagaModel<
             StorageServiceProxy storageService,
             TeamServiceProxy teamService,
             UserProfileServiceProxy userProfileService,
-            TaskDomainEventPublisher domainEventPublisher
+            TaskDomainEventPublisher domainEventPublisher,
+            ExistenceCache existenceCache,
+            ValidationBatcher validationBatcher,
+            MeterRegistry meterRegistry
     ) {
-        this.sagaDefinition = step()
+        this.stepConditions = new StepConditions<>(Action.class, PlanSagaType.CREATE_TASK, meterRegistry);
+        SagaDefinition<CreateTaskSagaState> sequential = step()
                 .invokeLocal(this::validateTask)
                 .onException(InvalidStartDateTimeException.class, this::failureLocalExceptionPublish)
                 .onException(InvalidDueDateTimeException.class, this::failureLocalExceptionPublish)
@@ -55,13 +73,14 @@ public class CreateTaskSaga extends SagaModel<
                 .onException(WillAddedTaskAttachmentsDuplicatedException.class, this::failureLocalExceptionPublish)
                 .step()
                 .invokeParticipant(
+                        stepConditions.when(Action.VALIDATE_USER, CreateTaskSagaState::needsUserValidation),
                         userProfileService.userExistValidate,
                         CreateTaskSagaState::makeUserExistValidateCommand
                 )
                 .onReply(
                         UserExistValidateReply.Success.class,
                         UserExistValidateReply.Success.TYPE,
-                        this::processedEventPublish
+                        this::handleUserExistValidateReply
                 )
                 .onReply(
                         UserExistValidateReply.Failure.class,
@@ -70,13 +89,14 @@ public class CreateTaskSaga extends SagaModel<
                 )
                 .step()
                 .invokeParticipant(
+                        stepConditions.when(Action.VALIDATE_TEAM, CreateTaskSagaState::needsTeamValidation),
                         teamService.teamExistValidate,
                         CreateTaskSagaState::makeTeamExistValidateCommand
                 )
                 .onReply(
                         TeamExistValidateReply.Success.class,
                         TeamExistValidateReply.Success.TYPE,
-                        this::processedEventPublish
+                        this::handleTeamExistValidateReply
                 )
                 .onReply(
                         TeamExistValidateReply.Failure.class,
@@ -85,13 +105,14 @@ public class CreateTaskSaga extends SagaModel<
                 )
                 .step()
                 .invokeParticipant(
+                        stepConditions.when(Action.VALIDATE_FILE_OBJECT, CreateTaskSagaState::needsFileObjectValidation),
                         storageService.fileObjectExistValidate,
                         CreateTaskSagaState::makeFileObjectExistValidateCommand
                 )
                 .onReply(
                         FileObjectExistValidateReply.Success.class,
                         FileObjectExistValidateReply.Success.TYPE,
-                        this::processedEventPublish
+                        this::handleFileObjectExistValidateReply
                 )
                 .onReply(
                         FileObjectExistValidateReply.Failure.class,
@@ -118,8 +139,29 @@ public class CreateTaskSaga extends SagaModel<
                         CreateTaskSagaState::makeUndoCreateTaskAndAttachInitialFIleObjectsCommand
                 )
                 .build();
+        // ユーザー, チーム, ファイルの存在検証は互いに独立しているため, まとめて送信する.
+        // また, 送信は同時に実行中の他のSagaの検証とまとめて行う
+        ParallelStepsSagaDefinition<CreateTaskSagaState> parallel = new ParallelStepsSagaDefinition<>(sequential, List.of(
+                new ParallelStepsSagaDefinition.Branch(
+                        UserExistValidateCommand.class,
+                        UserExistValidateReply.Success.TYPE,
+                        UserExistValidateReply.Failure.TYPE
+                ),
+                new ParallelStepsSagaDefinition.Branch(
+                        TeamExistValidateCommand.class,
+                        TeamExistValidateReply.Success.TYPE,
+                        TeamExistValidateReply.Failure.TYPE
+                ),
+                new ParallelStepsSagaDefinition.Branch(
+                        FileObjectExistValidateCommand.class,
+                        FileObjectExistValidateReply.Success.TYPE,
+                        FileObjectExistValidateReply.Failure.TYPE
+                )
+        ));
+        this.sagaDefinition = new BatchedValidationSagaDefinition<>(parallel, validationBatcher);
         this.domainEventPublisher = domainEventPublisher;
         this.taskLocalService = taskLocalService;
+        this.existenceCache = existenceCache;
     }
 
     @Override
@@ -166,11 +208,45 @@ public class CreateTaskSaga extends SagaModel<
                         .stream().map(CreateTaskSagaState.InitialData.FileObject::getFileObjectId).toList()
         );
 
+        // 存在が確認済みの検証は参加者に問い合わせない.
+        // ステップの条件は進行中に複数回評価されるため, ここで一度だけ決定して状態に保持する
+        state.setUserConfirmedLocally(state.hasChargeUser() && existenceCache.allKnownToExist(
+                ExistenceKind.USER, List.of(state.getInitialData().getChargeUserId())));
+        state.setTeamConfirmedLocally(existenceCache.allKnownToExist(
+                ExistenceKind.TEAM, List.of(state.getInitialData().getTeamId())));
+        state.setFileObjectsConfirmedLocally(state.hasAttachmentFileObjects() && existenceCache.allKnownToExist(
+                ExistenceKind.FILE_OBJECT, state.getAttachmentFileObjectIds()));
+        this.stepConditions.record(state);
+
         this.localProcessedEventPublish(
                 state, PlanServiceApplicationCode.SUCCESS, "Task validated"
         );
     }
 
+    private void handleUserExistValidateReply(
+            CreateTaskSagaState state,
+            UserExistValidateReply.Success reply
+    ) {
+        existenceCache.confirmed(ExistenceKind.USER, List.of(state.getInitialData().getChargeUserId()));
+        this.processedEventPublish(state, reply);
+    }
+
+    private void handleTeamExistValidateReply(
+            CreateTaskSagaState state,
+            TeamExistValidateReply.Success reply
+    ) {
+        existenceCache.confirmed(ExistenceKind.TEAM, List.of(state.getInitialData().getTeamId()));
+        this.processedEventPublish(state, reply);
+    }
+
+    private void handleFileObjectExistValidateReply(
+            CreateTaskSagaState state,
+            FileObjectExistValidateReply.Success reply
+    ) {
+        existenceCache.confirmed(ExistenceKind.FILE_OBJECT, state.getAttachmentFileObjectIds());
+        this.processedEventPublish(state, reply);
+    }
+
     private void handleCreateTaskAndAttachInitialFIleObjectsReply(
             CreateTaskSagaState state,
             CreateTaskAndAttachInitialFIleObjectsReply.Success reply
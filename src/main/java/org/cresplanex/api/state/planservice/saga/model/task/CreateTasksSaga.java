@@ -0,0 +1,241 @@
+package org.cresplanex.api.state.planservice.saga.model.task;
+
+import org.cresplanex.api.state.common.constants.PlanServiceApplicationCode;
+import org.cresplanex.api.state.common.event.model.plan.TaskDomainEvent;
+import org.cresplanex.api.state.common.event.publisher.AggregateDomainEventPublisher;
+import org.cresplanex.api.state.common.saga.SagaCommandChannel;
+import org.cresplanex.api.state.common.saga.local.plan.InvalidDueDateTimeException;
+import org.cresplanex.api.state.common.saga.local.plan.InvalidStartDateTimeException;
+import org.cresplanex.api.state.common.saga.local.plan.StartTimeMustBeEarlierDueTimeException;
+import org.cresplanex.api.state.common.saga.local.plan.WillAddedTaskAttachmentsDuplicatedException;
+import org.cresplanex.api.state.common.saga.model.SagaModel;
+import org.cresplanex.api.state.common.saga.reply.storage.FileObjectExistValidateReply;
+import org.cresplanex.api.state.common.saga.reply.team.TeamExistValidateReply;
+import org.cresplanex.api.state.common.saga.reply.userprofile.UserExistValidateReply;
+import org.cresplanex.api.state.planservice.constants.TaskStatus;
+import org.cresplanex.api.state.planservice.entity.TaskAttachmentEntity;
+import org.cresplanex.api.state.planservice.entity.TaskEntity;
+import org.cresplanex.api.state.planservice.event.model.TasksCreated;
+import org.cresplanex.api.state.planservice.event.publisher.TaskDomainEventPublisher;
+import org.cresplanex.api.state.planservice.mapper.dto.DtoMapper;
+import org.cresplanex.api.state.planservice.saga.data.task.CreateTasksResultData;
+import org.cresplanex.api.state.planservice.saga.proxy.StorageServiceProxy;
+import org.cresplanex.api.state.planservice.saga.proxy.TeamServiceProxy;
+import org.cresplanex.api.state.planservice.saga.proxy.UserProfileServiceProxy;
+import org.cresplanex.api.state.planservice.saga.state.task.CreateTasksSagaState;
+import org.cresplanex.api.state.planservice.saga.type.PlanBulkSagaType;
+import org.cresplanex.api.state.planservice.service.TaskLocalValidateService;
+import org.cresplanex.api.state.planservice.service.TaskService;
+import org.cresplanex.core.saga.orchestration.SagaDefinition;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * 複数のTaskをまとめて作成するSaga.
+ * 検証は全Taskの重複を除いたIDで1回ずつ行い, 作成は1つのトランザクションで一括して行う.
+ * いずれかのTaskが検証に失敗した場合は, どのTaskも作成しない.
+ */
+@Component
+public class CreateTasksSaga extends SagaModel<
+        TaskEntity,
+        TaskDomainEvent,
+        CreateTasksSaga.Action,
+        CreateTasksSagaState> {
+
+    private final SagaDefinition<CreateTasksSagaState> sagaDefinition;
+    private final TaskDomainEventPublisher domainEventPublisher;
+    private final TaskLocalValidateService taskLocalService;
+    private final TaskService taskService;
+
+    public CreateTasksSaga(
+            TaskLocalValidateService taskLocalService,
+            // TaskServiceはSagaを参照するため, 循環参照を遅延させる
+            @Lazy TaskService taskService,
+            StorageServiceProxy storageService,
+            TeamServiceProxy teamService,
+            UserProfileServiceProxy userProfileService,
+            TaskDomainEventPublisher domainEventPublisher
+    ) {
+        this.sagaDefinition = step()
+                .invokeLocal(this::validateTasks)
+                .onException(InvalidStartDateTimeException.class, this::failureLocalExceptionPublish)
+                .onException(InvalidDueDateTimeException.class, this::failureLocalExceptionPublish)
+                .onException(StartTimeMustBeEarlierDueTimeException.class, this::failureLocalExceptionPublish)
+                .onException(WillAddedTaskAttachmentsDuplicatedException.class, this::failureLocalExceptionPublish)
+                .step()
+                .invokeParticipant(
+                        userProfileService.userExistValidate,
+                        CreateTasksSagaState::makeUserExistValidateCommand
+                )
+                .onReply(
+                        UserExistValidateReply.Success.class,
+                        UserExistValidateReply.Success.TYPE,
+                        this::processedEventPublish
+                )
+                .onReply(
+                        UserExistValidateReply.Failure.class,
+                        UserExistValidateReply.Failure.TYPE,
+                        this::handleFailureReply
+                )
+                .step()
+                .invokeParticipant(
+                        teamService.teamExistValidate,
+                        CreateTasksSagaState::makeTeamExistValidateCommand
+                )
+                .onReply(
+                        TeamExistValidateReply.Success.class,
+                        TeamExistValidateReply.Success.TYPE,
+                        this::processedEventPublish
+                )
+                .onReply(
+                        TeamExistValidateReply.Failure.class,
+                        TeamExistValidateReply.Failure.TYPE,
+                        this::handleFailureReply
+                )
+                .step()
+                .invokeParticipant(
+                        storageService.fileObjectExistValidate,
+                        CreateTasksSagaState::makeFileObjectExistValidateCommand
+                )
+                .onReply(
+                        FileObjectExistValidateReply.Success.class,
+                        FileObjectExistValidateReply.Success.TYPE,
+                        this::processedEventPublish
+                )
+                .onReply(
+                        FileObjectExistValidateReply.Failure.class,
+                        FileObjectExistValidateReply.Failure.TYPE,
+                        this::handleFailureReply
+                )
+                // 最後のステップのため補償は不要
+                .step()
+                .invokeLocal(this::createTasks)
+                .build();
+        this.domainEventPublisher = domainEventPublisher;
+        this.taskLocalService = taskLocalService;
+        this.taskService = taskService;
+    }
+
+    @Override
+    protected AggregateDomainEventPublisher<TaskEntity, TaskDomainEvent>
+    getDomainEventPublisher() {
+        return domainEventPublisher;
+    }
+
+    @Override
+    protected Action[] getActions() {
+        return Action.values();
+    }
+
+    // 成功時のペイロードが単体の作成と異なるため, ジョブのイベントはTasksCreatedの種類を利用する
+
+    @Override
+    protected String getBeginEventType() {
+        return TasksCreated.BeginJobDomainEvent.TYPE;
+    }
+
+    @Override
+    protected String getProcessedEventType() {
+        return TasksCreated.ProcessedJobDomainEvent.TYPE;
+    }
+
+    @Override
+    protected String getFailedEventType() {
+        return TasksCreated.FailedJobDomainEvent.TYPE;
+    }
+
+    @Override
+    protected String getSuccessfullyEventType() {
+        return TasksCreated.SuccessJobDomainEvent.TYPE;
+    }
+
+    private void validateTasks(CreateTasksSagaState state)
+    throws InvalidStartDateTimeException, InvalidDueDateTimeException, StartTimeMustBeEarlierDueTimeException {
+        for (CreateTasksSagaState.InitialData.Task task : state.getInitialData().getTasks()) {
+            this.taskLocalService.validateCreatedTask(
+                    task.getTeamId(),
+                    task.getChargeUserId(),
+                    task.getTitle(),
+                    task.getDescription(),
+                    task.getStartDatetime(),
+                    task.getDueDatetime(),
+                    task.getAttachmentFileObjects()
+                            .stream().map(CreateTasksSagaState.InitialData.FileObject::getFileObjectId).toList()
+            );
+        }
+
+        this.localProcessedEventPublish(
+                state, PlanServiceApplicationCode.SUCCESS, "Tasks validated"
+        );
+    }
+
+    private void createTasks(CreateTasksSagaState state) {
+        List<TaskEntity> tasks = state.getInitialData().getTasks().stream()
+                .map(CreateTasksSaga::getTaskEntity)
+                .toList();
+
+        tasks = taskService.createAndAttachFilesInBatch(state.getOperatorId(), tasks);
+        state.setTaskWithAttachmentsDtos(tasks.stream()
+                .map(task -> DtoMapper.convert(task, task.getTaskAttachments()))
+                .toList());
+
+        this.localProcessedEventPublish(
+                state, PlanServiceApplicationCode.SUCCESS, "Tasks created"
+        );
+    }
+
+    private static TaskEntity getTaskEntity(CreateTasksSagaState.InitialData.Task initialTask) {
+        TaskEntity task = new TaskEntity();
+        task.setTeamId(initialTask.getTeamId());
+        task.setChargeUserId(initialTask.getChargeUserId());
+        task.setTitle(initialTask.getTitle());
+        task.setDescription(initialTask.getDescription());
+        task.setStartDatetime(LocalDateTime.parse(initialTask.getStartDatetime(), DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        task.setDueDatetime(LocalDateTime.parse(initialTask.getDueDatetime(), DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        task.setStatus(TaskStatus.DEFAULT);
+        task.setTaskAttachments(initialTask.getAttachmentFileObjects().stream()
+                .map(fileObject -> {
+                    TaskAttachmentEntity attachment = new TaskAttachmentEntity();
+                    attachment.setFileObjectId(fileObject.getFileObjectId());
+                    return attachment;
+                })
+                .toList());
+        return task;
+    }
+
+    @Override
+    public void onSagaCompletedSuccessfully(String sagaId, CreateTasksSagaState data) {
+        List<CreateTasksResultData.Item> items = IntStream.range(0, data.getTaskWithAttachmentsDtos().size())
+                .mapToObj(index -> new CreateTasksResultData.Item(index, data.getTaskWithAttachmentsDtos().get(index)))
+                .toList();
+        successfullyEventPublish(data, new CreateTasksResultData(items));
+    }
+
+    public enum Action {
+        VALIDATE_TASKS,
+        VALIDATE_USERS,
+        VALIDATE_TEAMS,
+        VALIDATE_FILE_OBJECTS,
+        CREATE_TASKS_AND_ATTACH_FILE_OBJECTS,
+    }
+
+    @Override
+    public SagaDefinition<CreateTasksSagaState> getSagaDefinition() {
+        return sagaDefinition;
+    }
+
+    @Override
+    public String getSagaType() {
+        return PlanBulkSagaType.CREATE_TASKS;
+    }
+
+    @Override
+    public String getSagaCommandSelfChannel() {
+        return SagaCommandChannel.PLAN;
+    }
+}
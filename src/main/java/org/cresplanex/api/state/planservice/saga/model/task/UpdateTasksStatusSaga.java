@@ -0,0 +1,141 @@
+package org.cresplanex.api.state.planservice.saga.model.task;
+
+import org.cresplanex.api.state.common.constants.PlanServiceApplicationCode;
+import org.cresplanex.api.state.common.event.model.plan.TaskDomainEvent;
+import org.cresplanex.api.state.common.event.publisher.AggregateDomainEventPublisher;
+import org.cresplanex.api.state.common.saga.SagaCommandChannel;
+import org.cresplanex.api.state.common.saga.local.plan.NotFoundTaskException;
+import org.cresplanex.api.state.common.saga.model.SagaModel;
+import org.cresplanex.api.state.planservice.entity.TaskEntity;
+import org.cresplanex.api.state.planservice.event.model.TasksUpdatedStatus;
+import org.cresplanex.api.state.planservice.event.publisher.TaskDomainEventPublisher;
+import org.cresplanex.api.state.planservice.saga.data.task.UpdateTasksStatusResultData;
+import org.cresplanex.api.state.planservice.saga.proxy.PlanServiceProxy;
+import org.cresplanex.api.state.planservice.saga.reply.task.UpdateTasksStatusReply;
+import org.cresplanex.api.state.planservice.saga.state.task.UpdateTasksStatusSagaState;
+import org.cresplanex.api.state.planservice.saga.type.PlanBulkSagaType;
+import org.cresplanex.api.state.planservice.service.TaskLocalValidateService;
+import org.cresplanex.core.saga.orchestration.SagaDefinition;
+import org.springframework.stereotype.Component;
+
+/**
+ * 複数のTaskのステータスをまとめて更新するSaga.
+ * 存在の確認と更新をそれぞれ1回で行う. 更新は最後のステップで, 以降に失敗しうるステップがないため補償を持たない.
+ */
+@Component
+public class UpdateTasksStatusSaga extends SagaModel<
+        TaskEntity,
+        TaskDomainEvent,
+        UpdateTasksStatusSaga.Action,
+        UpdateTasksStatusSagaState> {
+
+    private final SagaDefinition<UpdateTasksStatusSagaState> sagaDefinition;
+    private final TaskDomainEventPublisher domainEventPublisher;
+    private final TaskLocalValidateService taskLocalService;
+
+    public UpdateTasksStatusSaga(
+            TaskLocalValidateService taskLocalService,
+            PlanServiceProxy taskService,
+            TaskDomainEventPublisher domainEventPublisher
+    ) {
+        this.sagaDefinition = step()
+                .invokeLocal(this::validateTasks)
+                .onException(NotFoundTaskException.class, this::failureLocalExceptionPublish)
+                .step()
+                .invokeParticipant(
+                        taskService.updateTasksStatus,
+                        UpdateTasksStatusSagaState::makeUpdateTasksStatusCommand
+                )
+                .onReply(
+                        UpdateTasksStatusReply.Success.class,
+                        UpdateTasksStatusReply.Success.TYPE,
+                        this::handleUpdateTasksStatusReply
+                )
+                .onReply(
+                        UpdateTasksStatusReply.Failure.class,
+                        UpdateTasksStatusReply.Failure.TYPE,
+                        this::handleFailureReply
+                )
+                .build();
+        this.taskLocalService = taskLocalService;
+        this.domainEventPublisher = domainEventPublisher;
+    }
+
+    @Override
+    protected AggregateDomainEventPublisher<TaskEntity, TaskDomainEvent>
+    getDomainEventPublisher() {
+        return domainEventPublisher;
+    }
+
+    @Override
+    protected Action[] getActions() {
+        return Action.values();
+    }
+
+    // 成功時のペイロードが単体の更新と異なるため, ジョブのイベントはTasksUpdatedStatusの種類を利用する
+
+    @Override
+    protected String getBeginEventType() {
+        return TasksUpdatedStatus.BeginJobDomainEvent.TYPE;
+    }
+
+    @Override
+    protected String getProcessedEventType() {
+        return TasksUpdatedStatus.ProcessedJobDomainEvent.TYPE;
+    }
+
+    @Override
+    protected String getFailedEventType() {
+        return TasksUpdatedStatus.FailedJobDomainEvent.TYPE;
+    }
+
+    @Override
+    protected String getSuccessfullyEventType() {
+        return TasksUpdatedStatus.SuccessJobDomainEvent.TYPE;
+    }
+
+    private void validateTasks(UpdateTasksStatusSagaState state)
+            throws NotFoundTaskException {
+        this.taskLocalService.validateTasks(
+                state.getInitialData().getTaskIds()
+        );
+
+        this.localProcessedEventPublish(
+                state, PlanServiceApplicationCode.SUCCESS, "Tasks validated"
+        );
+    }
+
+    private void handleUpdateTasksStatusReply(
+            UpdateTasksStatusSagaState state, UpdateTasksStatusReply.Success reply) {
+        state.setChanges(reply.getData().getChanges());
+        this.localProcessedEventPublish(
+                state, reply.getCode(), reply.getCaption()
+        );
+    }
+
+    @Override
+    public void onSagaCompletedSuccessfully(String sagaId, UpdateTasksStatusSagaState data) {
+        UpdateTasksStatusResultData resultData = new UpdateTasksStatusResultData(data.getChanges());
+        successfullyEventPublish(data, resultData);
+    }
+
+    public enum Action {
+        VALIDATE_TASKS,
+        UPDATE_TASKS_STATUS,
+    }
+
+    @Override
+    public SagaDefinition<UpdateTasksStatusSagaState> getSagaDefinition() {
+        return sagaDefinition;
+    }
+
+    @Override
+    public String getSagaType() {
+        return PlanBulkSagaType.UPDATE_TASKS_STATUS;
+    }
+
+    @Override
+    public String getSagaCommandSelfChannel() {
+        return SagaCommandChannel.PLAN;
+    }
+}
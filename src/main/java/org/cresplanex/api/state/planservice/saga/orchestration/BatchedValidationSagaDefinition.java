@@ -0,0 +1,66 @@
+package org.cresplanex.api.state.planservice.saga.orchestration;
+
+import org.cresplanex.api.state.planservice.saga.batch.ValidationBatcher;
+import org.cresplanex.api.state.planservice.saga.batch.ValidationTarget;
+import org.cresplanex.core.messaging.common.Message;
+import org.cresplanex.core.saga.orchestration.CommandWithDestinationAndType;
+import org.cresplanex.core.saga.orchestration.SagaActions;
+import org.cresplanex.core.saga.orchestration.SagaDefinition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 存在検証のコマンドをSagaから直接送信せず, ValidationBatcherに渡すSagaDefinition.
+ * 返信はValidationBatcherがSagaの返信として転送するため, 委譲先からは通常の返信と区別できない.
+ * SagaのIDが必要なため, startで返されたコマンドはそのまま送信する.
+ *
+ * @param <Data> Sagaのデータ
+ */
+public class BatchedValidationSagaDefinition<Data> implements SagaDefinition<Data> {
+
+    private final SagaDefinition<Data> delegate;
+    private final ValidationBatcher batcher;
+
+    public BatchedValidationSagaDefinition(SagaDefinition<Data> delegate, ValidationBatcher batcher) {
+        this.delegate = delegate;
+        this.batcher = batcher;
+    }
+
+    @Override
+    public SagaActions<Data> start(Data sagaData) {
+        return delegate.start(sagaData);
+    }
+
+    @Override
+    public SagaActions<Data> handleReply(
+            String sagaType, String sagaId, String currentState, Data sagaData, Message message) {
+        SagaActions<Data> actions = delegate.handleReply(sagaType, sagaId, currentState, sagaData, message);
+        if (!batcher.isEnabled() || actions.isLocal() || actions.getCommands().isEmpty()) {
+            return actions;
+        }
+
+        List<CommandWithDestinationAndType> remaining = new ArrayList<>();
+        for (CommandWithDestinationAndType command : actions.getCommands()) {
+            Object body = command.getCommand().getCommand();
+            ValidationTarget target = ValidationTarget.ofCommand(body);
+            if (target == null) {
+                remaining.add(command);
+                continue;
+            }
+            batcher.submit(target, sagaType, sagaId, target.getIdsOf().apply(body));
+        }
+        if (remaining.size() == actions.getCommands().size()) {
+            return actions;
+        }
+
+        SagaActions.Builder<Data> builder = SagaActions.<Data>builder()
+                .withCommands(remaining)
+                .withIsEndState(actions.isEndState())
+                .withIsCompensating(actions.isCompensating())
+                .withIsFailed(actions.isFailed());
+        actions.getUpdatedSagaData().ifPresent(builder::withUpdatedSagaData);
+        actions.getUpdatedState().ifPresent(builder::withUpdatedState);
+        return builder.build();
+    }
+}
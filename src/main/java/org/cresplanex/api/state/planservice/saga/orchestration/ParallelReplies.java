@@ -0,0 +1,43 @@
+package org.cresplanex.api.state.planservice.saga.orchestration;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 並列に送信したステップの返信の受信状況.
+ * Sagaのデータとともに永続化されるため, 受信の途中で再起動しても続きから処理できる.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class ParallelReplies {
+
+    // 並列のステップの返信を待っている間のみtrue
+    private boolean active;
+    // 送信したステップの位置(0始まり, 定義の順). 条件によりスキップされたステップは含まない
+    private List<Integer> sent = new ArrayList<>();
+    // ステップの位置ごとの成功の返信
+    private Map<Integer, StoredReply> replies = new HashMap<>();
+
+    public void clear() {
+        active = false;
+        sent.clear();
+        replies.clear();
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StoredReply {
+        private String payload;
+        private Map<String, String> headers;
+    }
+}
@@ -0,0 +1,9 @@
+package org.cresplanex.api.state.planservice.saga.orchestration;
+
+/**
+ * ParallelStepsSagaDefinitionを利用するSagaのデータ.
+ */
+public interface ParallelStepsSagaData {
+
+    ParallelReplies getParallelReplies();
+}
@@ -0,0 +1,202 @@
+package org.cresplanex.api.state.planservice.saga.orchestration;
+
+import org.cresplanex.core.commands.common.CommandReplyOutcome;
+import org.cresplanex.core.commands.common.ReplyMessageHeaders;
+import org.cresplanex.core.messaging.common.Message;
+import org.cresplanex.core.messaging.producer.MessageBuilder;
+import org.cresplanex.core.saga.orchestration.CommandWithDestinationAndType;
+import org.cresplanex.core.saga.orchestration.SagaActions;
+import org.cresplanex.core.saga.orchestration.SagaDefinition;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * 連続する互いに独立した参加者のステップを, 1回でまとめて送信するSagaDefinition.
+ * ステップの定義はDSLで構築した順次のSagaDefinitionをそのまま利用し, 以下のように振る舞う.
+ * <ul>
+ *     <li>いずれかのステップのコマンドを送信する際に, 後続のステップのコマンドも同時に送信する.
+ *     条件付きのステップのうち実行されないものは送信しない.</li>
+ *     <li>成功の返信はすべて揃うまでデータに保持し, 揃った時点で元の順序で委譲先に渡す.
+ *     各ステップの返信のハンドラ(処理済みイベントの発行など)は順次の場合と同様に呼ばれる.</li>
+ *     <li>失敗の返信を受け取った時点で, 他の返信を待たずに委譲先をそのステップまで進めて失敗を渡す.</li>
+ * </ul>
+ * 後続のステップのコマンドは, どのハンドラにも一致しない返信で委譲先を進めることで取得するため,
+ * 対象のステップは補償を持たず, 返信のハンドラ以外に副作用を持たないものでなければならない.
+ * また, 後続のステップが全てスキップされた場合は対象の直後のステップまで進めるため, 直後のステップはローカルであってはならない.
+ *
+ * @param <Data> Sagaのデータ
+ */
+public class ParallelStepsSagaDefinition<Data extends ParallelStepsSagaData> implements SagaDefinition<Data> {
+
+    // どのステップの返信のハンドラにも一致しない返信の種類
+    private static final String PROBE_REPLY_TYPE = ParallelStepsSagaDefinition.class.getName() + ".Probe";
+
+    private final SagaDefinition<Data> delegate;
+    private final List<Branch> branches;
+
+    /**
+     * @param delegate DSLで構築した順次のSagaDefinition
+     * @param branches 並列に実行する連続したステップ(定義の順)
+     */
+    public ParallelStepsSagaDefinition(SagaDefinition<Data> delegate, List<Branch> branches) {
+        if (branches.size() < 2) {
+            throw new IllegalArgumentException("At least two branches are required");
+        }
+        this.delegate = delegate;
+        this.branches = List.copyOf(branches);
+    }
+
+    /**
+     * 並列に実行するステップ.
+     *
+     * @param commandClass 送信するコマンドのクラス
+     * @param successType 成功の返信の種類
+     * @param failureType 失敗の返信の種類
+     */
+    public record Branch(Class<?> commandClass, String successType, String failureType) {
+
+        boolean matches(String replyType) {
+            return successType.equals(replyType) || failureType.equals(replyType);
+        }
+    }
+
+    @Override
+    public SagaActions<Data> start(Data sagaData) {
+        return fanOut(sagaData, delegate.start(sagaData));
+    }
+
+    @Override
+    public SagaActions<Data> handleReply(
+            String sagaType, String sagaId, String currentState, Data sagaData, Message message) {
+        ParallelReplies parallelReplies = sagaData.getParallelReplies();
+        int index = branchIndexOf(message.getHeader(ReplyMessageHeaders.REPLY_TYPE).orElse(null));
+        if (!parallelReplies.isActive() || !parallelReplies.getSent().contains(index)) {
+            return fanOut(sagaData, delegate.handleReply(sagaType, sagaId, currentState, sagaData, message));
+        }
+
+        boolean success = message.getHeader(ReplyMessageHeaders.REPLY_OUTCOME)
+                .map(outcome -> CommandReplyOutcome.SUCCESS.name().equals(outcome))
+                .orElse(false);
+        if (!success) {
+            // 失敗したステップまで委譲先を進め, 補償と失敗の処理を委ねる
+            int position = parallelReplies.getSent().indexOf(index);
+            parallelReplies.clear();
+            String state = currentState;
+            for (int i = 0; i < position; i++) {
+                state = delegate.handleReply(sagaType, sagaId, state, sagaData, probeReply())
+                        .getUpdatedState().orElse(state);
+            }
+            return delegate.handleReply(sagaType, sagaId, state, sagaData, message);
+        }
+
+        parallelReplies.getReplies().put(index, new ParallelReplies.StoredReply(
+                message.getPayload(), new HashMap<>(message.getHeaders())));
+        if (parallelReplies.getReplies().size() < parallelReplies.getSent().size()) {
+            return SagaActions.<Data>builder()
+                    .withUpdatedSagaData(sagaData)
+                    .withUpdatedState(currentState)
+                    .build();
+        }
+
+        // すべて成功したため, 元の順序で返信を委譲先に渡す
+        List<ParallelReplies.StoredReply> replies = parallelReplies.getSent().stream()
+                .map(parallelReplies.getReplies()::get)
+                .toList();
+        parallelReplies.clear();
+        String state = currentState;
+        SagaActions<Data> actions = null;
+        for (ParallelReplies.StoredReply reply : replies) {
+            actions = delegate.handleReply(sagaType, sagaId, state, sagaData, toMessage(reply));
+            state = actions.getUpdatedState().orElse(state);
+            if (actions.isEndState() || actions.isCompensating()) {
+                break;
+            }
+        }
+        return fanOut(sagaData, actions);
+    }
+
+    /**
+     * 委譲先が並列のステップのコマンドを送信しようとしている場合, 後続のステップのコマンドを加える.
+     * 条件によりスキップされるステップは委譲先が飛ばすため, 送信したステップの位置を記録しておく.
+     */
+    private SagaActions<Data> fanOut(Data sagaData, SagaActions<Data> actions) {
+        if (actions.isCompensating() || actions.isLocal()) {
+            return actions;
+        }
+        int first = branchIndexOf(actions);
+        if (first < 0 || first == branches.size() - 1) {
+            return actions;
+        }
+
+        List<CommandWithDestinationAndType> commands = new ArrayList<>(actions.getCommands());
+        List<Integer> sent = new ArrayList<>(List.of(first));
+        String state = actions.getUpdatedState().orElseThrow();
+        // 副作用のない返信で委譲先を進め, 後続のステップのコマンドを取得する.
+        // 取得のために進めた状態は保存せず, 最初のステップで返信を待つ
+        String probeState = state;
+        while (sent.get(sent.size() - 1) < branches.size() - 1) {
+            SagaActions<Data> next = delegate.handleReply(null, null, probeState, sagaData, probeReply());
+            int index = next.isLocal() ? -1 : branchIndexOf(next);
+            if (index <= sent.get(sent.size() - 1)) {
+                // 並列のステップの範囲を抜けた
+                break;
+            }
+            commands.addAll(next.getCommands());
+            sent.add(index);
+            probeState = next.getUpdatedState().orElse(probeState);
+        }
+        if (sent.size() == 1) {
+            return actions;
+        }
+
+        ParallelReplies parallelReplies = sagaData.getParallelReplies();
+        parallelReplies.clear();
+        parallelReplies.setActive(true);
+        parallelReplies.setSent(sent);
+        return SagaActions.<Data>builder()
+                .withCommands(commands)
+                .withUpdatedSagaData(sagaData)
+                .withUpdatedState(state)
+                .withIsEndState(actions.isEndState())
+                .withIsCompensating(false)
+                .build();
+    }
+
+    private int branchIndexOf(SagaActions<Data> actions) {
+        for (int i = 0; i < branches.size(); i++) {
+            Class<?> commandClass = branches.get(i).commandClass();
+            if (actions.getCommands().stream()
+                    .anyMatch(command -> commandClass.isInstance(command.getCommand().getCommand()))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int branchIndexOf(String replyType) {
+        if (replyType == null) {
+            return -1;
+        }
+        for (int i = 0; i < branches.size(); i++) {
+            if (branches.get(i).matches(replyType)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Message probeReply() {
+        return MessageBuilder.withPayload("{}")
+                .withHeader(ReplyMessageHeaders.REPLY_OUTCOME, CommandReplyOutcome.SUCCESS.name())
+                .withHeader(ReplyMessageHeaders.REPLY_TYPE, PROBE_REPLY_TYPE)
+                .build();
+    }
+
+    private static Message toMessage(ParallelReplies.StoredReply reply) {
+        MessageBuilder builder = MessageBuilder.withPayload(reply.getPayload());
+        reply.getHeaders().forEach(builder::withHeader);
+        return builder.build();
+    }
+}
@@ -0,0 +1,66 @@
+package org.cresplanex.api.state.planservice.saga.orchestration;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Sagaの条件付きステップの実行条件.
+ * 条件はステップの定義(invokeParticipantの述語)に渡すとともに, Sagaの開始時にrecordで評価し,
+ * Actionごとに実行, スキップされたステップの数を記録する.
+ * 述語はSagaの進行中に複数回評価されることがあるため, 記録は述語の評価とは分けて1回のみ行う.
+ *
+ * @param <A> SagaのAction
+ * @param <Data> Sagaのデータ
+ */
+public class StepConditions<A extends Enum<A>, Data> {
+
+    private final Map<A, Predicate<Data>> conditions;
+    private final Map<A, Counter> executedCounters;
+    private final Map<A, Counter> skippedCounters;
+    private final String sagaType;
+    private final MeterRegistry meterRegistry;
+
+    public StepConditions(Class<A> actionClass, String sagaType, MeterRegistry meterRegistry) {
+        this.conditions = new EnumMap<>(actionClass);
+        this.executedCounters = new EnumMap<>(actionClass);
+        this.skippedCounters = new EnumMap<>(actionClass);
+        this.sagaType = sagaType;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * ステップの実行条件を登録し, ステップの定義に渡す述語を返す.
+     */
+    public Predicate<Data> when(A action, Predicate<Data> condition) {
+        conditions.put(action, condition);
+        executedCounters.put(action, counter(action, "executed"));
+        skippedCounters.put(action, counter(action, "skipped"));
+        return condition;
+    }
+
+    /**
+     * 登録された全てのステップの実行有無を記録する.
+     * Sagaごとに1回, 最初のローカルステップから呼び出す.
+     */
+    public void record(Data data) {
+        conditions.forEach((action, condition) -> {
+            if (condition.test(data)) {
+                executedCounters.get(action).increment();
+            } else {
+                skippedCounters.get(action).increment();
+            }
+        });
+    }
+
+    private Counter counter(A action, String result) {
+        return Counter.builder("saga.steps")
+                .tag("saga_type", sagaType)
+                .tag("action", action.name())
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
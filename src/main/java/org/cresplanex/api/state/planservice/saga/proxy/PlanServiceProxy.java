@@ -3,6 +3,7 @@ package org.cresplanex.api.state.planservice.saga.proxy;
 import org.cresplanex.api.state.common.saga.SagaCommandChannel;
 import org.cresplanex.api.state.common.saga.command.plan.CreateTaskAndAttachInitialFIleObjectsCommand;
 import org.cresplanex.api.state.common.saga.command.plan.UpdateStatusTaskCommand;
+import org.cresplanex.api.state.planservice.saga.command.task.UpdateTasksStatusCommand;
 import org.cresplanex.core.saga.simpledsl.CommandEndpoint;
 import org.cresplanex.core.saga.simpledsl.CommandEndpointBuilder;
 import org.springframework.stereotype.Component;
@@ -37,4 +38,11 @@ public class PlanServiceProxy {
             .withChannel(SagaCommandChannel.PLAN)
             .withCommandType(UpdateStatusTaskCommand.Undo.TYPE)
             .build();
+
+    public final CommandEndpoint<UpdateTasksStatusCommand.Exec> updateTasksStatus
+            = CommandEndpointBuilder
+            .forCommand(UpdateTasksStatusCommand.Exec.class)
+            .withChannel(SagaCommandChannel.PLAN)
+            .withCommandType(UpdateTasksStatusCommand.Exec.TYPE)
+            .build();
 }
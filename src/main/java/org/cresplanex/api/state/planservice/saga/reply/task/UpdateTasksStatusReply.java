@@ -0,0 +1,69 @@
+package org.cresplanex.api.state.planservice.saga.reply.task;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.cresplanex.api.state.common.saga.reply.plan.UpdateStatusTaskReply;
+
+import java.util.List;
+
+/**
+ * UpdateTasksStatusCommand.Execの返信.
+ */
+public class UpdateTasksStatusReply {
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Success {
+        public static final String TYPE = "org.cresplanex.api.state.planservice.saga.reply.task.UpdateTasksStatusReply.Success";
+
+        private Data data;
+        private String code;
+        private String caption;
+        private String timestamp;
+
+        @Getter
+        @NoArgsConstructor
+        @AllArgsConstructor
+        public static class Data {
+            private List<StatusChange> changes;
+        }
+
+        @Getter
+        @NoArgsConstructor
+        @AllArgsConstructor
+        public static class StatusChange {
+            private String taskId;
+            private String prevStatus;
+            private String status;
+        }
+    }
+
+    /**
+     * 失敗時の返信. 失敗時の共通の処理(SagaModel#handleFailureReply)で扱えるよう, 単体の更新の失敗の形を引き継ぐ.
+     * 更新しなかった原因のTaskを含める.
+     */
+    @Getter
+    @NoArgsConstructor
+    public static class Failure extends UpdateStatusTaskReply.Failure {
+        public static final String TYPE = "org.cresplanex.api.state.planservice.saga.reply.task.UpdateTasksStatusReply.Failure";
+
+        // 存在しないTask
+        private List<String> missingTaskIds = List.of();
+        // 他のSagaがロックしているTask
+        private List<String> lockedTaskIds = List.of();
+
+        public Failure(
+                List<String> missingTaskIds,
+                List<String> lockedTaskIds,
+                String code,
+                String caption,
+                String timestamp
+        ) {
+            super(null, code, caption, timestamp);
+            this.missingTaskIds = missingTaskIds;
+            this.lockedTaskIds = lockedTaskIds;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.cresplanex.api.state.planservice.saga.repository;
+
+import org.cresplanex.core.saga.orchestration.SagaDataSerde;
+import org.cresplanex.core.saga.orchestration.SagaInstance;
+import org.cresplanex.core.saga.orchestration.SagaInstanceData;
+import org.cresplanex.core.saga.orchestration.SerializedSagaData;
+import org.cresplanex.core.saga.orchestration.repository.SagaInstanceRepository;
+
+/**
+ * Sagaの状態をSagaStateCodecで変換して保存するSagaInstanceRepository.
+ * 変換は保存, 読み込みの境界でのみ行い, SagaManagerが扱うSagaInstanceは従来通りJSONを保持する.
+ */
+public class EncodedSagaInstanceRepository implements SagaInstanceRepository {
+
+    private final SagaInstanceRepository delegate;
+    private final SagaStateCodec codec;
+
+    public EncodedSagaInstanceRepository(SagaInstanceRepository delegate, SagaStateCodec codec) {
+        this.delegate = delegate;
+        this.codec = codec;
+    }
+
+    @Override
+    public void save(SagaInstance sagaInstance) {
+        SerializedSagaData original = sagaInstance.getSerializedSagaData();
+        sagaInstance.setSerializedSagaData(encode(original));
+        try {
+            delegate.save(sagaInstance);
+        } finally {
+            sagaInstance.setSerializedSagaData(original);
+        }
+    }
+
+    @Override
+    public SagaInstance find(String sagaType, String sagaId) {
+        SagaInstance sagaInstance = delegate.find(sagaType, sagaId);
+        SerializedSagaData stored = sagaInstance.getSerializedSagaData();
+        sagaInstance.setSerializedSagaData(new SerializedSagaData(
+                stored.getSagaDataType(), codec.decode(stored.getSagaDataJSON())));
+        return sagaInstance;
+    }
+
+    @Override
+    public void update(SagaInstance sagaInstance) {
+        SerializedSagaData original = sagaInstance.getSerializedSagaData();
+        sagaInstance.setSerializedSagaData(encode(original));
+        try {
+            delegate.update(sagaInstance);
+        } finally {
+            sagaInstance.setSerializedSagaData(original);
+        }
+    }
+
+    @Override
+    public <Data> SagaInstanceData<Data> findWithData(String sagaType, String sagaId) {
+        SagaInstance sagaInstance = find(sagaType, sagaId);
+        Data sagaData = SagaDataSerde.deserializeSagaData(sagaInstance.getSerializedSagaData());
+        return new SagaInstanceData<>(sagaInstance, sagaData);
+    }
+
+    private SerializedSagaData encode(SerializedSagaData data) {
+        return new SerializedSagaData(data.getSagaDataType(), codec.encode(data.getSagaDataJSON()));
+    }
+}
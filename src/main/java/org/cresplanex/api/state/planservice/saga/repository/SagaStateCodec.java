@@ -0,0 +1,21 @@
+package org.cresplanex.api.state.planservice.saga.repository;
+
+/**
+ * Sagaの状態(JSON)を保存する形式に変換する.
+ */
+public interface SagaStateCodec {
+
+    /**
+     * @param json Sagaの状態のJSON
+     * @return 保存する値
+     */
+    String encode(String json);
+
+    /**
+     * 他の形式で保存された値(変換前のJSONを含む)も復元できなければならない.
+     *
+     * @param stored 保存された値
+     * @return Sagaの状態のJSON
+     */
+    String decode(String stored);
+}
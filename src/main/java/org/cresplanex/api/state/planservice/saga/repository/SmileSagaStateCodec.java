@@ -0,0 +1,118 @@
+package org.cresplanex.api.state.planservice.saga.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Sagaの状態をSmile(JSONのバイナリ表現)で保存するSagaStateCodec.
+ * <p>
+ * 保存する値は {@code ~s1:} の接頭辞に続けて, フラグ(1バイト)とSmileのバイト列をBase64で表したもの.
+ * 保存先の列がテキストのためBase64とし, 閾値以上の大きさの場合はDeflateで圧縮する.
+ * スキーマはJSONと同じく名前で対応付けるため, フィールドの追加, 削除は従来通り行える.
+ * 接頭辞のない値は変換前のJSONとしてそのまま返すため, 既存のSagaもそのまま読み込める.
+ */
+public class SmileSagaStateCodec implements SagaStateCodec {
+
+    private static final String PREFIX = "~s1:";
+    private static final byte FLAG_DEFLATED = 1;
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final SmileMapper smileMapper = new SmileMapper();
+    private final boolean writeSmile;
+    private final int compressThreshold;
+
+    /**
+     * @param writeSmile falseの場合はJSONのまま保存し, 読み込みのみ対応する(Smileからの切り戻し用)
+     * @param compressThreshold 圧縮するSmileのバイト数の閾値
+     */
+    public SmileSagaStateCodec(boolean writeSmile, int compressThreshold) {
+        this.writeSmile = writeSmile;
+        this.compressThreshold = compressThreshold;
+    }
+
+    @Override
+    public String encode(String json) {
+        if (!writeSmile) {
+            return json;
+        }
+        try {
+            byte[] smile = smileMapper.writeValueAsBytes(jsonMapper.readTree(json));
+            byte flags = 0;
+            if (smile.length >= compressThreshold) {
+                smile = deflate(smile);
+                flags |= FLAG_DEFLATED;
+            }
+            byte[] body = new byte[smile.length + 1];
+            body[0] = flags;
+            System.arraycopy(smile, 0, body, 1, smile.length);
+            return PREFIX + Base64.getEncoder().encodeToString(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String decode(String stored) {
+        if (stored == null || !stored.startsWith(PREFIX)) {
+            return stored;
+        }
+        try {
+            byte[] body = Base64.getDecoder().decode(stored.substring(PREFIX.length()));
+            byte[] smile = new byte[body.length - 1];
+            System.arraycopy(body, 1, smile, 0, smile.length);
+            if ((body[0] & FLAG_DEFLATED) != 0) {
+                smile = inflate(smile);
+            }
+            JsonNode tree = smileMapper.readTree(smile);
+            return jsonMapper.writeValueAsString(tree);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 3);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated saga state");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -10,6 +10,8 @@ import org.cresplanex.api.state.common.saga.validate.team.TeamExistValidateComma
 import org.cresplanex.api.state.common.saga.validate.userprofile.UserExistValidateCommand;
 import org.cresplanex.api.state.planservice.entity.TaskEntity;
 import org.cresplanex.api.state.planservice.saga.model.task.CreateTaskSaga;
+import org.cresplanex.api.state.planservice.saga.orchestration.ParallelReplies;
+import org.cresplanex.api.state.planservice.saga.orchestration.ParallelStepsSagaData;
 
 import java.util.List;
 
@@ -17,10 +19,16 @@ import java.util.List;
 @Getter
 @NoArgsConstructor
 public class CreateTaskSagaState
-        extends SagaState<CreateTaskSaga.Action, TaskEntity> {
+        extends SagaState<CreateTaskSaga.Action, TaskEntity>
+        implements ParallelStepsSagaData {
     private InitialData initialData;
     private TaskWithAttachmentsDto taskWithAttachmentsDto = TaskWithAttachmentsDto.empty();
     private String operatorId;
+    private ParallelReplies parallelReplies = new ParallelReplies();
+    // ExistenceCacheにより存在が確認でき, 参加者への問い合わせを省略するか(開始時に一度だけ決定する)
+    private boolean userConfirmedLocally;
+    private boolean teamConfirmedLocally;
+    private boolean fileObjectsConfirmedLocally;
 
     @Override
     public String getId() {
@@ -55,6 +63,34 @@ public class CreateTaskSagaState
         }
     }
 
+    public boolean hasChargeUser() {
+        // 未設定の担当者はgRPCのリクエストから空文字列で渡される
+        return initialData.getChargeUserId() != null && !initialData.getChargeUserId().isEmpty();
+    }
+
+    public boolean hasAttachmentFileObjects() {
+        return initialData.getAttachmentFileObjects() != null
+                && !initialData.getAttachmentFileObjects().isEmpty();
+    }
+
+    public boolean needsUserValidation() {
+        return hasChargeUser() && !userConfirmedLocally;
+    }
+
+    public boolean needsTeamValidation() {
+        return !teamConfirmedLocally;
+    }
+
+    public boolean needsFileObjectValidation() {
+        return hasAttachmentFileObjects() && !fileObjectsConfirmedLocally;
+    }
+
+    public List<String> getAttachmentFileObjectIds() {
+        return initialData.getAttachmentFileObjects().stream()
+                .map(InitialData.FileObject::getFileObjectId)
+                .toList();
+    }
+
     public UserExistValidateCommand makeUserExistValidateCommand() {
         return new UserExistValidateCommand(
                 List.of(initialData.getChargeUserId())
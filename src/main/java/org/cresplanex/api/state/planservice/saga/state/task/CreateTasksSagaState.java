@@ -0,0 +1,98 @@
+package org.cresplanex.api.state.planservice.saga.state.task;
+
+import lombok.*;
+
+import org.cresplanex.api.state.common.dto.plan.TaskWithAttachmentsDto;
+import org.cresplanex.api.state.common.saga.state.SagaState;
+import org.cresplanex.api.state.common.saga.validate.storage.FileObjectExistValidateCommand;
+import org.cresplanex.api.state.common.saga.validate.team.TeamExistValidateCommand;
+import org.cresplanex.api.state.common.saga.validate.userprofile.UserExistValidateCommand;
+import org.cresplanex.api.state.planservice.entity.TaskEntity;
+import org.cresplanex.api.state.planservice.saga.model.task.CreateTasksSaga;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Setter
+@Getter
+@NoArgsConstructor
+public class CreateTasksSagaState
+        extends SagaState<CreateTasksSaga.Action, TaskEntity> {
+    private InitialData initialData;
+    // initialData.tasksと同じ順序
+    private List<TaskWithAttachmentsDto> taskWithAttachmentsDtos = new ArrayList<>();
+    private String operatorId;
+
+    // 単一のTaskに対応しないため, ジョブIDを集約IDとして扱う
+    @Override
+    public String getId() {
+        return getJobId();
+    }
+
+    @Override
+    public Class<TaskEntity> getEntityClass() {
+        return TaskEntity.class;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class InitialData {
+        private List<Task> tasks;
+
+        @Data
+        @NoArgsConstructor
+        @AllArgsConstructor
+        @Builder
+        public static class Task {
+            private String teamId;
+            private String chargeUserId;
+            private String title;
+            private String description;
+            private String startDatetime;
+            private String dueDatetime;
+            private List<FileObject> attachmentFileObjects;
+        }
+
+        @Data
+        @NoArgsConstructor
+        @AllArgsConstructor
+        @Builder
+        public static class FileObject {
+            private String fileObjectId;
+        }
+    }
+
+    // 検証コマンドはすべてのTaskの重複を除いたIDで1回ずつ送信する
+
+    public UserExistValidateCommand makeUserExistValidateCommand() {
+        return new UserExistValidateCommand(
+                initialData.getTasks().stream()
+                        .map(InitialData.Task::getChargeUserId)
+                        // 未設定の担当者はgRPCのリクエストから空文字列で渡される
+                        .filter(userId -> userId != null && !userId.isEmpty())
+                        .distinct()
+                        .toList()
+        );
+    }
+
+    public TeamExistValidateCommand makeTeamExistValidateCommand() {
+        return new TeamExistValidateCommand(
+                initialData.getTasks().stream()
+                        .map(InitialData.Task::getTeamId)
+                        .distinct()
+                        .toList()
+        );
+    }
+
+    public FileObjectExistValidateCommand makeFileObjectExistValidateCommand() {
+        return new FileObjectExistValidateCommand(
+                initialData.getTasks().stream()
+                        .flatMap(task -> task.getAttachmentFileObjects().stream())
+                        .map(InitialData.FileObject::getFileObjectId)
+                        .distinct()
+                        .toList()
+        );
+    }
+}
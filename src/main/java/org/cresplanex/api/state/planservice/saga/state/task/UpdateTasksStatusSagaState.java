@@ -0,0 +1,50 @@
+package org.cresplanex.api.state.planservice.saga.state.task;
+
+import lombok.*;
+import org.cresplanex.api.state.planservice.entity.TaskEntity;
+import org.cresplanex.api.state.planservice.saga.command.task.UpdateTasksStatusCommand;
+import org.cresplanex.api.state.planservice.saga.model.task.UpdateTasksStatusSaga;
+import org.cresplanex.api.state.planservice.saga.reply.task.UpdateTasksStatusReply;
+import org.cresplanex.api.state.common.saga.state.SagaState;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class UpdateTasksStatusSagaState
+        extends SagaState<UpdateTasksStatusSaga.Action, TaskEntity> {
+    private InitialData initialData;
+    private List<UpdateTasksStatusReply.Success.StatusChange> changes = new ArrayList<>();
+    private String operatorId;
+
+    // 単一のTaskに対応しないため, ジョブIDを集約IDとして扱う
+    @Override
+    public String getId() {
+        return getJobId();
+    }
+
+    @Override
+    public Class<TaskEntity> getEntityClass() {
+        return TaskEntity.class;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class InitialData {
+        // 重複を除いたタスクID
+        private List<String> taskIds;
+        private String status;
+    }
+
+    public UpdateTasksStatusCommand.Exec makeUpdateTasksStatusCommand() {
+        return new UpdateTasksStatusCommand.Exec(
+                this.operatorId,
+                initialData.getTaskIds(),
+                initialData.getStatus()
+        );
+    }
+}
@@ -0,0 +1,11 @@
+package org.cresplanex.api.state.planservice.saga.type;
+
+/**
+ * 複数のTaskをまとめて処理するSagaの種類.
+ * 単体のSagaはPlanSagaTypeを利用する.
+ */
+public class PlanBulkSagaType {
+
+    public static final String CREATE_TASKS = "CREATE_TASKS";
+    public static final String UPDATE_TASKS_STATUS = "UPDATE_TASKS_STATUS";
+}
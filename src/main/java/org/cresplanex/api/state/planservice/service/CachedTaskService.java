@@ -0,0 +1,40 @@
+package org.cresplanex.api.state.planservice.service;
+
+import lombok.RequiredArgsConstructor;
+import org.cresplanex.api.state.planservice.cache.TaskCache;
+import org.cresplanex.api.state.planservice.entity.TaskEntity;
+import org.springframework.stereotype.Service;
+
+/**
+ * TaskCacheを利用した読み込み.
+ * キャッシュヒット時にコネクションを取得しないよう, トランザクションは読み込み時のみTaskServiceで開始する.
+ */
+@RequiredArgsConstructor
+@Service
+public class CachedTaskService {
+
+    private final TaskService taskService;
+    private final TaskCache taskCache;
+
+    public TaskEntity findById(String taskId) {
+        TaskEntity cached = taskCache.get(taskId, false);
+        if (cached != null) {
+            return cached;
+        }
+        long loadStartedAt = taskCache.beginLoad();
+        TaskEntity task = taskService.findById(taskId);
+        taskCache.put(task, false, loadStartedAt);
+        return task;
+    }
+
+    public TaskEntity findByIdWithAttachments(String taskId) {
+        TaskEntity cached = taskCache.get(taskId, true);
+        if (cached != null) {
+            return cached;
+        }
+        long loadStartedAt = taskCache.beginLoad();
+        TaskEntity task = taskService.findByIdWithAttachments(taskId);
+        taskCache.put(task, true, loadStartedAt);
+        return task;
+    }
+}
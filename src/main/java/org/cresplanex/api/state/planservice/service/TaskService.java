@@ -1,11 +1,17 @@
 package org.cresplanex.api.state.planservice.service;
 
+import jakarta.persistence.EntityManager;
 import lombok.extern.slf4j.Slf4j;
 import org.cresplanex.api.state.common.entity.EntityWithPrevious;
-import org.cresplanex.api.state.common.entity.ListEntityWithCount;
 import org.cresplanex.api.state.common.enums.PaginationType;
 import org.cresplanex.api.state.common.saga.local.LocalException;
 import org.cresplanex.api.state.common.service.BaseService;
+import org.cresplanex.api.state.planservice.cache.TaskCache;
+import org.cresplanex.api.state.planservice.count.CountCache;
+import org.cresplanex.api.state.planservice.count.CountResult;
+import org.cresplanex.api.state.planservice.count.CountShape;
+import org.cresplanex.api.state.planservice.count.ListCounter;
+import org.cresplanex.api.state.planservice.count.PendingCount;
 import org.cresplanex.api.state.planservice.entity.TaskEntity;
 import org.cresplanex.api.state.planservice.entity.TaskAttachmentEntity;
 import org.cresplanex.api.state.planservice.enums.FileObjectOnTaskSortType;
@@ -14,18 +20,30 @@ import org.cresplanex.api.state.planservice.enums.TaskSortType;
 import org.cresplanex.api.state.planservice.enums.TaskWithFileObjectsSortType;
 import org.cresplanex.api.state.planservice.exception.TaskNotFoundException;
 import org.cresplanex.api.state.planservice.filter.task.*;
+import org.cresplanex.api.state.planservice.pagination.ChunkConsumer;
+import org.cresplanex.api.state.planservice.pagination.CursorCodec;
+import org.cresplanex.api.state.planservice.pagination.Keyset;
+import org.cresplanex.api.state.planservice.pagination.ListEntityWithCursor;
+import org.cresplanex.api.state.planservice.pagination.RowSource;
+import org.cresplanex.api.state.planservice.projection.TaskView;
+import org.cresplanex.api.state.planservice.repository.BaseRepository;
 import org.cresplanex.api.state.planservice.repository.TaskRepository;
 import org.cresplanex.api.state.planservice.repository.TaskAttachmentRepository;
+import org.cresplanex.api.state.planservice.repository.projection.TaskStatusChange;
+import org.cresplanex.api.state.planservice.repository.projection.TaskStatusUpdate;
 import org.cresplanex.api.state.planservice.saga.model.task.UpdateStatusTaskSaga;
+import org.cresplanex.api.state.planservice.saga.model.task.UpdateTasksStatusSaga;
+import org.cresplanex.api.state.planservice.saga.reply.task.UpdateTasksStatusReply;
 import org.cresplanex.api.state.planservice.saga.model.task.CreateTaskSaga;
+import org.cresplanex.api.state.planservice.saga.model.task.CreateTasksSaga;
 import org.cresplanex.api.state.planservice.saga.state.task.UpdateStatusTaskSagaState;
+import org.cresplanex.api.state.planservice.saga.state.task.UpdateTasksStatusSagaState;
 import org.cresplanex.api.state.planservice.saga.state.task.CreateTaskSagaState;
+import org.cresplanex.api.state.planservice.saga.state.task.CreateTasksSagaState;
 import org.cresplanex.api.state.planservice.specification.TaskAttachmentSpecifications;
 import org.cresplanex.api.state.planservice.specification.TaskSpecifications;
 import org.cresplanex.core.saga.orchestration.SagaInstanceFactory;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
@@ -33,8 +51,15 @@ import org.springframework.stereotype.Service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -44,9 +69,17 @@ public class TaskService extends BaseService {
     private final TaskRepository taskRepository;
     private final TaskAttachmentRepository taskAttachmentRepository;
     private final SagaInstanceFactory sagaInstanceFactory;
+    private final CursorCodec cursorCodec;
+    private final ListCounter listCounter;
+    private final CountCache countCache;
+    private final TaskCache taskCache;
+    private final EntityManager entityManager;
+    private final AuditorAware<String> auditorAware;
 
     private final CreateTaskSaga createTaskSaga;
+    private final CreateTasksSaga createTasksSaga;
     private final UpdateStatusTaskSaga updateStatusTaskSaga;
+    private final UpdateTasksStatusSaga updateTasksStatusSaga;
 
     @Transactional(readOnly = true)
     public TaskEntity findById(String taskId) {
@@ -70,7 +103,7 @@ public class TaskService extends BaseService {
     }
 
     @Transactional(readOnly = true)
-    public ListEntityWithCount<TaskEntity> get(
+    public ListEntityWithCursor<TaskEntity> get(
             PaginationType paginationType,
             int limit,
             int offset,
@@ -93,28 +126,51 @@ public class TaskService extends BaseService {
                         .and(TaskSpecifications.withDueDatetimeFilter(dueDatetimeFilter))
         );
 
-        Sort sort = createSort(sortType);
+        CountShape countShape = taskCountShape(teamFilter, statusFilter, chargeUserFilter,
+                fileObjectsFilter, startDatetimeFilter, dueDatetimeFilter);
+        Keyset<TaskEntity> keyset = createKeyset(sortType);
 
-        Pageable pageable = switch (paginationType) {
-            case OFFSET -> PageRequest.of(offset / limit, limit, sort);
-            case CURSOR -> PageRequest.of(0, limit, sort); // TODO: Implement cursor pagination
-            default -> Pageable.unpaged(sort);
-        };
-
-        Page<TaskEntity> data = taskRepository.findAll(spec, pageable);
+        return paginate(taskRepository, spec, countShape, keyset, paginationType, limit, offset, cursor, withCount);
+    }
 
-        int count = 0;
-        if (withCount){
-            count = (int) data.getTotalElements();
-        }
-        return new ListEntityWithCount<>(
-                data.getContent(),
-                count
+    /**
+     * getと同じ条件で, レスポンスに必要な列のみをTaskViewとして取得.
+     */
+    @Transactional(readOnly = true)
+    public ListEntityWithCursor<TaskView> getViews(
+            PaginationType paginationType,
+            int limit,
+            int offset,
+            String cursor,
+            TaskSortType sortType,
+            boolean withCount,
+            TeamFilter teamFilter,
+            StatusFilter statusFilter,
+            ChargeUserFilter chargeUserFilter,
+            FileObjectsFilter fileObjectsFilter,
+            StartDatetimeFilter startDatetimeFilter,
+            DueDatetimeFilter dueDatetimeFilter
+    ) {
+        Specification<TaskEntity> spec = Specification.where(
+                TaskSpecifications.withTeamFilter(teamFilter)
+                        .and(TaskSpecifications.withStatusFilter(statusFilter))
+                        .and(TaskSpecifications.withChargeUserFilter(chargeUserFilter))
+                        .and(TaskSpecifications.withAttachmentFileObjectsFilter(fileObjectsFilter))
+                        .and(TaskSpecifications.withStartDatetimeFilter(startDatetimeFilter))
+                        .and(TaskSpecifications.withDueDatetimeFilter(dueDatetimeFilter))
         );
+
+        CountShape countShape = taskCountShape(teamFilter, statusFilter, chargeUserFilter,
+                fileObjectsFilter, startDatetimeFilter, dueDatetimeFilter);
+        Keyset<TaskEntity> keyset = createKeyset(sortType);
+
+        return paginate(taskRepository, taskRepository.projecting(TaskView.class, TaskView.ATTRIBUTES),
+                view -> keyset.valuesBy(view::attribute),
+                spec, countShape, keyset, paginationType, limit, offset, cursor, withCount);
     }
 
     @Transactional(readOnly = true)
-    public ListEntityWithCount<TaskEntity> getWithAttachments(
+    public ListEntityWithCursor<TaskEntity> getWithAttachments(
             PaginationType paginationType,
             int limit,
             int offset,
@@ -135,32 +191,22 @@ public class TaskService extends BaseService {
                         .and(TaskSpecifications.withAttachmentFileObjectsFilter(fileObjectsFilter))
                         .and(TaskSpecifications.withStartDatetimeFilter(startDatetimeFilter))
                         .and(TaskSpecifications.withDueDatetimeFilter(dueDatetimeFilter))
-                        .and(TaskSpecifications.fetchTaskAttachments())
         );
 
-        Sort sort = createSort(sortType);
-
-        Pageable pageable = switch (paginationType) {
-            case OFFSET -> PageRequest.of(offset / limit, limit, sort);
-            case CURSOR -> PageRequest.of(0, limit, sort); // TODO: Implement cursor pagination
-            default -> Pageable.unpaged(sort);
-        };
-
-        Page<TaskEntity> data = taskRepository.findAll(spec, pageable);
+        CountShape countShape = taskCountShape(teamFilter, statusFilter, chargeUserFilter,
+                fileObjectsFilter, startDatetimeFilter, dueDatetimeFilter);
+        Keyset<TaskEntity> keyset = createKeyset(sortType);
 
-        int count = 0;
-        if (withCount){
-            count = (int) data.getTotalElements();
-        }
+        // コレクションのFETCH JOINではLIMITがSQLに適用されないため, Taskのみでページングを行う
+        ListEntityWithCursor<TaskEntity> data = paginate(
+                taskRepository, spec, countShape, keyset, paginationType, limit, offset, cursor, withCount);
+        fetchAttachments(data.getData());
 
-        return new ListEntityWithCount<>(
-                data.getContent(),
-                count
-        );
+        return data;
     }
 
     @Transactional(readOnly = true)
-    public ListEntityWithCount<TaskAttachmentEntity> getFileObjectsOnTask(
+    public ListEntityWithCursor<TaskAttachmentEntity> getFileObjectsOnTask(
             String taskId,
             PaginationType paginationType,
             int limit,
@@ -173,28 +219,15 @@ public class TaskService extends BaseService {
                 TaskAttachmentSpecifications.whereTaskId(taskId)
         );
 
-        Sort sort = createSort(sortType);
-
-        Pageable pageable = switch (paginationType) {
-            case OFFSET -> PageRequest.of(offset / limit, limit, sort);
-            case CURSOR -> PageRequest.of(0, limit, sort); // TODO: Implement cursor pagination
-            default -> Pageable.unpaged(sort);
-        };
-
-        Page<TaskAttachmentEntity> data = taskAttachmentRepository.findAll(spec, pageable);
+        CountShape countShape = CountShape.of("task_attachments")
+                .in("task_id", taskId != null, taskId != null ? List.of(taskId) : List.of());
+        Keyset<TaskAttachmentEntity> keyset = createKeyset(sortType);
 
-        int count = 0;
-        if (withCount){
-            count = (int) data.getTotalElements();
-        }
-        return new ListEntityWithCount<>(
-                data.getContent(),
-                count
-        );
+        return paginate(taskAttachmentRepository, spec, countShape, keyset, paginationType, limit, offset, cursor, withCount);
     }
 
     @Transactional(readOnly = true)
-    public ListEntityWithCount<TaskAttachmentEntity> getTasksOnFileObject(
+    public ListEntityWithCursor<TaskAttachmentEntity> getTasksOnFileObject(
             String fileObjectId,
             PaginationType paginationType,
             int limit,
@@ -208,28 +241,30 @@ public class TaskService extends BaseService {
                         .and(TaskAttachmentSpecifications.fetchTask())
         );
 
-        Sort sort = createSort(sortType);
+        CountShape countShape = CountShape.of("task_attachments")
+                .in("file_object_id", fileObjectId != null, fileObjectId != null ? List.of(fileObjectId) : List.of());
+        Keyset<TaskAttachmentEntity> keyset = createKeyset(sortType);
 
-        Pageable pageable = switch (paginationType) {
-            case OFFSET -> PageRequest.of(offset / limit, limit, sort);
-            case CURSOR -> PageRequest.of(0, limit, sort); // TODO: Implement cursor pagination
-            default -> Pageable.unpaged(sort);
-        };
-
-        Page<TaskAttachmentEntity> data = taskAttachmentRepository.findAll(spec, pageable);
+        return paginate(taskAttachmentRepository, spec, countShape, keyset, paginationType, limit, offset, cursor, withCount);
+    }
 
-        int count = 0;
-        if (withCount){
-            count = (int) data.getTotalElements();
-        }
-        return new ListEntityWithCount<>(
-                data.getContent(),
-                count
+    @Transactional(readOnly = true)
+    public List<TaskEntity> getByTaskIds(
+            List<String> taskIds,
+            TaskSortType sortType
+    ) {
+        Specification<TaskEntity> spec = Specification.where(
+                TaskSpecifications.whereTaskIds(taskIds)
         );
+
+        return taskRepository.findAll(spec, createKeyset(sortType).toSort());
     }
 
+    /**
+     * getByTaskIdsと同じ条件で, レスポンスに必要な列のみをTaskViewとして取得.
+     */
     @Transactional(readOnly = true)
-    public List<TaskEntity> getByTaskIds(
+    public List<TaskView> getViewsByTaskIds(
             List<String> taskIds,
             TaskSortType sortType
     ) {
@@ -237,7 +272,8 @@ public class TaskService extends BaseService {
                 TaskSpecifications.whereTaskIds(taskIds)
         );
 
-        return taskRepository.findAll(spec, createSort(sortType));
+        return taskRepository.projecting(TaskView.class, TaskView.ATTRIBUTES)
+                .findAll(spec, createKeyset(sortType).toSort());
     }
 
     @Transactional(readOnly = true)
@@ -247,10 +283,86 @@ public class TaskService extends BaseService {
     ) {
         Specification<TaskEntity> spec = Specification.where(
                 TaskSpecifications.whereTaskIds(taskIds)
-                        .and(TaskSpecifications.fetchTaskAttachments())
         );
 
-        return taskRepository.findAll(spec, createSort(sortType));
+        List<TaskEntity> tasks = taskRepository.findAll(spec, createKeyset(sortType).toSort());
+        fetchAttachments(tasks);
+
+        return tasks;
+    }
+
+    /**
+     * 取得済みのTaskのTaskAttachmentを1回のIN句のクエリで読み込む.
+     * 取得したTaskは同一の永続化コンテキストのインスタンスに解決されるため, 並び順はそのまま保たれる.
+     *
+     * @param tasks 取得済みのTaskのリスト
+     */
+    private void fetchAttachments(List<TaskEntity> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        taskRepository.findAllWithAttachmentsByTaskIdIn(
+                tasks.stream().map(TaskEntity::getTaskId).toList());
+    }
+
+    @Transactional(readOnly = true)
+    public void stream(
+            int chunkSize,
+            TaskSortType sortType,
+            TeamFilter teamFilter,
+            StatusFilter statusFilter,
+            ChargeUserFilter chargeUserFilter,
+            FileObjectsFilter fileObjectsFilter,
+            StartDatetimeFilter startDatetimeFilter,
+            DueDatetimeFilter dueDatetimeFilter,
+            ChunkConsumer<TaskEntity> consumer
+    ) {
+        Specification<TaskEntity> spec = Specification.where(
+                TaskSpecifications.withTeamFilter(teamFilter)
+                        .and(TaskSpecifications.withStatusFilter(statusFilter))
+                        .and(TaskSpecifications.withChargeUserFilter(chargeUserFilter))
+                        .and(TaskSpecifications.withAttachmentFileObjectsFilter(fileObjectsFilter))
+                        .and(TaskSpecifications.withStartDatetimeFilter(startDatetimeFilter))
+                        .and(TaskSpecifications.withDueDatetimeFilter(dueDatetimeFilter))
+        );
+
+        try (Stream<TaskEntity> tasks = taskRepository.stream(spec, createKeyset(sortType).toSort(), chunkSize)) {
+            emitChunks(tasks.iterator(), chunkSize, consumer);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void streamByTaskIds(
+            List<String> taskIds,
+            int chunkSize,
+            TaskSortType sortType,
+            ChunkConsumer<TaskEntity> consumer
+    ) {
+        Specification<TaskEntity> spec = Specification.where(
+                TaskSpecifications.whereTaskIds(taskIds)
+        );
+
+        try (Stream<TaskEntity> tasks = taskRepository.stream(spec, createKeyset(sortType).toSort(), chunkSize)) {
+            emitChunks(tasks.iterator(), chunkSize, consumer);
+        }
+    }
+
+    private void emitChunks(Iterator<TaskEntity> tasks, int chunkSize, ChunkConsumer<TaskEntity> consumer) {
+        if (!tasks.hasNext()) {
+            consumer.accept(List.of(), true);
+            return;
+        }
+        List<TaskEntity> chunk = new ArrayList<>(chunkSize);
+        while (tasks.hasNext()) {
+            chunk.add(tasks.next());
+            boolean last = !tasks.hasNext();
+            if (chunk.size() == chunkSize || last) {
+                consumer.accept(chunk, last);
+                // 送信済みのエンティティを永続化コンテキストから解放し, メモリ使用量を一定に保つ
+                entityManager.clear();
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
     }
 
     @Transactional
@@ -291,24 +403,89 @@ public class TaskService extends BaseService {
         return jobId;
     }
 
+    @Transactional
+    public String beginCreateTasks(
+            String operatorId,
+            List<CreateTasksSagaState.InitialData.Task> tasks
+    ) {
+        CreateTasksSagaState.InitialData initialData = CreateTasksSagaState.InitialData.builder()
+                .tasks(tasks)
+                .build();
+        CreateTasksSagaState state = new CreateTasksSagaState();
+        state.setInitialData(initialData);
+        state.setOperatorId(operatorId);
+
+        String jobId = getJobId();
+        state.setJobId(jobId);
+
+        try {
+            sagaInstanceFactory.create(createTasksSaga, state);
+        } catch (LocalException e) {
+            // Jobで失敗イベント送信済みのため, ここでは何もしない
+            log.debug("LocalException: {}", e.getMessage());
+            return jobId;
+        }
+
+        return jobId;
+    }
+
+    /**
+     * 複数のTaskとそのTaskAttachmentを1つのトランザクションで作成.
+     * INSERTはJDBCのバッチ(hibernate.jdbc.batch_size, order_inserts)でまとめて送信される.
+     *
+     * @param operatorId 操作者のID
+     * @param tasks TaskAttachmentを設定したTaskのリスト
+     * @return 作成したTaskのリスト(引数と同じ順序)
+     */
+    @Transactional
+    public List<TaskEntity> createAndAttachFilesInBatch(String operatorId, List<TaskEntity> tasks) {
+        for (TaskEntity task : tasks) {
+            if (task.getTaskAttachments() == null) {
+                task.setTaskAttachments(new ArrayList<>());
+            }
+            task.getTaskAttachments().forEach(attachment -> attachment.setTask(task));
+        }
+        // TaskAttachmentはカスケードで永続化される
+        List<TaskEntity> savedTasks = taskRepository.saveAll(tasks);
+        // 新しいIDのTaskはキャッシュにないため, Taskのキャッシュは無効化しない
+        countCache.invalidateAllAfterCommit();
+        return savedTasks;
+    }
+
     public TaskEntity createAndAttacheFiles(String operatorId, TaskEntity task, List<TaskAttachmentEntity> attachments) {
-        task = taskRepository.save(task);
+        // 関連を先に設定し, TaskAttachmentはカスケードで永続化する.
+        // INSERTはフラッシュ時にまとめて送信される(hibernate.jdbc.batch_size, reWriteBatchedInserts)
         TaskEntity finalTask = task;
-        attachments = attachments.stream()
-                .peek(attachment -> attachment.setTask(finalTask))
-                .toList();
-        taskAttachmentRepository.saveAll(attachments);
+        attachments = new ArrayList<>(attachments);
+        attachments.forEach(attachment -> attachment.setTask(finalTask));
         task.setTaskAttachments(attachments);
+        task = taskRepository.save(task);
+        // 新しいIDのTaskはキャッシュにないため, Taskのキャッシュは無効化しない
+        countCache.invalidateAllAfterCommit();
         return task;
     }
 
     public void undoCreate(String taskId) {
-        TaskEntity task = taskRepository.findByIdWithAttachments(taskId)
-                .orElseThrow(() -> new TaskNotFoundException(
-                        TaskNotFoundException.FindType.BY_ID,
-                        taskId
-                ));
-        taskRepository.delete(task);
+        undoCreateInBatch(List.of(taskId));
+    }
+
+    /**
+     * createAndAttacheFiles, createAndAttachFilesInBatchの補償として, Taskを1文で削除する.
+     * TaskAttachmentはデータベースのカスケードで削除するため, エンティティを読み込まない.
+     *
+     * コマンドハンドラのトランザクション内で実行し, 例外でそのトランザクションがロールバック専用とならないよう,
+     * トランザクションの境界を設けない.
+     *
+     * @param taskIds タスクIDリスト
+     */
+    public void undoCreateInBatch(List<String> taskIds) {
+        List<String> distinctTaskIds = taskIds.stream().distinct().sorted().toList();
+        int deleted = taskRepository.deleteByTaskIdIn(distinctTaskIds);
+        if (deleted != distinctTaskIds.size()) {
+            throw new TaskNotFoundException(TaskNotFoundException.FindType.BY_ID, String.join(",", distinctTaskIds));
+        }
+        countCache.invalidateAllAfterCommit();
+        taskCache.invalidateAfterCommit(distinctTaskIds);
     }
 
     @Transactional
@@ -329,64 +506,350 @@ public class TaskService extends BaseService {
         return jobId;
     }
 
+    /**
+     * Taskのステータスを1文で更新し, 更新後と更新前のTaskを返す.
+     * エンティティを読み込まないため, 返すTaskは永続化コンテキストで管理されない.
+     * コマンドハンドラのトランザクション内で実行する. Taskが存在しない場合は更新せずに例外を送出するため,
+     * 例外でハンドラのトランザクションがロールバック専用とならないよう, トランザクションの境界を設けない.
+     */
     public EntityWithPrevious<TaskEntity> update(String operatorId, String taskId, String status) {
-        TaskEntity newTask = internalFindById(taskId);
+        TaskStatusUpdate updated = taskRepository.updateStatusByTaskIdReturningPrevious(
+                        taskId, status, LocalDateTime.now(), currentAuditor())
+                .orElseThrow(() -> new TaskNotFoundException(
+                        TaskNotFoundException.FindType.BY_ID,
+                        taskId
+                ));
+        TaskEntity newTask = new TaskEntity();
+        newTask.setTaskId(updated.getTaskId());
+        newTask.setTeamId(updated.getTeamId());
+        newTask.setChargeUserId(updated.getChargeUserId());
+        newTask.setTitle(updated.getTitle());
+        newTask.setDescription(updated.getDescription());
+        newTask.setStatus(updated.getStatus());
+        newTask.setStartDatetime(updated.getStartDatetime());
+        newTask.setDueDatetime(updated.getDueDatetime());
         TaskEntity existingTask = newTask.clone();
-        newTask.setStatus(status);
-        return new EntityWithPrevious<>(taskRepository.save(newTask), existingTask);
+        existingTask.setStatus(updated.getPrevStatus());
+        countCache.invalidateAllAfterCommit();
+        taskCache.invalidateAfterCommit(taskId);
+        return new EntityWithPrevious<>(newTask, existingTask);
     }
 
+    // updateと同じく, コマンドハンドラのトランザクション内で実行する
     public void undoUpdate(String taskId, String prevStatus) {
-        TaskEntity existingTask = internalFindById(taskId);
-        existingTask.setStatus(prevStatus);
-        taskRepository.save(existingTask);
+        int updated = taskRepository.updateStatusByTaskIdIn(
+                List.of(taskId), prevStatus, LocalDateTime.now(), currentAuditor());
+        if (updated == 0) {
+            throw new TaskNotFoundException(TaskNotFoundException.FindType.BY_ID, taskId);
+        }
+        countCache.invalidateAllAfterCommit();
+        taskCache.invalidateAfterCommit(taskId);
     }
 
-    private Sort createSort(TaskSortType sortType) {
-        return switch (sortType) {
-            case CREATED_AT_ASC -> Sort.by(Sort.Order.asc("createdAt"));
-            case CREATED_AT_DESC -> Sort.by(Sort.Order.desc("createdAt"));
-            case TITLE_ASC -> Sort.by(Sort.Order.asc("title"), Sort.Order.desc("createdAt"));
-            case TITLE_DESC -> Sort.by(Sort.Order.desc("title"), Sort.Order.desc("createdAt"));
-            case START_DATETIME_ASC -> Sort.by(Sort.Order.asc("startDatetime"), Sort.Order.desc("createdAt"));
-            case START_DATETIME_DESC -> Sort.by(Sort.Order.desc("startDatetime"), Sort.Order.desc("createdAt"));
-            case DUE_DATETIME_ASC -> Sort.by(Sort.Order.asc("dueDatetime"), Sort.Order.desc("createdAt"));
-            case DUE_DATETIME_DESC -> Sort.by(Sort.Order.desc("dueDatetime"), Sort.Order.desc("createdAt"));
-        };
+    @Transactional
+    public String beginUpdateTasksStatus(String operatorId, List<String> taskIds, String status) {
+        UpdateTasksStatusSagaState.InitialData initialData = UpdateTasksStatusSagaState.InitialData.builder()
+                .taskIds(taskIds.stream().distinct().toList())
+                .status(status)
+                .build();
+        UpdateTasksStatusSagaState state = new UpdateTasksStatusSagaState();
+        state.setInitialData(initialData);
+        state.setOperatorId(operatorId);
+
+        String jobId = getJobId();
+        state.setJobId(jobId);
+
+        try {
+            sagaInstanceFactory.create(updateTasksStatusSaga, state);
+        } catch (LocalException e) {
+            // Jobで失敗イベント送信済みのため, ここでは何もしない
+            log.debug("LocalException: {}", e.getMessage());
+            return jobId;
+        }
+
+        return jobId;
+    }
+
+    /**
+     * 指定したTaskのうち存在しないものを返す. 存在するTaskはトランザクションの終了まで行ロックする.
+     * updateStatusInBatchの前に同じトランザクションで呼び出し, 存在しないTaskがある場合は更新しない.
+     *
+     * @param taskIds タスクIDリスト
+     * @return 存在しないTaskのタスクID
+     */
+    public List<String> lockTasksAndFindMissing(List<String> taskIds) {
+        List<String> distinctTaskIds = taskIds.stream().distinct().sorted().toList();
+        Set<String> existing = new HashSet<>(taskRepository.lockTaskIdsByTaskIdIn(distinctTaskIds));
+        return distinctTaskIds.stream()
+                .filter(taskId -> !existing.contains(taskId))
+                .toList();
+    }
+
+    /**
+     * 複数のTaskのステータスを1文で更新し, 更新前のステータスを返す.
+     * エンティティを読み込まないため, 永続化コンテキストの同じTaskは古い状態のままとなる点に注意.
+     * コマンドハンドラのトランザクション内で, lockTasksAndFindMissingで全てのTaskの存在を確認した後に呼び出す.
+     *
+     * @param operatorId 操作者のID
+     * @param taskIds タスクIDリスト
+     * @param status 更新後のステータス
+     * @return 更新したTaskごとの変更内容(task_idの順)
+     */
+    public List<UpdateTasksStatusReply.Success.StatusChange> updateStatusInBatch(
+            String operatorId, List<String> taskIds, String status) {
+        List<TaskStatusChange> changes = taskRepository.updateStatusByTaskIdInReturningPrevious(
+                taskIds, status, LocalDateTime.now(), currentAuditor());
+        countCache.invalidateAllAfterCommit();
+        taskCache.invalidateAfterCommit(changes.stream().map(TaskStatusChange::getTaskId).toList());
+        return changes.stream()
+                .map(change -> new UpdateTasksStatusReply.Success.StatusChange(
+                        change.getTaskId(), change.getPrevStatus(), status))
+                .toList();
+    }
+
+    private String currentAuditor() {
+        return auditorAware.getCurrentAuditor().orElse(null);
+    }
+
+    private <E> ListEntityWithCursor<E> paginate(
+            BaseRepository<E, String> repository,
+            Specification<E> spec,
+            CountShape countShape,
+            Keyset<E> keyset,
+            PaginationType paginationType,
+            int limit,
+            int offset,
+            String cursor,
+            boolean withCount
+    ) {
+        return paginate(repository, repository, keyset::valuesOf,
+                spec, countShape, keyset, paginationType, limit, offset, cursor, withCount);
+    }
+
+    /**
+     * エンティティEの検索条件でページングを行い, 結果を行Rとして取得する.
+     *
+     * @param repository 件数の取得に利用するリポジトリ
+     * @param rows 行の取得元
+     * @param cursorValues 行からカーソルのソートキーを取り出す関数
+     */
+    private <E, R> ListEntityWithCursor<R> paginate(
+            BaseRepository<E, String> repository,
+            RowSource<E, R> rows,
+            Function<R, List<String>> cursorValues,
+            Specification<E> spec,
+            CountShape countShape,
+            Keyset<E> keyset,
+            PaginationType paginationType,
+            int limit,
+            int offset,
+            String cursor,
+            boolean withCount
+    ) {
+        Sort sort = keyset.toSort();
+
+        if (paginationType != PaginationType.OFFSET && paginationType != PaginationType.CURSOR) {
+            List<R> data = rows.findAll(spec, sort);
+            // 全件取得のため, 件数は取得結果から求める
+            return new ListEntityWithCursor<>(
+                    data,
+                    withCount ? CountResult.exact(data.size()) : CountResult.none(),
+                    null
+            );
+        }
+
+        // PARALLELの場合はページの取得と並行して件数を取得する
+        PendingCount pendingCount = withCount
+                ? listCounter.begin(repository, spec, countShape)
+                : CountResult::none;
+
+        List<R> data;
+        String nextCursor = null;
+        if (paginationType == PaginationType.CURSOR) {
+            Specification<E> pageSpec = spec;
+            if (cursor != null && !cursor.isEmpty()) {
+                pageSpec = spec.and(keyset.after(cursorCodec.decode(keyset, cursor)));
+            }
+
+            // 次ページの有無を判定するため, 1件多く取得する
+            List<R> page = rows.findAll(pageSpec, sort, 0, limit + 1);
+            boolean hasNext = page.size() > limit;
+            data = hasNext ? page.subList(0, limit) : page;
+            if (hasNext) {
+                nextCursor = cursorCodec.encode(keyset, cursorValues.apply(data.get(data.size() - 1)));
+            }
+        } else {
+            data = rows.findAll(spec, sort, offset, limit);
+        }
+
+        return new ListEntityWithCursor<>(data, pendingCount.await(), nextCursor);
+    }
+
+    private static CountShape taskCountShape(
+            TeamFilter teamFilter,
+            StatusFilter statusFilter,
+            ChargeUserFilter chargeUserFilter,
+            FileObjectsFilter fileObjectsFilter,
+            StartDatetimeFilter startDatetimeFilter,
+            DueDatetimeFilter dueDatetimeFilter
+    ) {
+        return CountShape.of("tasks")
+                .in("team_id", teamFilter != null && teamFilter.isValid(),
+                        teamFilter != null ? teamFilter.getTeamIds() : List.of())
+                .in("status", statusFilter != null && statusFilter.isValid(),
+                        statusFilter != null ? statusFilter.getStatuses() : List.of())
+                .in("charge_user_id", chargeUserFilter != null && chargeUserFilter.isValid(),
+                        chargeUserFilter != null ? chargeUserFilter.getChargeUserIds() : List.of())
+                .other("file_object_id", fileObjectsFilter != null && fileObjectsFilter.isValid()
+                        ? (fileObjectsFilter.isAny() ? "any:" : "all:")
+                            + String.join(",", fileObjectsFilter.getFileObjectIds().stream().sorted().toList())
+                        : null)
+                .other("start_datetime", startDatetimeFilter != null
+                        ? datetimeRange(startDatetimeFilter.isEarlierInfinity(), startDatetimeFilter.isLaterInfinity(),
+                            startDatetimeFilter.getEarlierThan(), startDatetimeFilter.getLaterThan())
+                        : null)
+                .other("due_datetime", dueDatetimeFilter != null
+                        ? datetimeRange(dueDatetimeFilter.isEarlierInfinity(), dueDatetimeFilter.isLaterInfinity(),
+                            dueDatetimeFilter.getEarlierThan(), dueDatetimeFilter.getLaterThan())
+                        : null);
+    }
+
+    // TaskSpecificationsと同様に, 解釈できない値は無制限として扱う
+    private static String datetimeRange(
+            boolean earlierInfinity, boolean laterInfinity, String earlierThan, String laterThan) {
+        String earlier = earlierInfinity ? null : parseDatetime(earlierThan);
+        String later = laterInfinity ? null : parseDatetime(laterThan);
+        if (earlier == null && later == null) {
+            return null;
+        }
+        return (earlier != null ? earlier : "") + ".." + (later != null ? later : "");
+    }
+
+    private static String parseDatetime(String datetime) {
+        if (datetime == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(datetime).toString();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private Keyset<TaskEntity> createKeyset(TaskSortType sortType) {
+        return taskKeyset(TaskSortType.class.getSimpleName() + "." + sortType.name(), sortType);
+    }
+
+    private Keyset<TaskEntity> createKeyset(TaskWithFileObjectsSortType sortType) {
+        // TaskSortTypeと同じ並び順
+        return taskKeyset(TaskWithFileObjectsSortType.class.getSimpleName() + "." + sortType.name(),
+                TaskSortType.valueOf(sortType.name()));
     }
 
-    private Sort createSort(TaskWithFileObjectsSortType sortType) {
+    // 最後のキーにtaskIdを加えて全順序とする
+    private Keyset<TaskEntity> taskKeyset(String name, TaskSortType sortType) {
+        Keyset.Builder<TaskEntity> builder = Keyset.named(name);
         return switch (sortType) {
-            case CREATED_AT_ASC -> Sort.by(Sort.Order.asc("createdAt"));
-            case CREATED_AT_DESC -> Sort.by(Sort.Order.desc("createdAt"));
-            case TITLE_ASC -> Sort.by(Sort.Order.asc("title"), Sort.Order.desc("createdAt"));
-            case TITLE_DESC -> Sort.by(Sort.Order.desc("title"), Sort.Order.desc("createdAt"));
-            case START_DATETIME_ASC -> Sort.by(Sort.Order.asc("startDatetime"), Sort.Order.desc("createdAt"));
-            case START_DATETIME_DESC -> Sort.by(Sort.Order.desc("startDatetime"), Sort.Order.desc("createdAt"));
-            case DUE_DATETIME_ASC -> Sort.by(Sort.Order.asc("dueDatetime"), Sort.Order.desc("createdAt"));
-            case DUE_DATETIME_DESC -> Sort.by(Sort.Order.desc("dueDatetime"), Sort.Order.desc("createdAt"));
+            case CREATED_AT_ASC -> builder
+                    .asc("createdAt", LocalDateTime.class, TaskEntity::getCreatedAt)
+                    .asc("taskId", String.class, TaskEntity::getTaskId)
+                    .build();
+            case CREATED_AT_DESC -> builder
+                    .desc("createdAt", LocalDateTime.class, TaskEntity::getCreatedAt)
+                    .desc("taskId", String.class, TaskEntity::getTaskId)
+                    .build();
+            case TITLE_ASC -> builder
+                    .asc("title", String.class, TaskEntity::getTitle)
+                    .desc("createdAt", LocalDateTime.class, TaskEntity::getCreatedAt)
+                    .desc("taskId", String.class, TaskEntity::getTaskId)
+                    .build();
+            case TITLE_DESC -> builder
+                    .desc("title", String.class, TaskEntity::getTitle)
+                    .desc("createdAt", LocalDateTime.class, TaskEntity::getCreatedAt)
+                    .desc("taskId", String.class, TaskEntity::getTaskId)
+                    .build();
+            case START_DATETIME_ASC -> builder
+                    .asc("startDatetime", LocalDateTime.class, TaskEntity::getStartDatetime)
+                    .desc("createdAt", LocalDateTime.class, TaskEntity::getCreatedAt)
+                    .desc("taskId", String.class, TaskEntity::getTaskId)
+                    .build();
+            case START_DATETIME_DESC -> builder
+                    .desc("startDatetime", LocalDateTime.class, TaskEntity::getStartDatetime)
+                    .desc("createdAt", LocalDateTime.class, TaskEntity::getCreatedAt)
+                    .desc("taskId", String.class, TaskEntity::getTaskId)
+                    .build();
+            case DUE_DATETIME_ASC -> builder
+                    .asc("dueDatetime", LocalDateTime.class, TaskEntity::getDueDatetime)
+                    .desc("createdAt", LocalDateTime.class, TaskEntity::getCreatedAt)
+                    .desc("taskId", String.class, TaskEntity::getTaskId)
+                    .build();
+            case DUE_DATETIME_DESC -> builder
+                    .desc("dueDatetime", LocalDateTime.class, TaskEntity::getDueDatetime)
+                    .desc("createdAt", LocalDateTime.class, TaskEntity::getCreatedAt)
+                    .desc("taskId", String.class, TaskEntity::getTaskId)
+                    .build();
         };
     }
 
-    private Sort createSort(FileObjectOnTaskSortType sortType) {
+    private Keyset<TaskAttachmentEntity> createKeyset(FileObjectOnTaskSortType sortType) {
+        Keyset.Builder<TaskAttachmentEntity> builder = Keyset.named(
+                FileObjectOnTaskSortType.class.getSimpleName() + "." + sortType.name());
         return switch (sortType) {
-            case ADD_AT_ASC -> Sort.by(Sort.Order.asc("createdAt"));
-            case ADD_AT_DESC -> Sort.by(Sort.Order.desc("createdAt"));
+            case ADD_AT_ASC -> builder
+                    .asc("createdAt", LocalDateTime.class, TaskAttachmentEntity::getCreatedAt)
+                    .asc("taskAttachmentId", String.class, TaskAttachmentEntity::getTaskAttachmentId)
+                    .build();
+            case ADD_AT_DESC -> builder
+                    .desc("createdAt", LocalDateTime.class, TaskAttachmentEntity::getCreatedAt)
+                    .desc("taskAttachmentId", String.class, TaskAttachmentEntity::getTaskAttachmentId)
+                    .build();
         };
     }
 
-    private Sort createSort(TaskOnFileObjectSortType sortType) {
+    private Keyset<TaskAttachmentEntity> createKeyset(TaskOnFileObjectSortType sortType) {
+        Keyset.Builder<TaskAttachmentEntity> builder = Keyset.named(
+                TaskOnFileObjectSortType.class.getSimpleName() + "." + sortType.name());
         return switch (sortType) {
-            case ADD_AT_ASC -> Sort.by(Sort.Order.asc("createdAt"));
-            case ADD_AT_DESC -> Sort.by(Sort.Order.desc("createdAt"));
-            case TITLE_ASC -> Sort.by(Sort.Order.asc("task.title"));
-            case TITLE_DESC -> Sort.by(Sort.Order.desc("task.title"));
-            case CREATED_AT_ASC -> Sort.by(Sort.Order.asc("task.createdAt"));
-            case CREATED_AT_DESC -> Sort.by(Sort.Order.desc("task.createdAt"));
-            case DUE_DATETIME_ASC -> Sort.by(Sort.Order.asc("task.dueDatetime"));
-            case DUE_DATETIME_DESC -> Sort.by(Sort.Order.desc("task.dueDatetime"));
-            case START_DATETIME_ASC -> Sort.by(Sort.Order.asc("task.startDatetime"));
-            case START_DATETIME_DESC -> Sort.by(Sort.Order.desc("task.startDatetime"));
+            case ADD_AT_ASC -> builder
+                    .asc("createdAt", LocalDateTime.class, TaskAttachmentEntity::getCreatedAt)
+                    .asc("taskAttachmentId", String.class, TaskAttachmentEntity::getTaskAttachmentId)
+                    .build();
+            case ADD_AT_DESC -> builder
+                    .desc("createdAt", LocalDateTime.class, TaskAttachmentEntity::getCreatedAt)
+                    .desc("taskAttachmentId", String.class, TaskAttachmentEntity::getTaskAttachmentId)
+                    .build();
+            case TITLE_ASC -> builder
+                    .asc("task.title", String.class, a -> a.getTask().getTitle())
+                    .asc("taskAttachmentId", String.class, TaskAttachmentEntity::getTaskAttachmentId)
+                    .build();
+            case TITLE_DESC -> builder
+                    .desc("task.title", String.class, a -> a.getTask().getTitle())
+                    .desc("taskAttachmentId", String.class, TaskAttachmentEntity::getTaskAttachmentId)
+                    .build();
+            case CREATED_AT_ASC -> builder
+                    .asc("task.createdAt", LocalDateTime.class, a -> a.getTask().getCreatedAt())
+                    .asc("taskAttachmentId", String.class, TaskAttachmentEntity::getTaskAttachmentId)
+                    .build();
+            case CREATED_AT_DESC -> builder
+                    .desc("task.createdAt", LocalDateTime.class, a -> a.getTask().getCreatedAt())
+                    .desc("taskAttachmentId", String.class, TaskAttachmentEntity::getTaskAttachmentId)
+                    .build();
+            case DUE_DATETIME_ASC -> builder
+                    .asc("task.dueDatetime", LocalDateTime.class, a -> a.getTask().getDueDatetime())
+                    .asc("taskAttachmentId", String.class, TaskAttachmentEntity::getTaskAttachmentId)
+                    .build();
+            case DUE_DATETIME_DESC -> builder
+                    .desc("task.dueDatetime", LocalDateTime.class, a -> a.getTask().getDueDatetime())
+                    .desc("taskAttachmentId", String.class, TaskAttachmentEntity::getTaskAttachmentId)
+                    .build();
+            case START_DATETIME_ASC -> builder
+                    .asc("task.startDatetime", LocalDateTime.class, a -> a.getTask().getStartDatetime())
+                    .asc("taskAttachmentId", String.class, TaskAttachmentEntity::getTaskAttachmentId)
+                    .build();
+            case START_DATETIME_DESC -> builder
+                    .desc("task.startDatetime", LocalDateTime.class, a -> a.getTask().getStartDatetime())
+                    .desc("taskAttachmentId", String.class, TaskAttachmentEntity::getTaskAttachmentId)
+                    .build();
         };
     }
 }
@@ -1,7 +1,9 @@
 package org.cresplanex.api.state.planservice.specification;
 
-import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.cresplanex.api.state.planservice.entity.TaskAttachmentEntity;
 import org.cresplanex.api.state.planservice.entity.TaskEntity;
 import org.cresplanex.api.state.planservice.filter.task.*;
 import org.hibernate.type.descriptor.java.StringJavaType;
@@ -9,6 +11,7 @@ import org.springframework.data.jpa.domain.Specification;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 public class TaskSpecifications {
@@ -26,21 +29,6 @@ public class TaskSpecifications {
         };
     }
 
-    public static Specification<TaskEntity> fetchTaskAttachments() {
-        return (root, query, criteriaBuilder) -> {
-            if (query == null) {
-                return null;
-            }
-            if (Long.class != query.getResultType()) {
-                root.fetch("taskAttachments", JoinType.LEFT);
-                query.distinct(true);
-                return null;
-            }
-
-            return null;
-        };
-    }
-
     public static Specification<TaskEntity> withTeamFilter(TeamFilter teamFilter) {
         List<String> teamList = new ArrayList<>();
         if (teamFilter != null && teamFilter.isValid()) {
@@ -93,9 +81,10 @@ public class TaskSpecifications {
     }
 
     public static Specification<TaskEntity> withAttachmentFileObjectsFilter(FileObjectsFilter fileObjectsFilter) {
+        // 重複したIDがあると, allの件数の比較が一致しなくなるため除外する
         List<String> fileObjectList = new ArrayList<>();
         if (fileObjectsFilter != null && fileObjectsFilter.isValid()) {
-            fileObjectsFilter.getFileObjectIds().forEach(fileObject -> {
+            new LinkedHashSet<>(fileObjectsFilter.getFileObjectIds()).forEach(fileObject -> {
                 fileObjectList.add(new StringJavaType().wrap(fileObject, null));
             });
         }
@@ -105,12 +94,30 @@ public class TaskSpecifications {
             if (fileObjectsFilter != null && fileObjectsFilter.isValid()) {
                 if (!fileObjectsFilter.isAny()) {
                     // all
-                    for (String fileObjectId : fileObjectList) {
-                        predicate = criteriaBuilder.and(predicate, criteriaBuilder.isMember(fileObjectId, root.get("taskAttachments")));
+                    // task_attachmentsを1回走査し, 指定したファイルをすべて持つtask_idに絞り込む
+                    // task_id IN (SELECT task_id ... GROUP BY task_id HAVING count(DISTINCT file_object_id) = n)
+                    if (!fileObjectList.isEmpty()) {
+                        Subquery<String> subquery = query.subquery(String.class);
+                        Root<TaskAttachmentEntity> attachment = subquery.from(TaskAttachmentEntity.class);
+                        subquery.select(attachment.get("taskId"))
+                                .where(attachment.get("fileObjectId").in(fileObjectList))
+                                .groupBy(attachment.get("taskId"))
+                                .having(criteriaBuilder.equal(
+                                        criteriaBuilder.countDistinct(attachment.get("fileObjectId")),
+                                        (long) fileObjectList.size()));
+                        predicate = criteriaBuilder.and(predicate, root.get("taskId").in(subquery));
                     }
                 } else {
                     // any
-                    predicate = criteriaBuilder.and(predicate, root.get("taskAttachments").get("fileObjectId").in(fileObjectList));
+                    // JOINではなくEXISTSで判定するため, 複数のTaskAttachmentが一致してもTaskは重複しない
+                    Subquery<Integer> subquery = query.subquery(Integer.class);
+                    Root<TaskAttachmentEntity> attachment = subquery.from(TaskAttachmentEntity.class);
+                    subquery.select(criteriaBuilder.literal(1))
+                            .where(
+                                    criteriaBuilder.equal(attachment.get("taskId"), root.get("taskId")),
+                                    attachment.get("fileObjectId").in(fileObjectList)
+                            );
+                    predicate = criteriaBuilder.and(predicate, criteriaBuilder.exists(subquery));
                 }
             }
             return predicate;
@@ -0,0 +1,36 @@
+-- GetTasksのソート(TaskServiceのキーセット)とフィルタの組み合わせに合わせた複合インデックス
+-- 各ソートは最後にcreated_at, task_idを加えて全順序としているため, インデックスもその順序で作成する
+-- ASCのソートは(col ASC, created_at DESC, task_id DESC)となり, 逆順の走査ではDESCのソートに一致しないため, 両方を作成する
+
+-- 作成中もtasksへの書き込みを止めないよう, CONCURRENTLYで作成する.
+-- CONCURRENTLYはトランザクション内で実行できないため, このマイグレーションはトランザクションを使わない(.confを参照).
+-- 途中で失敗した場合, 作成途中のインデックスはINVALIDとして残り, IF NOT EXISTSでは再作成されない.
+-- 再実行の前に, INVALIDのインデックスを DROP INDEX CONCURRENTLY で削除する
+
+-- ソートのみ(フィルタなし, もしくは選択性の低いフィルタ)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS tasks_created_at_task_id_index ON tasks (created_at, task_id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS tasks_title_asc_index ON tasks (title ASC, created_at DESC, task_id DESC);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS tasks_title_desc_index ON tasks (title DESC, created_at DESC, task_id DESC);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS tasks_start_datetime_asc_index ON tasks (start_datetime ASC, created_at DESC, task_id DESC);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS tasks_start_datetime_desc_index ON tasks (start_datetime DESC, created_at DESC, task_id DESC);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS tasks_due_datetime_asc_index ON tasks (due_datetime ASC, created_at DESC, task_id DESC);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS tasks_due_datetime_desc_index ON tasks (due_datetime DESC, created_at DESC, task_id DESC);
+
+-- チーム, 担当者での絞り込み + ソート
+-- statusはIN (...)で複数指定されるため, キーに含めるとソート順が崩れる. INCLUDEに含めてヒープを参照せずに判定する
+CREATE INDEX CONCURRENTLY IF NOT EXISTS tasks_team_id_created_at_index ON tasks (team_id, created_at, task_id) INCLUDE (status, charge_user_id);
+-- 期限のソートは一覧の既定の並びで利用が多いため, 絞り込みと組み合わせたインデックスもASC, DESCの両方を作成する
+CREATE INDEX CONCURRENTLY IF NOT EXISTS tasks_team_id_due_datetime_index ON tasks (team_id, due_datetime ASC, created_at DESC, task_id DESC) INCLUDE (status, charge_user_id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS tasks_team_id_due_datetime_desc_index ON tasks (team_id, due_datetime DESC, created_at DESC, task_id DESC) INCLUDE (status, charge_user_id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS tasks_charge_user_id_due_datetime_index ON tasks (charge_user_id, due_datetime ASC, created_at DESC, task_id DESC) INCLUDE (status, team_id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS tasks_charge_user_id_due_datetime_desc_index ON tasks (charge_user_id, due_datetime DESC, created_at DESC, task_id DESC) INCLUDE (status, team_id);
+
+-- 上記の複合インデックスの先頭列と重複するため削除
+DROP INDEX CONCURRENTLY IF EXISTS tasks_team_id_index;
+DROP INDEX CONCURRENTLY IF EXISTS tasks_charge_user_id_index;
+DROP INDEX CONCURRENTLY IF EXISTS tasks_start_datetime_index;
+DROP INDEX CONCURRENTLY IF EXISTS tasks_due_datetime_index;
+
+-- ファイルでの絞り込み(file_object_id IN (...) GROUP BY task_id)をインデックスのみで処理する
+CREATE INDEX CONCURRENTLY IF NOT EXISTS task_attachments_file_object_id_task_id_index ON task_attachments (file_object_id, task_id);
+DROP INDEX CONCURRENTLY IF EXISTS task_attachments_file_object_id_index;
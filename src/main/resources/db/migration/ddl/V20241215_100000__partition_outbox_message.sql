@@ -0,0 +1,62 @@
+-- outbox(message)を作成時刻(creation_time, ミリ秒)で範囲パーティション化する.
+-- 範囲パーティションはOutboxPartitionMaintainerが作成し, 配信済みになったものを切り離して削除する.
+-- 各範囲パーティションはidのハッシュでさらに分割し, INSERTの競合を分散する.
+-- パーティションのキーを含める必要があるため, 主キーは(id, creation_time)となる.
+-- idの一意性はテーブル全体では保証されず, 同じidの行は作成時刻が異なれば別の範囲パーティションに入りうる.
+-- idは生成側(IdGenerator)で一意にし, idのみで行を特定する処理(CDCの重複排除など)はこの前提に依存する.
+DO $$
+DECLARE
+    existing BOOLEAN;
+BEGIN
+    IF EXISTS (
+        SELECT 1 FROM pg_partitioned_table pt
+        JOIN pg_class c ON c.oid = pt.partrelid
+        JOIN pg_namespace n ON n.oid = c.relnamespace
+        WHERE n.nspname = '${coreSchema}' AND c.relname = 'message'
+    ) THEN
+        RETURN;
+    END IF;
+
+    CREATE SCHEMA IF NOT EXISTS ${coreSchema};
+    existing := to_regclass('${coreSchema}.message') IS NOT NULL;
+    IF existing THEN
+        -- 既存の行は移さない(移すとCDCで再配信されるため). 配信後に手動で削除する
+        ALTER TABLE ${coreSchema}.message RENAME TO message_legacy;
+        ALTER INDEX IF EXISTS ${coreSchema}.message_pkey RENAME TO message_legacy_pkey;
+        ALTER INDEX IF EXISTS ${coreSchema}.message_published_idx RENAME TO message_legacy_published_idx;
+    END IF;
+
+    CREATE TABLE ${coreSchema}.message (
+        id VARCHAR(1000) NOT NULL,
+        destination TEXT NOT NULL,
+        headers TEXT NOT NULL,
+        payload TEXT NOT NULL,
+        published SMALLINT DEFAULT 0,
+        message_partition SMALLINT,
+        creation_time BIGINT NOT NULL DEFAULT ROUND(EXTRACT(EPOCH FROM CURRENT_TIMESTAMP) * 1000),
+        PRIMARY KEY (id, creation_time)
+    ) PARTITION BY RANGE (creation_time);
+    CREATE INDEX message_published_idx ON ${coreSchema}.message (published, id);
+
+    -- 範囲パーティションの作成が遅れた場合の受け皿
+    CREATE TABLE ${coreSchema}.message_default PARTITION OF ${coreSchema}.message DEFAULT;
+
+    -- 範囲パーティションの管理情報
+    CREATE TABLE IF NOT EXISTS ${coreSchema}.outbox_partition (
+        partition_name VARCHAR(100) NOT NULL PRIMARY KEY,
+        range_start BIGINT NOT NULL,
+        range_end BIGINT NOT NULL,
+        closed_lsn PG_LSN
+    );
+
+    -- パーティションの変更を親テーブル(message)の変更としてCDCに配信する
+    IF EXISTS (SELECT 1 FROM pg_publication WHERE pubname = '${outboxPublication}' AND puballtables) THEN
+        -- FOR ALL TABLESのpublicationは新しいテーブルを自動で含み, ADD TABLEはエラーとなる
+        EXECUTE 'ALTER PUBLICATION ${outboxPublication} SET (publish_via_partition_root = true)';
+    ELSIF EXISTS (SELECT 1 FROM pg_publication WHERE pubname = '${outboxPublication}') THEN
+        EXECUTE 'ALTER PUBLICATION ${outboxPublication} ADD TABLE ${coreSchema}.message';
+        EXECUTE 'ALTER PUBLICATION ${outboxPublication} SET (publish_via_partition_root = true)';
+    ELSE
+        EXECUTE 'CREATE PUBLICATION ${outboxPublication} FOR TABLE ${coreSchema}.message WITH (publish_via_partition_root = true)';
+    END IF;
+END $$;
@@ -0,0 +1,12 @@
+-- ValidationBatcherが受け付け, まだ送信していない存在検証のコマンド.
+-- Sagaの状態と同じトランザクションで追加し, コマンドを送信したトランザクションで削除する.
+CREATE TABLE validation_batch_pending (
+        saga_id VARCHAR(100) NOT NULL,
+        target VARCHAR(50) NOT NULL,
+        saga_type VARCHAR(255) NOT NULL,
+        ids TEXT NOT NULL,
+        submitted_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+        PRIMARY KEY (saga_id, target)
+);
+
+CREATE INDEX validation_batch_pending_submitted_at_index ON validation_batch_pending (submitted_at);
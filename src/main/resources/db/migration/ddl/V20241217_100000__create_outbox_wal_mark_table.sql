@@ -0,0 +1,9 @@
+-- outbox(message)の作成時刻とWALの位置の対応の記録.
+-- RetentionEngineが実行ごとに追加し, CDCのレプリケーションスロットが読み終えた位置(confirmed_flush_lsn)から,
+-- CDCが配信済みのメッセージの作成時刻の境界を求める. パーティションを利用しない場合のみ使う.
+CREATE SCHEMA IF NOT EXISTS ${coreSchema};
+
+CREATE TABLE IF NOT EXISTS ${coreSchema}.outbox_wal_mark (
+        marked_at BIGINT NOT NULL PRIMARY KEY,
+        lsn PG_LSN NOT NULL
+);
@@ -3,7 +3,7 @@ package org.cresplanex.api.state.plan_service;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "app.cursor.secret=test-cursor-secret-0123456789abcdef")
 class PlanServiceApplicationTests {
 
 //	@Test
@@ -0,0 +1,77 @@
+package org.cresplanex.api.state.planservice.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExistenceCacheTest {
+
+    private static final ExistenceCacheProperties.Source TEAM_SOURCE = new ExistenceCacheProperties.Source(
+            "team-events", List.of("TeamCreated"), List.of("TeamDeleted"));
+
+    private ExistenceCache cache(Duration unsourcedTtl, int maxSize) {
+        return new ExistenceCache(new ExistenceCacheProperties(
+                Duration.ofMinutes(10), unsourcedTtl, maxSize, "subscriber",
+                Map.of(ExistenceKind.TEAM, TEAM_SOURCE)
+        ), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void knowsConfirmedIdsOnlyWhenAllAreConfirmed() {
+        ExistenceCache cache = cache(Duration.ZERO, 100);
+
+        cache.confirmed(ExistenceKind.TEAM, List.of("team-1", "team-2"));
+
+        assertThat(cache.allKnownToExist(ExistenceKind.TEAM, List.of("team-1", "team-2"))).isTrue();
+        assertThat(cache.allKnownToExist(ExistenceKind.TEAM, List.of("team-1", "team-3"))).isFalse();
+    }
+
+    @Test
+    void deletionIsNotOverriddenByLaterConfirmation() {
+        ExistenceCache cache = cache(Duration.ZERO, 100);
+        cache.created(ExistenceKind.TEAM, "team-1");
+
+        cache.deleted(ExistenceKind.TEAM, "team-1");
+        // 削除前に送信された検証の返信が, 削除後に届いた
+        cache.confirmed(ExistenceKind.TEAM, List.of("team-1"));
+
+        assertThat(cache.allKnownToExist(ExistenceKind.TEAM, List.of("team-1"))).isFalse();
+    }
+
+    @Test
+    void doesNotShortCircuitKindsWithoutDeletionEvents() {
+        ExistenceCache cache = cache(Duration.ZERO, 100);
+
+        cache.confirmed(ExistenceKind.USER, List.of("user-1"));
+
+        assertThat(cache.allKnownToExist(ExistenceKind.USER, List.of("user-1"))).isFalse();
+    }
+
+    @Test
+    void trustsKindsWithoutDeletionEventsForUnsourcedTtl() throws InterruptedException {
+        ExistenceCache cache = cache(Duration.ofMillis(50), 100);
+
+        cache.confirmed(ExistenceKind.USER, List.of("user-1"));
+        assertThat(cache.allKnownToExist(ExistenceKind.USER, List.of("user-1"))).isTrue();
+
+        Thread.sleep(100);
+        assertThat(cache.allKnownToExist(ExistenceKind.USER, List.of("user-1"))).isFalse();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedPerKind() {
+        ExistenceCache cache = cache(Duration.ZERO, 2);
+        cache.confirmed(ExistenceKind.TEAM, List.of("team-1", "team-2"));
+        cache.allKnownToExist(ExistenceKind.TEAM, List.of("team-1"));
+
+        cache.confirmed(ExistenceKind.TEAM, List.of("team-3"));
+
+        assertThat(cache.allKnownToExist(ExistenceKind.TEAM, List.of("team-1", "team-3"))).isTrue();
+        assertThat(cache.allKnownToExist(ExistenceKind.TEAM, List.of("team-2"))).isFalse();
+    }
+}
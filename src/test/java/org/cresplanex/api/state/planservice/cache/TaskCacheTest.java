@@ -0,0 +1,136 @@
+package org.cresplanex.api.state.planservice.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.cresplanex.api.state.planservice.entity.TaskEntity;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class TaskCacheTest {
+
+    private final InMemoryTaskCacheInvalidationBus bus = new InMemoryTaskCacheInvalidationBus();
+
+    private TaskCache cache(Duration ttl, int maxSize) {
+        return new TaskCache(ttl, maxSize, bus, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void cachesWithAndWithoutAttachmentsSeparately() {
+        TaskCache cache = cache(Duration.ofMinutes(1), 10);
+        TaskEntity task = task("task-1", 0);
+
+        cache.put(task, false, cache.beginLoad());
+
+        assertThat(cache.get("task-1", false)).isSameAs(task);
+        assertThat(cache.get("task-1", true)).isNull();
+    }
+
+    @Test
+    void doesNotCacheLoadStartedBeforeInvalidation() {
+        TaskCache cache = cache(Duration.ofMinutes(1), 10);
+        long loadStartedAt = cache.beginLoad();
+
+        cache.onInvalidate("task-1");
+        cache.put(task("task-1", 0), false, loadStartedAt);
+
+        assertThat(cache.get("task-1", false)).isNull();
+
+        cache.put(task("task-1", 1), false, cache.beginLoad());
+        assertThat(cache.get("task-1", false)).isNotNull();
+    }
+
+    @Test
+    void invalidationRemovesBothEntries() {
+        TaskCache cache = cache(Duration.ofMinutes(1), 10);
+        cache.put(task("task-1", 0), false, cache.beginLoad());
+        cache.put(task("task-1", 0), true, cache.beginLoad());
+
+        cache.invalidateAfterCommit("task-1");
+
+        assertThat(cache.get("task-1", false)).isNull();
+        assertThat(cache.get("task-1", true)).isNull();
+    }
+
+    @Test
+    void bulkInvalidationPublishesOnce() {
+        TaskCacheInvalidationBus bus = mock(TaskCacheInvalidationBus.class);
+        TaskCache cache = new TaskCache(Duration.ofMinutes(1), 10, bus, new SimpleMeterRegistry());
+        cache.put(task("task-1", 0), false, cache.beginLoad());
+        cache.put(task("task-2", 0), true, cache.beginLoad());
+        cache.put(task("task-3", 0), false, cache.beginLoad());
+
+        cache.invalidateAfterCommit(List.of("task-1", "task-2"));
+
+        assertThat(cache.get("task-1", false)).isNull();
+        assertThat(cache.get("task-2", true)).isNull();
+        assertThat(cache.get("task-3", false)).isNotNull();
+        verify(bus).publishAll(List.of("task-1", "task-2"));
+        verify(bus, never()).publish(anyString());
+    }
+
+    @Test
+    void resetRejectsLoadsOfUncachedTasksStartedBefore() {
+        TaskCache cache = cache(Duration.ofMinutes(1), 10);
+        cache.put(task("task-1", 0), false, cache.beginLoad());
+        long loadStartedAt = cache.beginLoad();
+
+        cache.onReset();
+        // リセット時にキャッシュになかったTaskも, リセット前に読み込みを開始したものはキャッシュしない
+        cache.put(task("task-2", 0), false, loadStartedAt);
+
+        assertThat(cache.get("task-1", false)).isNull();
+        assertThat(cache.get("task-2", false)).isNull();
+
+        cache.put(task("task-2", 0), false, cache.beginLoad());
+        assertThat(cache.get("task-2", false)).isNotNull();
+    }
+
+    @Test
+    void keepsNewerVersion() {
+        TaskCache cache = cache(Duration.ofMinutes(1), 10);
+        TaskEntity newer = task("task-1", 2);
+        cache.put(newer, false, cache.beginLoad());
+
+        cache.put(task("task-1", 1), false, cache.beginLoad());
+
+        assertThat(cache.get("task-1", false)).isSameAs(newer);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        TaskCache cache = cache(Duration.ofMinutes(1), 2);
+        cache.put(task("task-1", 0), false, cache.beginLoad());
+        cache.put(task("task-2", 0), false, cache.beginLoad());
+        cache.get("task-1", false);
+
+        cache.put(task("task-3", 0), false, cache.beginLoad());
+
+        assertThat(cache.get("task-1", false)).isNotNull();
+        assertThat(cache.get("task-2", false)).isNull();
+        assertThat(cache.get("task-3", false)).isNotNull();
+    }
+
+    @Test
+    void expiresAfterTtl() throws InterruptedException {
+        TaskCache cache = cache(Duration.ofMillis(1), 10);
+        cache.put(task("task-1", 0), false, cache.beginLoad());
+
+        Thread.sleep(10);
+
+        assertThat(cache.get("task-1", false)).isNull();
+    }
+
+    private static TaskEntity task(String taskId, int version) {
+        TaskEntity task = new TaskEntity();
+        task.setTaskId(taskId);
+        task.setVersion(version);
+        return task;
+    }
+}
@@ -0,0 +1,46 @@
+package org.cresplanex.api.state.planservice.count;
+
+import org.cresplanex.api.state.planservice.cache.InMemoryTaskCacheInvalidationBus;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CountCacheTest {
+
+    // 同じバスを共有する2つのキャッシュで, 2つのレプリカを表す
+    private final InMemoryTaskCacheInvalidationBus bus = new InMemoryTaskCacheInvalidationBus();
+    private final CountCache writer = new CountCache(Duration.ofMinutes(1), 10, bus);
+    private final CountCache reader = new CountCache(Duration.ofMinutes(1), 10, bus);
+
+    @Test
+    void invalidationReachesOtherReplicas() {
+        reader.put("team", 3, reader.generation());
+
+        writer.invalidateAllAfterCommit();
+
+        assertThat(reader.get("team")).isEmpty();
+    }
+
+    @Test
+    void doesNotCacheCountStartedBeforeInvalidation() {
+        long startedGeneration = reader.generation();
+
+        writer.invalidateAllAfterCommit();
+        reader.put("team", 3, startedGeneration);
+
+        assertThat(reader.get("team")).isEmpty();
+    }
+
+    @Test
+    void resetDropsAllCounts() {
+        reader.put("team", 3, reader.generation());
+
+        reader.onReset();
+
+        assertThat(reader.get("team")).isEmpty();
+        reader.put("team", 4, reader.generation());
+        assertThat(reader.get("team")).hasValue(4);
+    }
+}
@@ -0,0 +1,60 @@
+package org.cresplanex.api.state.planservice.handler;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FlowControlledStreamWriterTest {
+
+    @SuppressWarnings("unchecked")
+    private final ServerCallStreamObserver<String> observer = mock(ServerCallStreamObserver.class);
+
+    @Test
+    void sendsWhenReady() {
+        when(observer.isReady()).thenReturn(true);
+        FlowControlledStreamWriter<String> writer = new FlowControlledStreamWriter<>(observer, Duration.ofSeconds(1));
+
+        writer.write("chunk");
+
+        verify(observer).onNext("chunk");
+    }
+
+    @Test
+    void failsWithDeadlineExceededWhenClientStopsReading() {
+        when(observer.isReady()).thenReturn(false);
+        FlowControlledStreamWriter<String> writer = new FlowControlledStreamWriter<>(observer, Duration.ofMillis(50));
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> writer.write("chunk"))
+                .isInstanceOfSatisfying(StatusRuntimeException.class,
+                        e -> assertThat(e.getStatus().getCode()).isEqualTo(Status.Code.DEADLINE_EXCEEDED));
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(50));
+        verify(observer, never()).onNext("chunk");
+    }
+
+    @Test
+    void failsWithCancelledWhenClientCancels() {
+        when(observer.isReady()).thenReturn(false);
+        when(observer.isCancelled()).thenReturn(true);
+        FlowControlledStreamWriter<String> writer = new FlowControlledStreamWriter<>(observer, Duration.ofSeconds(10));
+
+        assertThatThrownBy(() -> writer.write("chunk"))
+                .isInstanceOfSatisfying(StatusRuntimeException.class,
+                        e -> assertThat(e.getStatus().getCode()).isEqualTo(Status.Code.CANCELLED));
+
+        writer.fail(new IllegalStateException());
+        verify(observer, never()).onError(any());
+    }
+}
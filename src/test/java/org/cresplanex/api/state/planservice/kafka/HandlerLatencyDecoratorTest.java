@@ -0,0 +1,86 @@
+package org.cresplanex.api.state.planservice.kafka;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.cresplanex.core.messaging.consumer.decorator.MessageHandlerDecoratorChain;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class HandlerLatencyDecoratorTest {
+
+    private static final long SLOW_MILLIS = 20;
+
+    private final HandlerLatencyDecorator decorator = new HandlerLatencyDecorator(new SimpleMeterRegistry());
+
+    @Test
+    void returnsZeroWithoutSamples() {
+        assertThat(decorator.drainP99Nanos()).isZero();
+    }
+
+    @Test
+    void reportsSlowTailAboveOnePercent() {
+        handle(98, 0);
+        handle(2, SLOW_MILLIS);
+
+        assertThat(decorator.drainP99Nanos()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(SLOW_MILLIS));
+    }
+
+    @Test
+    void ignoresSlowTailWithinOnePercent() {
+        handle(199, 0);
+        handle(1, SLOW_MILLIS);
+
+        assertThat(decorator.drainP99Nanos()).isLessThan(TimeUnit.MILLISECONDS.toNanos(SLOW_MILLIS));
+    }
+
+    @Test
+    void resetsWindowOnDrain() {
+        handle(1, SLOW_MILLIS);
+
+        assertThat(decorator.drainP99Nanos()).isPositive();
+        assertThat(decorator.drainP99Nanos()).isZero();
+    }
+
+    @Test
+    void overwritesOldestSamplesBeyondWindow() {
+        handle(5, SLOW_MILLIS);
+        handle(4096, 0);
+
+        assertThat(decorator.drainP99Nanos()).isLessThan(TimeUnit.MILLISECONDS.toNanos(SLOW_MILLIS));
+    }
+
+    @Test
+    void tracksInFlightAndRecordsFailedHandlers() {
+        MessageHandlerDecoratorChain chain = mock(MessageHandlerDecoratorChain.class);
+        int[] observed = new int[1];
+        doAnswer(invocation -> {
+            observed[0] = decorator.inFlight();
+            throw new IllegalStateException("handler failed");
+        }).when(chain).invokeNext(any());
+
+        assertThatThrownBy(() -> decorator.accept(null, chain)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(observed[0]).isEqualTo(1);
+        assertThat(decorator.inFlight()).isZero();
+        assertThat(decorator.drainP99Nanos()).isPositive();
+    }
+
+    private void handle(int times, long millis) {
+        MessageHandlerDecoratorChain chain = mock(MessageHandlerDecoratorChain.class);
+        if (millis > 0) {
+            doAnswer(invocation -> {
+                Thread.sleep(millis);
+                return null;
+            }).when(chain).invokeNext(any());
+        }
+        for (int i = 0; i < times; i++) {
+            decorator.accept(null, chain);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.cresplanex.api.state.planservice.kafka;
+
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeyHashSwimlaneMappingTest {
+
+    private final TopicPartition partition0 = new TopicPartition("topic", 0);
+    private final TopicPartition partition1 = new TopicPartition("topic", 1);
+
+    @Test
+    void mapsSameKeyToSameSwimlane() {
+        KeyHashSwimlaneMapping mapping = new KeyHashSwimlaneMapping(4);
+
+        Integer first = mapping.toSwimlane(partition0, "saga-1");
+
+        assertThat(mapping.toSwimlane(partition0, "saga-1")).isEqualTo(first);
+    }
+
+    @Test
+    void spreadsKeysWithinTheRangeOfThePartition() {
+        KeyHashSwimlaneMapping mapping = new KeyHashSwimlaneMapping(4);
+        int base = mapping.toSwimlane(partition0, null);
+
+        Set<Integer> swimlanes = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            swimlanes.add(mapping.toSwimlane(partition0, "saga-" + i));
+        }
+
+        assertThat(swimlanes).hasSize(4).allMatch(swimlane -> swimlane >= base && swimlane < base + 4);
+    }
+
+    @Test
+    void givesEachPartitionItsOwnSwimlanes() {
+        KeyHashSwimlaneMapping mapping = new KeyHashSwimlaneMapping(4);
+
+        Set<Integer> swimlanes0 = new HashSet<>();
+        Set<Integer> swimlanes1 = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            swimlanes0.add(mapping.toSwimlane(partition0, "saga-" + i));
+            swimlanes1.add(mapping.toSwimlane(partition1, "saga-" + i));
+        }
+
+        assertThat(swimlanes0).doesNotContainAnyElementsOf(swimlanes1);
+    }
+
+    @Test
+    void mapsNullKeyToFirstSwimlaneOfThePartition() {
+        KeyHashSwimlaneMapping mapping = new KeyHashSwimlaneMapping(4);
+        mapping.toSwimlane(partition0, "saga-1");
+
+        assertThat(mapping.toSwimlane(partition1, null)).isEqualTo(4);
+        assertThat(mapping.toSwimlane(partition0, null)).isEqualTo(0);
+    }
+
+    @Test
+    void keepsPartitionOrderWithOneSwimlane() {
+        KeyHashSwimlaneMapping mapping = new KeyHashSwimlaneMapping(1);
+
+        assertThat(mapping.toSwimlane(partition0, "saga-1")).isEqualTo(mapping.toSwimlane(partition0, "saga-2"));
+    }
+
+    @Test
+    void rejectsNonPositiveSwimlanes() {
+        assertThatThrownBy(() -> new KeyHashSwimlaneMapping(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
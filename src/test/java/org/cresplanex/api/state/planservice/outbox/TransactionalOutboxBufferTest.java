@@ -0,0 +1,146 @@
+package org.cresplanex.api.state.planservice.outbox;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.cresplanex.api.state.planservice.utils.StubTransactionManager;
+import org.cresplanex.core.messaging.common.Message;
+import org.cresplanex.core.messaging.producer.MessageBuilder;
+import org.cresplanex.core.messaging.producer.MessageProducerImplementation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class TransactionalOutboxBufferTest {
+
+    private final StubTransactionManager transactionManager = new StubTransactionManager();
+    private final MessageProducerImplementation delegate = mock(MessageProducerImplementation.class);
+    private final OutboxBatchWriter writer = mock(OutboxBatchWriter.class);
+
+    // 書き込まれたメッセージのIDと, 書き込んだトランザクション
+    private final List<String> written = new ArrayList<>();
+    private final List<Object> writtenIn = new ArrayList<>();
+
+    private TransactionalOutboxBuffer buffer;
+    private TransactionTemplate required;
+    private TransactionTemplate requiresNew;
+
+    @BeforeEach
+    void setUp() {
+        buffer = new TransactionalOutboxBuffer(delegate, writer, transactionManager, new SimpleMeterRegistry());
+        required = new TransactionTemplate(transactionManager);
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        doAnswer(invocation -> {
+            List<Message> messages = invocation.getArgument(0);
+            messages.forEach(message -> {
+                written.add(message.getId());
+                writtenIn.add(transactionManager.current());
+            });
+            return null;
+        }).when(writer).write(anyList());
+    }
+
+    @Test
+    void writesBufferedMessagesBeforeCommit() {
+        Object[] outer = new Object[1];
+        required.executeWithoutResult(status -> {
+            outer[0] = transactionManager.current();
+            buffer.send(message("1"));
+            buffer.send(message("2"));
+            assertThat(written).isEmpty();
+        });
+
+        assertThat(written).containsExactly("1", "2");
+        assertThat(writtenIn).containsOnly(outer[0]);
+        verify(delegate, never()).send(any());
+    }
+
+    @Test
+    void discardsBufferOnRollback() {
+        required.executeWithoutResult(status -> {
+            buffer.send(message("1"));
+            status.setRollbackOnly();
+        });
+
+        assertThat(written).isEmpty();
+        verify(delegate, never()).send(any());
+    }
+
+    @Test
+    void givesRequiresNewTransactionItsOwnBuffer() {
+        Object[] inner = new Object[1];
+        required.executeWithoutResult(status -> {
+            buffer.send(message("outer"));
+            requiresNew.executeWithoutResult(innerStatus -> {
+                inner[0] = transactionManager.current();
+                buffer.send(message("inner"));
+            });
+            assertThat(written).containsExactly("inner");
+            buffer.send(message("outer-after"));
+        });
+
+        assertThat(written).containsExactly("inner", "outer", "outer-after");
+        assertThat(writtenIn.get(0)).isSameAs(inner[0]);
+        verify(delegate, never()).send(any());
+    }
+
+    @Test
+    void writesInsideRequiresNewTransactionStartedFromAfterCommit() {
+        Object[] inner = new Object[1];
+        boolean[] writtenBeforeInnerCommit = new boolean[1];
+        required.executeWithoutResult(status -> {
+            buffer.send(message("outer"));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    // ValidationBatcher.sendと同じく, コミット後に別のトランザクションで送信する
+                    requiresNew.executeWithoutResult(innerStatus -> {
+                        inner[0] = transactionManager.current();
+                        buffer.send(message("from-after-commit"));
+                        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                            @Override
+                            public void afterCommit() {
+                                writtenBeforeInnerCommit[0] = written.contains("from-after-commit");
+                            }
+                        });
+                    });
+                }
+            });
+        });
+
+        assertThat(written).containsExactly("outer", "from-after-commit");
+        assertThat(writtenIn.get(1)).isSameAs(inner[0]);
+        assertThat(writtenBeforeInnerCommit[0]).isTrue();
+        // コミット後の別のトランザクションでの書き込み(late)には回らない
+        verify(delegate, never()).send(any());
+    }
+
+    @Test
+    void sendsDirectlyOutsideTransaction() {
+        Message message = message("1");
+        buffer.send(message);
+
+        verify(delegate).send(message);
+        assertThat(written).isEmpty();
+    }
+
+    private static Message message(String id) {
+        return MessageBuilder.withPayload("{}")
+                .withHeader(Message.ID, id)
+                .withHeader(Message.DESTINATION, "channel")
+                .build();
+    }
+}
@@ -0,0 +1,100 @@
+package org.cresplanex.api.state.planservice.pagination;
+
+import org.cresplanex.api.state.planservice.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorCodecTest {
+
+    private static final String SECRET = "test-cursor-secret-0123456789abcdef";
+
+    private final CursorCodec codec = new CursorCodec(SECRET);
+
+    private final Keyset<Row> byTitle = Keyset.<Row>named("title")
+            .asc("title", String.class, Row::title)
+            .desc("createdAt", LocalDateTime.class, Row::createdAt)
+            .desc("id", String.class, Row::id)
+            .build();
+    private final Keyset<Row> byCreatedAt = Keyset.<Row>named("created_at")
+            .desc("createdAt", LocalDateTime.class, Row::createdAt)
+            .desc("id", String.class, Row::id)
+            .build();
+
+    @Test
+    void roundTripsSortKeyValues() {
+        Row last = new Row("title", LocalDateTime.of(2024, 12, 1, 9, 0), "task-1");
+
+        String cursor = codec.encode(byTitle, last);
+
+        assertThat(codec.decode(byTitle, cursor)).containsExactly("title", "2024-12-01T09:00", "task-1");
+    }
+
+    @Test
+    void roundTripsEmptyValues() {
+        String cursor = codec.encode(byTitle, List.of());
+
+        assertThat(codec.decode(byTitle, cursor)).isEmpty();
+    }
+
+    @Test
+    void rejectsTamperedPayload() {
+        String cursor = codec.encode(byTitle, List.of("a", "2024-12-01T09:00", "task-1"));
+        String signature = cursor.substring(cursor.indexOf('.') + 1);
+        String forged = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                "{\"keyset\":\"title\",\"values\":[\"z\",\"2024-12-01T09:00\",\"task-1\"]}".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> codec.decode(byTitle, forged + "." + signature))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void rejectsTamperedSignature() {
+        String cursor = codec.encode(byTitle, List.of("a", "2024-12-01T09:00", "task-1"));
+        char last = cursor.charAt(cursor.length() - 1);
+        String tampered = cursor.substring(0, cursor.length() - 1) + (last == 'A' ? 'B' : 'A');
+
+        assertThatThrownBy(() -> codec.decode(byTitle, tampered))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void rejectsCursorSignedWithAnotherSecret() {
+        String cursor = new CursorCodec("another-cursor-secret-0123456789abcdef")
+                .encode(byTitle, List.of("a", "2024-12-01T09:00", "task-1"));
+
+        assertThatThrownBy(() -> codec.decode(byTitle, cursor))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThatThrownBy(() -> codec.decode(byTitle, "no-separator"))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> codec.decode(byTitle, "!!!.???"))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void rejectsCursorOfAnotherSortOrder() {
+        String cursor = codec.encode(byCreatedAt, List.of("2024-12-01T09:00", "task-1"));
+
+        assertThatThrownBy(() -> codec.decode(byTitle, cursor))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void rejectsShortSecret() {
+        assertThatThrownBy(() -> new CursorCodec("secret"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private record Row(String title, LocalDateTime createdAt, String id) {
+    }
+}
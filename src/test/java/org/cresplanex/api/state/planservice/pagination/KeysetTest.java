@@ -0,0 +1,93 @@
+package org.cresplanex.api.state.planservice.pagination;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class KeysetTest {
+
+    // ASCとDESCが混在するキーセット
+    private final Keyset<Row> keyset = Keyset.<Row>named("title")
+            .asc("title", String.class, Row::title)
+            .desc("createdAt", LocalDateTime.class, Row::createdAt)
+            .desc("id", String.class, Row::id)
+            .build();
+
+    @Test
+    void buildsSortInKeyOrder() {
+        assertThat(keyset.toSort()).containsExactly(
+                Sort.Order.asc("title"),
+                Sort.Order.desc("createdAt"),
+                Sort.Order.desc("id")
+        );
+    }
+
+    @Test
+    void extractsValuesFromEntityAndAttributes() {
+        Row row = new Row("title", LocalDateTime.of(2024, 12, 1, 9, 0), "task-1");
+
+        assertThat(keyset.valuesOf(row)).containsExactly("title", "2024-12-01T09:00", "task-1");
+        assertThat(keyset.valuesBy(path -> switch (path) {
+            case "title" -> row.title();
+            case "createdAt" -> row.createdAt();
+            default -> row.id();
+        })).containsExactly("title", "2024-12-01T09:00", "task-1");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void seeksPastValuesRespectingEachDirection() {
+        Root<Row> root = mock(Root.class);
+        Path<Object> title = mock(Path.class);
+        Path<Object> createdAt = mock(Path.class);
+        Path<Object> id = mock(Path.class);
+        when(root.get("title")).thenReturn(title);
+        when(root.get("createdAt")).thenReturn(createdAt);
+        when(root.get("id")).thenReturn(id);
+        CriteriaBuilder criteriaBuilder = mock(CriteriaBuilder.class);
+        Predicate predicate = mock(Predicate.class);
+        when(criteriaBuilder.and(any(Predicate[].class))).thenReturn(predicate);
+        when(criteriaBuilder.or(any(Predicate[].class))).thenReturn(predicate);
+        LocalDateTime created = LocalDateTime.of(2024, 12, 1, 9, 0);
+
+        keyset.after(List.of("title", "2024-12-01T09:00", "task-1"))
+                .toPredicate(root, mock(CriteriaQuery.class), criteriaBuilder);
+
+        // title > ? OR (title = ? AND created_at < ?) OR (title = ? AND created_at = ? AND id < ?)
+        verify(criteriaBuilder).greaterThan(any(Path.class), eq("title"));
+        verify(criteriaBuilder).lessThan(any(Path.class), eq(created));
+        verify(criteriaBuilder).lessThan(any(Path.class), eq("task-1"));
+        verify(criteriaBuilder, never()).greaterThan(any(Path.class), eq(created));
+        verify(criteriaBuilder, times(2)).equal(title, "title");
+        verify(criteriaBuilder).equal(createdAt, created);
+        verify(criteriaBuilder).or(any(Predicate[].class));
+    }
+
+    @Test
+    void rejectsValuesOfAnotherShape() {
+        assertThatThrownBy(() -> keyset.after(List.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> keyset.after(List.of("title", "task-1")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private record Row(String title, LocalDateTime createdAt, String id) {
+    }
+}
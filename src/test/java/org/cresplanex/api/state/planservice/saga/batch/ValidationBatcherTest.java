@@ -0,0 +1,109 @@
+package org.cresplanex.api.state.planservice.saga.batch;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.cresplanex.api.state.planservice.utils.StubTransactionManager;
+import org.cresplanex.core.commands.common.Command;
+import org.cresplanex.core.commands.producer.CommandProducer;
+import org.cresplanex.core.messaging.consumer.MessageConsumer;
+import org.cresplanex.core.messaging.producer.MessageProducer;
+import org.cresplanex.core.saga.common.SagaCommandHeaders;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ValidationBatcherTest {
+
+    private static final String REPLY_CHANNEL = "validation-batch-reply";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CommandProducer commandProducer = mock(CommandProducer.class);
+    private final List<String> submittedSagaIds = new ArrayList<>();
+    // 受け付けた記録は全て送信時に削除できたものとする
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class, invocation ->
+            "queryForList".equals(invocation.getMethod().getName())
+                    ? List.copyOf(submittedSagaIds)
+                    : Mockito.RETURNS_DEFAULTS.answer(invocation));
+
+    private ValidationBatcher batcher;
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) {
+            batcher.destroy();
+        }
+    }
+
+    @Test
+    void batchesWaitersUnderHeaderLimit() throws Exception {
+        batcher = batcher(3, 4096);
+
+        submit("saga-1", "user-1");
+        submit("saga-2", "user-2");
+        submit("saga-3", "user-1");
+
+        ArgumentCaptor<Map<String, String>> headers = headersCaptor();
+        verify(commandProducer, times(1)).send(anyString(), any(Command.class), anyString(), headers.capture());
+        assertThat(readWaiters(headers.getValue()))
+                .extracting(ValidationBatchWaiter::sagaId)
+                .containsExactly("saga-1", "saga-2", "saga-3");
+    }
+
+    @Test
+    void splitsWaitersExceedingHeaderLimit() throws Exception {
+        int waiterBytes = objectMapper.writeValueAsBytes(new ValidationBatchWaiter("saga", "saga-1", List.of("user-1"))).length + 1;
+        // 2つのSagaまでがヘッダーに収まる
+        batcher = batcher(3, 2 + waiterBytes * 2);
+
+        submit("saga-1", "user-1");
+        submit("saga-2", "user-2");
+        submit("saga-3", "user-3");
+
+        ArgumentCaptor<String> replyTo = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Map<String, String>> headers = headersCaptor();
+        verify(commandProducer, times(2)).send(anyString(), any(Command.class), replyTo.capture(), headers.capture());
+
+        assertThat(replyTo.getAllValues()).containsExactly(REPLY_CHANNEL, "saga-reply");
+        assertThat(readWaiters(headers.getAllValues().get(0)))
+                .extracting(ValidationBatchWaiter::sagaId)
+                .containsExactly("saga-1", "saga-2");
+        // 残りの1つはSagaごとのコマンドとして送信する
+        assertThat(headers.getAllValues().get(1)).containsEntry(SagaCommandHeaders.SAGA_ID, "saga-3");
+    }
+
+    private ValidationBatcher batcher(int maxIds, int maxWaitersBytes) {
+        return new ValidationBatcher(
+                false, Duration.ofMinutes(1), maxIds, maxWaitersBytes, REPLY_CHANNEL, Duration.ofMinutes(1), "%s-reply",
+                commandProducer, mock(MessageProducer.class), mock(MessageConsumer.class), objectMapper,
+                jdbcTemplate, new StubTransactionManager(), new SimpleMeterRegistry());
+    }
+
+    private void submit(String sagaId, String userId) {
+        submittedSagaIds.add(sagaId);
+        batcher.submit(ValidationTarget.USER, "saga", sagaId, List.of(userId));
+    }
+
+    private List<ValidationBatchWaiter> readWaiters(Map<String, String> headers) throws Exception {
+        return objectMapper.readValue(headers.get("command_batch_waiters"), new TypeReference<>() {});
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<Map<String, String>> headersCaptor() {
+        return ArgumentCaptor.forClass(Map.class);
+    }
+}
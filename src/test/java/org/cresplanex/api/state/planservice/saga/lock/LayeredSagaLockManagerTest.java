@@ -0,0 +1,132 @@
+package org.cresplanex.api.state.planservice.saga.lock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.cresplanex.api.state.planservice.utils.StubTransactionManager;
+import org.cresplanex.core.saga.lock.SagaLockManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LayeredSagaLockManagerTest {
+
+    private static final String SAGA_TYPE = "saga";
+    private static final String TARGET = "task/1";
+
+    private final SagaLockManager delegate = mock(SagaLockManager.class);
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(new StubTransactionManager());
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void skipsLockTableForCommittedOwner() {
+        LayeredSagaLockManager manager = manager(Duration.ofSeconds(1));
+        when(delegate.claimLock(SAGA_TYPE, "saga-1", TARGET)).thenReturn(true);
+
+        transactionTemplate.executeWithoutResult(status -> manager.claimLock(SAGA_TYPE, "saga-1", TARGET));
+
+        assertThat(manager.claimLock(SAGA_TYPE, "saga-1", TARGET)).isTrue();
+        verify(delegate, times(1)).claimLock(SAGA_TYPE, "saga-1", TARGET);
+        assertThat(manager.activeTargets()).isZero();
+    }
+
+    @Test
+    void doesNotRecordOwnerOfRolledBackClaim() {
+        LayeredSagaLockManager manager = manager(Duration.ofSeconds(1));
+        when(delegate.claimLock(SAGA_TYPE, "saga-1", TARGET)).thenReturn(true, false);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertThat(manager.claimLock(SAGA_TYPE, "saga-1", TARGET)).isTrue();
+            status.setRollbackOnly();
+        });
+
+        // 再配信されたメッセージはロックテーブルで判定する
+        assertThat(manager.claimLock(SAGA_TYPE, "saga-1", TARGET)).isFalse();
+        verify(delegate, times(2)).claimLock(SAGA_TYPE, "saga-1", TARGET);
+    }
+
+    @Test
+    void queuesSameTargetUntilHolderCompletes() throws Exception {
+        LayeredSagaLockManager manager = manager(Duration.ofSeconds(10));
+        when(delegate.claimLock(anyString(), anyString(), anyString())).thenReturn(true);
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+
+        Future<?> holder = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+            manager.claimLock(SAGA_TYPE, "saga-1", TARGET);
+            claimed.countDown();
+            await(commit);
+        }));
+        assertThat(claimed.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Future<Boolean> sameTarget = executor.submit(() -> manager.claimLock(SAGA_TYPE, "saga-2", TARGET));
+        Future<Boolean> otherTarget = executor.submit(() -> manager.claimLock(SAGA_TYPE, "saga-3", "task/2"));
+
+        // 他の対象は待たない
+        assertThat(otherTarget.get(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(100);
+        assertThat(sameTarget).isNotDone();
+        verify(delegate, times(0)).claimLock(SAGA_TYPE, "saga-2", TARGET);
+
+        commit.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        sameTarget.get(5, TimeUnit.SECONDS);
+        verify(delegate).claimLock(SAGA_TYPE, "saga-2", TARGET);
+        assertThat(manager.activeTargets()).isZero();
+    }
+
+    @Test
+    void fallsThroughToLockTableAfterWaitTimeout() throws Exception {
+        LayeredSagaLockManager manager = manager(Duration.ofMillis(50));
+        when(delegate.claimLock(anyString(), anyString(), anyString())).thenReturn(true, false);
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+
+        Future<?> holder = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+            manager.claimLock(SAGA_TYPE, "saga-1", TARGET);
+            claimed.countDown();
+            await(commit);
+        }));
+        assertThat(claimed.await(5, TimeUnit.SECONDS)).isTrue();
+
+        boolean result = CompletableFuture.supplyAsync(() -> manager.claimLock(SAGA_TYPE, "saga-2", TARGET), executor)
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(result).isFalse();
+        assertThat(meterRegistry.counter("saga.lock.wait.timeouts").count()).isEqualTo(1);
+        commit.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        assertThat(manager.activeTargets()).isZero();
+    }
+
+    private LayeredSagaLockManager manager(Duration waitTimeout) {
+        return new LayeredSagaLockManager(delegate, waitTimeout, 100, meterRegistry);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package org.cresplanex.api.state.planservice.saga.model.task;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.cresplanex.api.state.common.saga.command.plan.CreateTaskAndAttachInitialFIleObjectsCommand;
+import org.cresplanex.api.state.common.saga.reply.plan.CreateTaskAndAttachInitialFIleObjectsReply;
+import org.cresplanex.api.state.common.saga.reply.storage.FileObjectExistValidateReply;
+import org.cresplanex.api.state.common.saga.reply.team.TeamExistValidateReply;
+import org.cresplanex.api.state.common.saga.reply.userprofile.UserExistValidateReply;
+import org.cresplanex.api.state.common.saga.validate.storage.FileObjectExistValidateCommand;
+import org.cresplanex.api.state.common.saga.validate.team.TeamExistValidateCommand;
+import org.cresplanex.api.state.common.saga.validate.userprofile.UserExistValidateCommand;
+import org.cresplanex.api.state.planservice.cache.ExistenceCache;
+import org.cresplanex.api.state.planservice.cache.ExistenceKind;
+import org.cresplanex.api.state.planservice.event.publisher.TaskDomainEventPublisher;
+import org.cresplanex.api.state.planservice.saga.batch.ValidationBatcher;
+import org.cresplanex.api.state.planservice.saga.proxy.PlanServiceProxy;
+import org.cresplanex.api.state.planservice.saga.proxy.StorageServiceProxy;
+import org.cresplanex.api.state.planservice.saga.proxy.TeamServiceProxy;
+import org.cresplanex.api.state.planservice.saga.proxy.UserProfileServiceProxy;
+import org.cresplanex.api.state.planservice.saga.state.task.CreateTaskSagaState;
+import org.cresplanex.api.state.planservice.service.TaskLocalValidateService;
+import org.cresplanex.core.commands.common.CommandReplyOutcome;
+import org.cresplanex.core.commands.common.ReplyMessageHeaders;
+import org.cresplanex.core.messaging.producer.MessageBuilder;
+import org.cresplanex.core.saga.orchestration.SagaActions;
+import org.cresplanex.core.saga.orchestration.SagaDefinition;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * CreateTaskSagaの定義を, 存在検証のステップのスキップの全ての組み合わせで進める.
+ * 検証のステップはParallelStepsSagaDefinitionでまとめて送信されるため, 返信の順序によらず進むこと,
+ * いずれの位置の失敗でもTaskを作成しないことを確認する.
+ */
+class CreateTaskSagaTest {
+
+    private static final String SAGA_TYPE = "CreateTaskSaga";
+    private static final String SAGA_ID = "saga-1";
+
+    private static final Branch USER = new Branch(
+            UserExistValidateCommand.class, UserExistValidateReply.Success.TYPE, UserExistValidateReply.Failure.TYPE);
+    private static final Branch TEAM = new Branch(
+            TeamExistValidateCommand.class, TeamExistValidateReply.Success.TYPE, TeamExistValidateReply.Failure.TYPE);
+    private static final Branch FILE_OBJECT = new Branch(
+            FileObjectExistValidateCommand.class, FileObjectExistValidateReply.Success.TYPE, FileObjectExistValidateReply.Failure.TYPE);
+
+    private SagaDefinition<CreateTaskSagaState> definition;
+    private CreateTaskSagaState sagaData;
+    private String currentState;
+
+    static Stream<Arguments> combinations() {
+        List<Arguments> combinations = new ArrayList<>();
+        for (boolean skipUser : new boolean[]{false, true}) {
+            for (boolean skipTeam : new boolean[]{false, true}) {
+                for (boolean skipFileObject : new boolean[]{false, true}) {
+                    combinations.add(Arguments.of(skipUser, skipTeam, skipFileObject));
+                }
+            }
+        }
+        return combinations.stream();
+    }
+
+    static Stream<Arguments> failures() {
+        return combinations().flatMap(arguments -> {
+            Object[] args = arguments.get();
+            List<Branch> branches = expectedBranches((boolean) args[0], (boolean) args[1], (boolean) args[2]);
+            return Stream.iterate(0, position -> position < branches.size(), position -> position + 1)
+                    .map(position -> Arguments.of(args[0], args[1], args[2], position));
+        });
+    }
+
+    @ParameterizedTest(name = "skipUser={0}, skipTeam={1}, skipFileObject={2}")
+    @MethodSource("combinations")
+    void createsTaskAfterAllExecutedValidationsSucceed(boolean skipUser, boolean skipTeam, boolean skipFileObject) {
+        List<Branch> branches = setUp(skipUser, skipTeam, skipFileObject);
+
+        SagaActions<CreateTaskSagaState> actions = start();
+
+        if (branches.isEmpty()) {
+            assertThat(commandClasses(actions)).containsExactly(CreateTaskAndAttachInitialFIleObjectsCommand.Exec.class);
+        } else {
+            // 実行する検証のコマンドのみを, 1回でまとめて送信する
+            assertThat(commandClasses(actions))
+                    .containsExactlyInAnyOrderElementsOf(branches.stream().map(Branch::commandClass).toList());
+            // 返信は送信と逆の順序で届いても, 揃うまで次に進まない
+            for (int i = branches.size() - 1; i > 0; i--) {
+                actions = reply(branches.get(i).successType(), true, "{}");
+                assertThat(actions.getCommands()).isEmpty();
+                assertThat(actions.isEndState()).isFalse();
+            }
+            actions = reply(branches.get(0).successType(), true, "{}");
+            assertThat(commandClasses(actions)).containsExactly(CreateTaskAndAttachInitialFIleObjectsCommand.Exec.class);
+        }
+
+        actions = reply(CreateTaskAndAttachInitialFIleObjectsReply.Success.TYPE, true,
+                "{\"data\":{\"task\":{\"taskId\":\"task-1\"},\"fileObjects\":[]}}");
+        assertThat(actions.isEndState()).isTrue();
+        assertThat(actions.isCompensating()).isFalse();
+    }
+
+    @ParameterizedTest(name = "skipUser={0}, skipTeam={1}, skipFileObject={2}, failedAt={3}")
+    @MethodSource("failures")
+    void doesNotCreateTaskWhenAnyValidationFails(
+            boolean skipUser, boolean skipTeam, boolean skipFileObject, int failedAt) {
+        List<Branch> branches = setUp(skipUser, skipTeam, skipFileObject);
+
+        SagaActions<CreateTaskSagaState> actions = start();
+        // 失敗より前の位置の検証は成功している
+        for (int i = 0; i < failedAt; i++) {
+            actions = reply(branches.get(i).successType(), true, "{}");
+            assertThat(actions.getCommands()).isEmpty();
+        }
+        actions = reply(branches.get(failedAt).failureType(), false, "{}");
+
+        assertThat(actions.isEndState()).isTrue();
+        assertThat(commandClasses(actions)).doesNotContain(CreateTaskAndAttachInitialFIleObjectsCommand.Exec.class);
+        assertThat(sagaData.getParallelReplies().isActive()).isFalse();
+    }
+
+    private List<Branch> setUp(boolean skipUser, boolean skipTeam, boolean skipFileObject) {
+        ExistenceCache existenceCache = mock(ExistenceCache.class);
+        // ユーザーはキャッシュで, ファイルは添付がないことでスキップする
+        when(existenceCache.allKnownToExist(eq(ExistenceKind.USER), any())).thenReturn(skipUser);
+        when(existenceCache.allKnownToExist(eq(ExistenceKind.TEAM), any())).thenReturn(skipTeam);
+        when(existenceCache.allKnownToExist(eq(ExistenceKind.FILE_OBJECT), any())).thenReturn(false);
+        ValidationBatcher validationBatcher = mock(ValidationBatcher.class);
+        when(validationBatcher.isEnabled()).thenReturn(false);
+
+        CreateTaskSaga saga = new CreateTaskSaga(
+                mock(TaskLocalValidateService.class),
+                new PlanServiceProxy(),
+                new StorageServiceProxy(),
+                new TeamServiceProxy(),
+                new UserProfileServiceProxy(),
+                mock(TaskDomainEventPublisher.class),
+                existenceCache,
+                validationBatcher,
+                new SimpleMeterRegistry()
+        );
+        definition = saga.getSagaDefinition();
+
+        sagaData = new CreateTaskSagaState();
+        sagaData.setOperatorId("user-0");
+        sagaData.setInitialData(CreateTaskSagaState.InitialData.builder()
+                .operatorId("user-0")
+                .teamId("team-1")
+                .chargeUserId("user-1")
+                .title("title")
+                .description("description")
+                .startDatetime("2024-12-01T09:00:00")
+                .dueDatetime("2024-12-31T18:00:00")
+                .attachmentFileObjects(skipFileObject
+                        ? List.of()
+                        : List.of(new CreateTaskSagaState.InitialData.FileObject("file-1")))
+                .build());
+        currentState = null;
+        return expectedBranches(skipUser, skipTeam, skipFileObject);
+    }
+
+    private static List<Branch> expectedBranches(boolean skipUser, boolean skipTeam, boolean skipFileObject) {
+        List<Branch> branches = new ArrayList<>();
+        if (!skipUser) {
+            branches.add(USER);
+        }
+        if (!skipTeam) {
+            branches.add(TEAM);
+        }
+        if (!skipFileObject) {
+            branches.add(FILE_OBJECT);
+        }
+        return branches;
+    }
+
+    /**
+     * SagaManagerと同じく, ローカルのステップは成功の返信を模して次に進める.
+     */
+    private SagaActions<CreateTaskSagaState> start() {
+        return advanceLocal(track(definition.start(sagaData)));
+    }
+
+    private SagaActions<CreateTaskSagaState> reply(String replyType, boolean success, String payload) {
+        SagaActions<CreateTaskSagaState> actions = definition.handleReply(SAGA_TYPE, SAGA_ID, currentState, sagaData,
+                MessageBuilder.withPayload(payload)
+                        .withHeader(ReplyMessageHeaders.REPLY_OUTCOME,
+                                (success ? CommandReplyOutcome.SUCCESS : CommandReplyOutcome.FAILURE).name())
+                        .withHeader(ReplyMessageHeaders.REPLY_TYPE, replyType)
+                        .build());
+        return advanceLocal(track(actions));
+    }
+
+    private SagaActions<CreateTaskSagaState> advanceLocal(SagaActions<CreateTaskSagaState> actions) {
+        while (actions.isLocal() && !actions.isEndState()) {
+            actions = track(definition.handleReply(SAGA_TYPE, SAGA_ID, currentState, sagaData,
+                    MessageBuilder.withPayload("{}")
+                            .withHeader(ReplyMessageHeaders.REPLY_OUTCOME, CommandReplyOutcome.SUCCESS.name())
+                            .withHeader(ReplyMessageHeaders.REPLY_TYPE, "local")
+                            .build()));
+        }
+        return actions;
+    }
+
+    private SagaActions<CreateTaskSagaState> track(SagaActions<CreateTaskSagaState> actions) {
+        actions.getUpdatedState().ifPresent(state -> currentState = state);
+        actions.getUpdatedSagaData().ifPresent(data -> sagaData = data);
+        return actions;
+    }
+
+    private static Set<Class<?>> commandClasses(SagaActions<CreateTaskSagaState> actions) {
+        return actions.getCommands().stream()
+                .map(command -> command.getCommand().getCommand().getClass())
+                .collect(Collectors.toSet());
+    }
+
+    private record Branch(Class<?> commandClass, String successType, String failureType) {
+    }
+}
@@ -0,0 +1,67 @@
+package org.cresplanex.api.state.planservice.saga.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SmileSagaStateCodecTest {
+
+    private static final int THRESHOLD = 256;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SmileSagaStateCodec codec = new SmileSagaStateCodec(true, THRESHOLD);
+
+    @Test
+    void decodesPlainJsonAsIs() {
+        String json = "{\"jobId\":\"job-1\",\"tasks\":[1,2,3]}";
+
+        assertThat(codec.decode(json)).isEqualTo(json);
+        assertThat(codec.decode(null)).isNull();
+    }
+
+    @Test
+    void roundTripsBelowThresholdWithoutCompression() throws Exception {
+        String json = "{\"jobId\":\"job-1\",\"operatorId\":\"user-1\",\"count\":3,\"done\":false}";
+
+        String stored = codec.encode(json);
+
+        assertThat(stored).startsWith("~s1:");
+        assertThat(flagsOf(stored)).isZero();
+        assertThat(objectMapper.readTree(codec.decode(stored))).isEqualTo(objectMapper.readTree(json));
+    }
+
+    @Test
+    void roundTripsAboveThresholdWithCompression() throws Exception {
+        StringBuilder tasks = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            if (i > 0) {
+                tasks.append(',');
+            }
+            tasks.append("{\"taskId\":\"task-").append(i).append("\",\"title\":\"Task title ").append(i)
+                    .append("\",\"description\":\"Description of the task\",\"status\":\"TODO\"}");
+        }
+        String json = "{\"jobId\":\"job-1\",\"tasks\":[" + tasks + "]}";
+
+        String stored = codec.encode(json);
+
+        assertThat(flagsOf(stored)).isEqualTo(1);
+        assertThat(stored.length()).isLessThan(json.length());
+        assertThat(objectMapper.readTree(codec.decode(stored))).isEqualTo(objectMapper.readTree(json));
+    }
+
+    @Test
+    void writesJsonWhenSmileIsDisabledAndStillReadsSmile() {
+        SmileSagaStateCodec jsonCodec = new SmileSagaStateCodec(false, THRESHOLD);
+        String json = "{\"jobId\":\"job-1\"}";
+
+        assertThat(jsonCodec.encode(json)).isEqualTo(json);
+        assertThat(jsonCodec.decode(codec.encode(json))).isEqualTo(json);
+    }
+
+    private static int flagsOf(String stored) {
+        return Base64.getDecoder().decode(stored.substring("~s1:".length()))[0];
+    }
+}
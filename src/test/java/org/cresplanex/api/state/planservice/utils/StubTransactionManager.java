@@ -0,0 +1,64 @@
+package org.cresplanex.api.state.planservice.utils;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+/**
+ * DataSourceTransactionManagerと同じく, スレッドごとのトランザクションを中断と再開で切り替えるだけのTransactionManager.
+ * 同期(TransactionSynchronization)の呼び出し順を確認するテストで利用する.
+ */
+public class StubTransactionManager extends AbstractPlatformTransactionManager {
+
+    private final ThreadLocal<Object> current = new ThreadLocal<>();
+
+    /**
+     * @return 現在のスレッドで実行中のトランザクションを表すオブジェクト. トランザクション外の場合はnull
+     */
+    public Object current() {
+        return current.get();
+    }
+
+    @Override
+    protected Object doGetTransaction() {
+        return new Object[]{current.get()};
+    }
+
+    @Override
+    protected boolean isExistingTransaction(Object transaction) {
+        return ((Object[]) transaction)[0] != null;
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        Object begun = new Object();
+        current.set(begun);
+        ((Object[]) transaction)[0] = begun;
+    }
+
+    @Override
+    protected Object doSuspend(Object transaction) {
+        Object suspended = current.get();
+        current.remove();
+        ((Object[]) transaction)[0] = null;
+        return suspended;
+    }
+
+    @Override
+    protected void doResume(Object transaction, Object suspendedResources) {
+        current.set(suspendedResources);
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        current.remove();
+    }
+}